@@ -0,0 +1,106 @@
+package org.sputnikdev.bluetooth.gattparser;
+
+/*-
+ * #%L
+ * org.sputnikdev:bluetooth-gatt-parser
+ * %%
+ * Copyright (C) 2017 Sputnik Dev
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversions of parsed field values: boxed and primitive getters of an integer field, a scaled integer field
+ * (Temperature, decimal exponent -2), an IEEE-11073 FLOAT field and a string field.
+ * <pre>
+ * mvn -Pjmh verify -DskipTests -Djmh.args="FieldHolderBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FieldHolderBenchmark {
+
+    private FieldHolder heartRate;
+    private FieldHolder temperature;
+    private FieldHolder temperatureMeasurement;
+    private FieldHolder deviceName;
+
+    @Setup
+    public void setUp() {
+        BluetoothGattParser parser = BluetoothGattParserFactory.getDefault();
+        heartRate = parser.parse("2A37", new byte[] {20, 74, 13, 3}).get("Heart Rate Measurement Value (uint8)");
+        temperature = parser.parse("2A6E", new byte[] {0x4C, 0x0E}).get("Temperature");
+        temperatureMeasurement = parser.parse("2A1C", new byte[] {0, 0x6E, 0x01, 0x00, (byte) 0xFF})
+                .get("Temperature Measurement Value (Celsius)");
+        deviceName = parser.parse("2A00", "Heart Rate Sensor".getBytes()).get("Name");
+    }
+
+    @Benchmark
+    public Integer getInteger() {
+        return heartRate.getInteger(null);
+    }
+
+    @Benchmark
+    public int getAsInt() {
+        return heartRate.getAsInt(0);
+    }
+
+    @Benchmark
+    public long getAsLong() {
+        return heartRate.getAsLong(0);
+    }
+
+    @Benchmark
+    public Double getScaledDouble() {
+        return temperature.getDouble(null);
+    }
+
+    @Benchmark
+    public double getScaledAsDouble() {
+        return temperature.getAsDouble(0);
+    }
+
+    @Benchmark
+    public Float getFloat() {
+        return temperatureMeasurement.getFloat(null);
+    }
+
+    @Benchmark
+    public String getString() {
+        return deviceName.getString(null);
+    }
+
+    @Benchmark
+    public String getIntegerAsString() {
+        return heartRate.getString(null);
+    }
+
+}
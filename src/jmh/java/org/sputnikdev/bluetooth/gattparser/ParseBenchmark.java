@@ -0,0 +1,146 @@
+package org.sputnikdev.bluetooth.gattparser;
+
+/*-
+ * #%L
+ * org.sputnikdev:bluetooth-gatt-parser
+ * %%
+ * Copyright (C) 2017 Sputnik Dev
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sputnikdev.bluetooth.gattparser.spec.BluetoothGattSpecificationReader;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-threaded parsing of representative characteristics: a single field (Battery Level), flags with
+ * optional fields (Heart Rate Measurement), IEEE-11073 FLOAT with a nested reference (Temperature Measurement),
+ * nested references only (Day Date Time) and a utf8s string (Device Name). Values are parsed by UUID, through
+ * a bound handle, into a reused response, in batches and by a parser with the parse cache enabled (a repeated
+ * value is a cache hit).
+ * <pre>
+ * mvn -Pjmh verify -DskipTests -Djmh.args="ParseBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark {
+
+    private static final int BATCH_SIZE = 64;
+
+    @Param({"battery_level", "heart_rate_measurement", "temperature_measurement", "day_date_time", "device_name"})
+    private String characteristic;
+
+    private BluetoothGattParser parser;
+    private String uuid;
+    private byte[] value;
+    private CharacteristicHandle handle;
+    private MutableGattResponse response;
+    private byte[][] batch;
+    private GattResponseColumns columns;
+    private CharacteristicHandle cachedHandle;
+
+    @Setup
+    public void setUp() {
+        parser = BluetoothGattParserFactory.getDefault();
+        switch (characteristic) {
+            case "battery_level":
+                uuid = "2A19";
+                value = new byte[] {51};
+                break;
+            case "heart_rate_measurement":
+                // uint8 rate, sensor contact, RR-Interval
+                uuid = "2A37";
+                value = new byte[] {20, 74, 13, 3};
+                break;
+            case "temperature_measurement":
+                // 36.6 Celsius (FLOAT) with a time stamp
+                uuid = "2A1C";
+                value = new byte[] {2, 0x6E, 0x01, 0x00, (byte) 0xFF, (byte) 0xE1, 0x07, 10, 18, 12, 30, 15};
+                break;
+            case "day_date_time":
+                uuid = "2A0A";
+                value = new byte[] {(byte) 0xE1, 0x07, 10, 18, 12, 30, 15, 3};
+                break;
+            case "device_name":
+                uuid = "2A00";
+                value = "Heart Rate Sensor".getBytes();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown characteristic: " + characteristic);
+        }
+        handle = parser.bind(uuid);
+        response = new MutableGattResponse();
+        batch = new byte[BATCH_SIZE][];
+        Arrays.fill(batch, value);
+        columns = handle.newColumns(BATCH_SIZE);
+        BluetoothGattSpecificationReader reader = new BluetoothGattSpecificationReader();
+        BluetoothGattParser cachedParser = new BluetoothGattParser(reader, new GenericCharacteristicParser(reader));
+        cachedParser.enableParseCache(1024);
+        cachedHandle = cachedParser.bind(uuid);
+    }
+
+    @Benchmark
+    public GattResponse parseByUUID() {
+        return parser.parse(uuid, value);
+    }
+
+    @Benchmark
+    public GattResponse parseHandle() {
+        return handle.parse(value);
+    }
+
+    @Benchmark
+    public GattResponse parseCached() {
+        return cachedHandle.parse(value);
+    }
+
+    @Benchmark
+    public GattResponse parseInto() {
+        return handle.parseInto(value, response);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public int parseBatch(Blackhole blackhole) {
+        return handle.parseBatch(batch, (index, parsed) -> blackhole.consume(parsed));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public int parseBatchIntoColumns() {
+        columns.clear();
+        return handle.parseBatch(batch, columns);
+    }
+
+}
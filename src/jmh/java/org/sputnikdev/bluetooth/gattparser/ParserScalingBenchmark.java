@@ -0,0 +1,136 @@
+package org.sputnikdev.bluetooth.gattparser;
+
+/*-
+ * #%L
+ * org.sputnikdev:bluetooth-gatt-parser
+ * %%
+ * Copyright (C) 2017 Sputnik Dev
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Multi-threaded throughput of a single shared parser instance. Running it via its main method executes
+ * the benchmarks with 1, 2, 4... threads (up to the number of available processors) and prints a scaling table:
+ * <pre>
+ * mvn -Pjmh verify -DskipTests -Djmh.main=org.sputnikdev.bluetooth.gattparser.ParserScalingBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserScalingBenchmark {
+
+    private static final byte[] HEART_RATE_MEASUREMENT = {20, 74, 13, 3};
+    private static final byte[] BATTERY_LEVEL = {51};
+    private static final byte[] TEMPERATURE_MEASUREMENT =
+            {2, 0x6E, 0x01, 0x00, (byte) 0xFF, (byte) 0xE1, 0x07, 10, 18, 12, 30, 15};
+
+    private BluetoothGattParser parser;
+    private CharacteristicHandle heartRateMeasurement;
+    private GattRequest controlPoint;
+
+    @Setup
+    public void setUp() {
+        parser = BluetoothGattParserFactory.getDefault();
+        heartRateMeasurement = parser.bind("2A37");
+        controlPoint = parser.prepare("2A39");
+        controlPoint.setField("Heart Rate Control Point", 1);
+    }
+
+    @Benchmark
+    public GattResponse parseHeartRateMeasurement() {
+        return parser.parse("2A37", HEART_RATE_MEASUREMENT);
+    }
+
+    @Benchmark
+    public GattResponse parseHeartRateMeasurementHandle() {
+        return heartRateMeasurement.parse(HEART_RATE_MEASUREMENT);
+    }
+
+    @Benchmark
+    public GattResponse parseTemperatureMeasurement() {
+        return parser.parse("2A1C", TEMPERATURE_MEASUREMENT);
+    }
+
+    @Benchmark
+    public GattResponse parseBatteryLevel() {
+        return parser.parse("2A19", BATTERY_LEVEL);
+    }
+
+    @Benchmark
+    public byte[] serializeControlPoint() {
+        return parser.serialize(controlPoint);
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        List<Integer> threads = new ArrayList<>();
+        for (int i = 1; i < Runtime.getRuntime().availableProcessors(); i *= 2) {
+            threads.add(i);
+        }
+        threads.add(Runtime.getRuntime().availableProcessors());
+
+        Map<String, Map<Integer, Double>> scores = new LinkedHashMap<>();
+        for (int count : threads) {
+            // JMH command line options (e.g. profilers) are applied to every run
+            Options options = new OptionsBuilder()
+                    .parent(new CommandLineOptions(args))
+                    .include(ParserScalingBenchmark.class.getSimpleName())
+                    .threads(count)
+                    .build();
+            for (RunResult result : new Runner(options).run()) {
+                scores.computeIfAbsent(result.getParams().getBenchmark(), k -> new LinkedHashMap<>())
+                        .put(count, result.getPrimaryResult().getScore());
+            }
+        }
+
+        System.out.println();
+        System.out.printf("%-70s %8s %14s %8s%n", "Benchmark", "Threads", "ops/ms", "Scaling");
+        for (Map.Entry<String, Map<Integer, Double>> entry : scores.entrySet()) {
+            double single = entry.getValue().get(1);
+            for (Map.Entry<Integer, Double> score : entry.getValue().entrySet()) {
+                System.out.printf("%-70s %8d %14.1f %7.2fx%n",
+                        entry.getKey(), score.getKey(), score.getValue(), score.getValue() / single);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,96 @@
+package org.sputnikdev.bluetooth.gattparser;
+
+/*-
+ * #%L
+ * org.sputnikdev:bluetooth-gatt-parser
+ * %%
+ * Copyright (C) 2017 Sputnik Dev
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of control points: Heart Rate Control Point (a single field) and Alert Notification Control Point
+ * (two fields), as a new array, through a bound handle and into a reused buffer limited by the default ATT MTU.
+ * <pre>
+ * mvn -Pjmh verify -DskipTests -Djmh.args="SerializeBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializeBenchmark {
+
+    private static final int MAX_LENGTH = BluetoothGattParser.getMaxWriteLength(BluetoothGattParser.DEFAULT_ATT_MTU);
+
+    private BluetoothGattParser parser;
+    private CharacteristicHandle heartRateHandle;
+    private GattRequest heartRateControlPoint;
+    private GattRequest alertNotificationControlPoint;
+    private byte[] buffer;
+
+    @Setup
+    public void setUp() {
+        parser = BluetoothGattParserFactory.getDefault();
+        heartRateHandle = parser.bind("2A39");
+        heartRateControlPoint = heartRateHandle.prepare();
+        heartRateControlPoint.setField("Heart Rate Control Point", 1);
+        alertNotificationControlPoint = parser.prepare("2A44");
+        alertNotificationControlPoint.setField("Command ID", 2);
+        alertNotificationControlPoint.setField("Category ID", 3);
+        buffer = new byte[MAX_LENGTH];
+    }
+
+    @Benchmark
+    public byte[] serializeHeartRateControlPoint() {
+        return parser.serialize(heartRateControlPoint);
+    }
+
+    @Benchmark
+    public byte[] serializeHeartRateControlPointHandle() {
+        return heartRateHandle.serialize(heartRateControlPoint);
+    }
+
+    @Benchmark
+    public int serializeHeartRateControlPointIntoBuffer() {
+        return heartRateHandle.serialize(heartRateControlPoint, buffer, 0, MAX_LENGTH);
+    }
+
+    @Benchmark
+    public byte[] serializeAlertNotificationControlPoint() {
+        return parser.serialize(alertNotificationControlPoint);
+    }
+
+    @Benchmark
+    public int serializeAlertNotificationControlPointIntoBuffer() {
+        return parser.serialize(alertNotificationControlPoint, buffer, 0, MAX_LENGTH);
+    }
+
+}
@@ -0,0 +1,90 @@
+package org.sputnikdev.bluetooth.gattparser;
+
+/*-
+ * #%L
+ * org.sputnikdev:bluetooth-gatt-parser
+ * %%
+ * Copyright (C) 2017 Sputnik Dev
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sputnikdev.bluetooth.gattparser.spec.BluetoothGattSpecificationReader;
+import org.sputnikdev.bluetooth.gattparser.spec.Characteristic;
+import org.sputnikdev.bluetooth.gattparser.spec.Field;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Specification lookups: warm lookups of characteristics and their fields in a loaded reader, and cold lookups
+ * which include creating a reader (see also {@link StartupBenchmark}).
+ * <pre>
+ * mvn -Pjmh verify -DskipTests -Djmh.args="SpecificationReaderBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpecificationReaderBenchmark {
+
+    private BluetoothGattSpecificationReader reader;
+    private Characteristic temperatureMeasurement;
+
+    @Setup
+    public void setUp() {
+        reader = new BluetoothGattSpecificationReader();
+        temperatureMeasurement = reader.getCharacteristicByUUID("2A1C");
+    }
+
+    @Benchmark
+    public Characteristic warmGetCharacteristicByUUID() {
+        return reader.getCharacteristicByUUID("2A37");
+    }
+
+    @Benchmark
+    public Characteristic warmGetCharacteristicByType() {
+        return reader.getCharacteristicByType("org.bluetooth.characteristic.heart_rate_measurement");
+    }
+
+    @Benchmark
+    public List<Field> warmGetFields() {
+        // the characteristic has a nested reference
+        return reader.getFields(temperatureMeasurement);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 20)
+    public List<Field> coldGetFields() {
+        BluetoothGattSpecificationReader coldReader = new BluetoothGattSpecificationReader();
+        return coldReader.getFields(coldReader.getCharacteristicByUUID("2A1C"));
+    }
+
+}
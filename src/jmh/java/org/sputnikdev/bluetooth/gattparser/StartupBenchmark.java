@@ -0,0 +1,151 @@
+package org.sputnikdev.bluetooth.gattparser;
+
+/*-
+ * #%L
+ * org.sputnikdev:bluetooth-gatt-parser
+ * %%
+ * Copyright (C) 2017 Sputnik Dev
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sputnikdev.bluetooth.gattparser.spec.BluetoothGattSpecificationReader;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Start up cost of the parser: time to create a parser and parse the first packet, optionally loading a synthetic
+ * set of extension characteristics first (copies of the bundled ones with unique UUIDs and types), and time to load
+ * all the bundled characteristics.
+ * <pre>
+ * mvn -Pjmh verify -DskipTests -Djmh.args="StartupBenchmark -p count=0,1000"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class StartupBenchmark {
+
+    private static final String CHARACTERISTICS_REGISTRY = "gatt/characteristic/gatt_spec_registry.json";
+    private static final byte[] HEART_RATE_MEASUREMENT = {20, 74, 13, 3};
+
+    private List<String> bundled;
+
+    @Setup
+    public void setUp() throws IOException {
+        bundled = new ArrayList<>(readRegistry().keySet());
+    }
+
+    @Benchmark
+    public GattResponse timeToFirstParse(Extensions extensions) {
+        BluetoothGattSpecificationReader reader = new BluetoothGattSpecificationReader();
+        BluetoothGattParser parser = new BluetoothGattParser(reader, new GenericCharacteristicParser(reader));
+        if (extensions.count > 0) {
+            parser.loadExtensionsFromFolder(extensions.folder.toString());
+        }
+        return parser.parse("2A37", HEART_RATE_MEASUREMENT);
+    }
+
+    @Benchmark
+    public int loadBundledCharacteristics() {
+        BluetoothGattSpecificationReader reader = new BluetoothGattSpecificationReader();
+        int loaded = 0;
+        for (String uuid : bundled) {
+            if (reader.getCharacteristicByUUID(uuid) != null) {
+                loaded++;
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * A folder of synthetic extension characteristics.
+     */
+    @State(Scope.Benchmark)
+    public static class Extensions {
+
+        @Param({"0", "1000"})
+        private int count;
+
+        private Path folder;
+
+        @Setup
+        public void setUp() throws IOException {
+            folder = Files.createTempDirectory("gatt-extensions");
+            Path characteristics = Files.createDirectory(folder.resolve("characteristic"));
+            List<String> templates = new ArrayList<>();
+            for (String type : readRegistry().values()) {
+                try (InputStream stream = getResource("gatt/characteristic/" + type + ".xml")) {
+                    templates.add(new Scanner(stream, "UTF-8").useDelimiter("\\A").next());
+                }
+            }
+            for (int i = 0; i < count; i++) {
+                String uuid = String.format("%08X-0000-1000-8000-00805F9B34FB", i);
+                String xml = templates.get(i % templates.size())
+                        .replaceFirst("uuid=\"[^\"]*\"", "uuid=\"" + uuid + "\"")
+                        .replaceFirst("type=\"[^\"]*\"", "type=\"com.example.characteristic.synthetic_" + i + "\"");
+                Files.write(characteristics.resolve("synthetic_" + i + ".xml"), xml.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            try (Stream<Path> paths = Files.walk(folder)) {
+                paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+    }
+
+    private static Map<String, String> readRegistry() throws IOException {
+        try (InputStream stream = getResource(CHARACTERISTICS_REGISTRY)) {
+            return new Gson().fromJson(new InputStreamReader(stream, StandardCharsets.UTF_8),
+                    new TypeToken<Map<String, String>>() { }.getType());
+        }
+    }
+
+    private static InputStream getResource(String name) {
+        return StartupBenchmark.class.getClassLoader().getResourceAsStream(name);
+    }
+
+}
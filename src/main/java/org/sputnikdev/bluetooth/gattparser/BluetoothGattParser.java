@@ -20,19 +20,32 @@ package org.sputnikdev.bluetooth.gattparser;
  * #L%
  */
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sputnikdev.bluetooth.gattparser.spec.BluetoothGattSpecificationReader;
 import org.sputnikdev.bluetooth.gattparser.spec.Characteristic;
 import org.sputnikdev.bluetooth.gattparser.spec.Field;
+import org.sputnikdev.bluetooth.gattparser.spec.PreloadReport;
 import org.sputnikdev.bluetooth.gattparser.spec.Service;
 
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * This class encapsulates functionality for reading and writing Bluetooth GATT characteristics
@@ -66,11 +79,41 @@ import java.util.Map;
  */
 public class BluetoothGattParser {
 
+    /**
+     * The default (and the minimum) ATT MTU of Bluetooth LE connections.
+     */
+    public static final int DEFAULT_ATT_MTU = 23;
+
+    /**
+     * Minimal interval between logged parse failures of a characteristic in nanoseconds,
+     * see {@link #tryParse(CharacteristicHandle, byte[], int, int, ParseResult)}.
+     */
+    public static final long FAILURE_LOG_INTERVAL = TimeUnit.SECONDS.toNanos(10);
+
+    private static final int MAX_ATTRIBUTE_LENGTH = 512;
+    // opcode and attribute handle
+    private static final int WRITE_HEADER_LENGTH = 3;
+    // opcode, attribute handle and value offset
+    private static final int PREPARE_WRITE_HEADER_LENGTH = 5;
+    private static final int MAX_CACHED_HANDLES = 1024;
+    private static final ThreadLocal<byte[]> SCRATCH_BUFFER =
+            ThreadLocal.withInitial(() -> new byte[MAX_ATTRIBUTE_LENGTH]);
+
     private final Logger logger = LoggerFactory.getLogger(GenericCharacteristicParser.class);
 
-    private BluetoothGattSpecificationReader specificationReader;
-    private final Map<String, CharacteristicParser> customParsers = new HashMap<>();
-    private CharacteristicParser defaultParser;
+    private final BluetoothGattSpecificationReader specificationReader;
+    private final Map<String, CharacteristicParser> customParsers = new ConcurrentHashMap<>();
+    private final CharacteristicParser defaultParser;
+    // resolved characteristics by UUIDs (strings or java.util.UUID) as they are provided by users
+    private final Cache<Object, CharacteristicHandle> handles =
+            CacheBuilder.newBuilder().maximumSize(MAX_CACHED_HANDLES).build();
+    // incremented when registered parsers or loaded specifications change so that resolved handles become stale
+    private final AtomicInteger generation = new AtomicInteger();
+    // rate limiters of logged parse failures by short characteristic UUIDs, so that they are shared by all handles
+    // of a characteristic and survive handle refreshes and evictions
+    private final Map<String, FailureLog> failureLogs = new ConcurrentHashMap<>();
+    // optional memoization of parsed responses, see enableParseCache
+    private volatile ParseCache parseCache;
 
     BluetoothGattParser(BluetoothGattSpecificationReader specificationReader, CharacteristicParser defaultParser) {
         this.specificationReader = specificationReader;
@@ -83,7 +126,7 @@ public class BluetoothGattParser {
      * @return true if the parser has loaded definitions for that characteristic, false otherwise
      */
     public boolean isKnownCharacteristic(String characteristicUUID) {
-        return specificationReader.getCharacteristicByUUID(getShortUUID(characteristicUUID)) != null;
+        return lookup(characteristicUUID) != null;
     }
 
     /**
@@ -95,6 +138,28 @@ public class BluetoothGattParser {
         return specificationReader.getService(getShortUUID(serviceUUID)) != null;
     }
 
+    /**
+     * Resolves a characteristic by its UUID so that it can be parsed without resolving it again,
+     * see {@link #parse(CharacteristicHandle, byte[])}. Handles stay valid when custom parsers are registered
+     * or extensions are loaded, they are transparently resolved again in such cases.
+     *
+     * @param characteristicUUID UUID of a GATT characteristic
+     * @return resolved characteristic or null if the characteristic is unknown
+     */
+    public CharacteristicHandle bind(String characteristicUUID) {
+        return resolve(characteristicUUID);
+    }
+
+    /**
+     * Resolves a characteristic by its UUID, see {@link #bind(String)}.
+     *
+     * @param characteristicUUID UUID of a GATT characteristic
+     * @return resolved characteristic or null if the characteristic is unknown
+     */
+    public CharacteristicHandle bind(UUID characteristicUUID) {
+        return resolve(characteristicUUID);
+    }
+
     /**
      * Performs parsing of a GATT characteristic value (byte array) into a user-friendly format
      * (a map of parsed characteristic fields represented by {@link GattResponse}).
@@ -105,7 +170,297 @@ public class BluetoothGattParser {
      * @throws CharacteristicFormatException if a characteristic cannot be parsed
      */
     public GattResponse parse(String characteristicUUID, byte[] raw) throws CharacteristicFormatException {
-        return new GattResponse(parseFields(characteristicUUID, raw));
+        return parse(getReadHandle(characteristicUUID, resolve(characteristicUUID)), raw);
+    }
+
+    /**
+     * Performs parsing of a GATT characteristic value (byte array) into a user-friendly format
+     * (a map of parsed characteristic fields represented by {@link GattResponse}).
+     *
+     * @param characteristicUUID UUID of a GATT characteristic
+     * @param raw byte array of data received from bluetooth device
+     * @return a map of parsed characteristic fields represented by {@link GattResponse}
+     * @throws CharacteristicFormatException if a characteristic cannot be parsed
+     */
+    public GattResponse parse(UUID characteristicUUID, byte[] raw) throws CharacteristicFormatException {
+        return parse(getReadHandle(characteristicUUID, resolve(characteristicUUID)), raw);
+    }
+
+    /**
+     * Performs parsing of a GATT characteristic value stored in a region of a byte array.
+     * The data is not copied (unless a custom parser that does not support regions is registered for
+     * the characteristic).
+     *
+     * @param characteristicUUID UUID of a GATT characteristic
+     * @param raw byte array containing data received from bluetooth device
+     * @param offset index of the first byte of the characteristic value
+     * @param length length of the characteristic value
+     * @return a map of parsed characteristic fields represented by {@link GattResponse}
+     * @throws CharacteristicFormatException if a characteristic cannot be parsed
+     * @throws IndexOutOfBoundsException if the region is out of the array bounds
+     */
+    public GattResponse parse(String characteristicUUID, byte[] raw, int offset, int length)
+            throws CharacteristicFormatException {
+        return parse(getReadHandle(characteristicUUID, resolve(characteristicUUID)), raw, offset, length);
+    }
+
+    /**
+     * Performs parsing of a GATT characteristic value stored in a byte buffer. The value is read from the buffer
+     * position till its limit, the position of the buffer is not changed. Buffers backed by an accessible array are
+     * read in place; content of direct and read-only buffers is copied into a buffer reused by the calling thread.
+     *
+     * @param characteristicUUID UUID of a GATT characteristic
+     * @param raw byte buffer containing data received from bluetooth device
+     * @return a map of parsed characteristic fields represented by {@link GattResponse}
+     * @throws CharacteristicFormatException if a characteristic cannot be parsed
+     */
+    public GattResponse parse(String characteristicUUID, ByteBuffer raw) throws CharacteristicFormatException {
+        return parse(getReadHandle(characteristicUUID, resolve(characteristicUUID)), raw);
+    }
+
+    /**
+     * Performs parsing of a value of a characteristic resolved by {@link #bind(String)}.
+     *
+     * @param handle resolved characteristic
+     * @param raw byte array of data received from bluetooth device
+     * @return a map of parsed characteristic fields represented by {@link GattResponse}
+     * @throws CharacteristicFormatException if a characteristic cannot be parsed
+     */
+    public GattResponse parse(CharacteristicHandle handle, byte[] raw) throws CharacteristicFormatException {
+        return parseResponse(handle, raw, 0, raw.length, null);
+    }
+
+    /**
+     * Performs parsing of a value of a characteristic resolved by {@link #bind(String)} stored in a region
+     * of a byte array, see {@link #parse(String, byte[], int, int)}.
+     *
+     * @param handle resolved characteristic
+     * @param raw byte array containing data received from bluetooth device
+     * @param offset index of the first byte of the characteristic value
+     * @param length length of the characteristic value
+     * @return a map of parsed characteristic fields represented by {@link GattResponse}
+     * @throws CharacteristicFormatException if a characteristic cannot be parsed
+     * @throws IndexOutOfBoundsException if the region is out of the array bounds
+     */
+    public GattResponse parse(CharacteristicHandle handle, byte[] raw, int offset, int length)
+            throws CharacteristicFormatException {
+        return parseResponse(handle, raw, offset, length, null);
+    }
+
+    /**
+     * Performs parsing of a value of a characteristic resolved by {@link #bind(String)} stored in a byte buffer,
+     * see {@link #parse(String, ByteBuffer)}.
+     *
+     * @param handle resolved characteristic
+     * @param raw byte buffer containing data received from bluetooth device
+     * @return a map of parsed characteristic fields represented by {@link GattResponse}
+     * @throws CharacteristicFormatException if a characteristic cannot be parsed
+     */
+    public GattResponse parse(CharacteristicHandle handle, ByteBuffer raw) throws CharacteristicFormatException {
+        if (raw.hasArray()) {
+            return parse(handle, raw.array(), raw.arrayOffset() + raw.position(), raw.remaining());
+        }
+        byte[] buffer = SCRATCH_BUFFER.get();
+        if (buffer.length < raw.remaining()) {
+            buffer = new byte[raw.remaining()];
+            SCRATCH_BUFFER.set(buffer);
+        }
+        int length = raw.remaining();
+        raw.duplicate().get(buffer, 0, length);
+        return parse(handle, buffer, 0, length);
+    }
+
+    /**
+     * Performs parsing of a value of a characteristic resolved by {@link #bind(String)} into a response owned
+     * by the caller. The response is cleared and then filled with parsed fields, so that it can be reused for
+     * parsing subsequent values without producing garbage, see {@link MutableGattResponse}.
+     *
+     * @param handle resolved characteristic
+     * @param raw byte array of data received from bluetooth device
+     * @param target a response to be filled with parsed fields
+     * @return the target response
+     * @throws CharacteristicFormatException if a characteristic cannot be parsed
+     */
+    public MutableGattResponse parseInto(CharacteristicHandle handle, byte[] raw, MutableGattResponse target)
+            throws CharacteristicFormatException {
+        parseResponse(handle, raw, 0, raw.length, target);
+        return target;
+    }
+
+    /**
+     * Performs parsing of a value of a characteristic resolved by {@link #bind(String)} stored in a region
+     * of a byte array into a response owned by the caller,
+     * see {@link #parseInto(CharacteristicHandle, byte[], MutableGattResponse)}.
+     *
+     * @param handle resolved characteristic
+     * @param raw byte array containing data received from bluetooth device
+     * @param offset index of the first byte of the characteristic value
+     * @param length length of the characteristic value
+     * @param target a response to be filled with parsed fields
+     * @return the target response
+     * @throws CharacteristicFormatException if a characteristic cannot be parsed
+     * @throws IndexOutOfBoundsException if the region is out of the array bounds
+     */
+    public MutableGattResponse parseInto(CharacteristicHandle handle, byte[] raw, int offset, int length,
+                                         MutableGattResponse target) throws CharacteristicFormatException {
+        parseResponse(handle, raw, offset, length, target);
+        return target;
+    }
+
+    /**
+     * Performs parsing of a characteristic value without throwing exceptions if the value is malformed,
+     * see {@link #tryParse(CharacteristicHandle, byte[], int, int, ParseResult)}.
+     *
+     * @param characteristicUUID UUID of a GATT characteristic
+     * @param raw byte array of data received from bluetooth device
+     * @return parse result
+     */
+    public ParseResult tryParse(String characteristicUUID, byte[] raw) {
+        CharacteristicHandle handle = resolve(characteristicUUID);
+        if (handle == null) {
+            ParseResult result = new ParseResult();
+            result.reset(getShortUUID(characteristicUUID), 0);
+            result.fail(ParseResult.INVALID_CHARACTERISTIC, null, -1, -1);
+            return result;
+        }
+        return tryParse(handle, raw, 0, raw.length, new ParseResult());
+    }
+
+    /**
+     * Performs parsing of a value of a characteristic resolved by {@link #bind(String)} into a result owned
+     * by the caller, see {@link #tryParse(CharacteristicHandle, byte[], int, int, ParseResult)}.
+     *
+     * @param handle resolved characteristic
+     * @param raw byte array of data received from bluetooth device
+     * @param result a result to be filled with parsed fields or an error
+     * @return the result
+     */
+    public ParseResult tryParse(CharacteristicHandle handle, byte[] raw, ParseResult result) {
+        return tryParse(handle, raw, 0, raw.length, result);
+    }
+
+    /**
+     * Performs parsing of a value of a characteristic resolved by {@link #bind(String)} stored in a region
+     * of a byte array into a result owned by the caller. Unlike {@link #parse(CharacteristicHandle, byte[])},
+     * malformed values (e.g. truncated payloads) do not cause exceptions, instead an error code, the failing field
+     * and its offset are recorded into the result. Failures are logged at most once per
+     * {@link #FAILURE_LOG_INTERVAL} per characteristic.
+     *
+     * @param handle resolved characteristic
+     * @param raw byte array containing data received from bluetooth device
+     * @param offset index of the first byte of the characteristic value
+     * @param length length of the characteristic value
+     * @param result a result to be filled with parsed fields or an error
+     * @return the result
+     * @throws IndexOutOfBoundsException if the region is out of the array bounds
+     */
+    public ParseResult tryParse(CharacteristicHandle handle, byte[] raw, int offset, int length,
+                                ParseResult result) {
+        if (offset < 0 || length < 0 || offset + length > raw.length) {
+            throw new IndexOutOfBoundsException("Offset: " + offset + ", length: " + length
+                    + ", array length: " + raw.length);
+        }
+        result.reset(handle.getCharacteristicUUID(), offset);
+        CharacteristicHandle current = refresh(handle);
+        if (current == null || !current.isValidForRead()) {
+            result.getResponse().clear();
+            result.fail(ParseResult.INVALID_CHARACTERISTIC, null, -1, -1);
+        } else {
+            tryParseValid(current, raw, offset, length, result);
+        }
+        if (!result.isOk()) {
+            int suppressed = countFailure(handle.getCharacteristicUUID(), System.nanoTime());
+            if (suppressed >= 0) {
+                logger.warn("{}. Failures suppressed since the last report: {}.", result, suppressed);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Performs parsing of a batch of values of a characteristic resolved by {@link #bind(String)}. The characteristic
+     * is resolved and validated once per batch and all values are parsed into the same reusable response which
+     * is passed to the consumer, so that parsing a batch is considerably cheaper than parsing the values
+     * one by one. Values that cannot be parsed are reported to {@link GattResponseConsumer#onError}.
+     *
+     * @param handle resolved characteristic
+     * @param values byte arrays of data received from bluetooth device
+     * @param consumer a consumer of parsed values
+     * @return number of successfully parsed values
+     * @throws CharacteristicFormatException if the characteristic is not valid for read
+     */
+    public int parseBatch(CharacteristicHandle handle, byte[][] values, GattResponseConsumer consumer)
+            throws CharacteristicFormatException {
+        handle = getValidReadHandle(handle);
+        MutableGattResponse response = new MutableGattResponse();
+        int parsed = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (parseBatchValue(handle, values[i], 0, values[i].length, response, i, consumer)) {
+                parsed++;
+            }
+        }
+        return parsed;
+    }
+
+    /**
+     * Performs parsing of a batch of values of a characteristic resolved by {@link #bind(String)} packed into
+     * a single byte array, see {@link #parseBatch(CharacteristicHandle, byte[][], GattResponseConsumer)}.
+     *
+     * @param handle resolved characteristic
+     * @param raw byte array containing data received from bluetooth device
+     * @param offsets indexes of the first bytes of the values
+     * @param lengths lengths of the values
+     * @param count number of values
+     * @param consumer a consumer of parsed values
+     * @return number of successfully parsed values
+     * @throws CharacteristicFormatException if the characteristic is not valid for read
+     * @throws IndexOutOfBoundsException if a value is out of the array bounds
+     */
+    public int parseBatch(CharacteristicHandle handle, byte[] raw, int[] offsets, int[] lengths, int count,
+                          GattResponseConsumer consumer) throws CharacteristicFormatException {
+        if (count > offsets.length || count > lengths.length) {
+            throw new IndexOutOfBoundsException("Not enough offsets or lengths for " + count + " values");
+        }
+        handle = getValidReadHandle(handle);
+        MutableGattResponse response = new MutableGattResponse();
+        int parsed = 0;
+        for (int i = 0; i < count; i++) {
+            if (parseBatchValue(handle, raw, offsets[i], lengths[i], response, i, consumer)) {
+                parsed++;
+            }
+        }
+        return parsed;
+    }
+
+    /**
+     * Enables memoization of parsed responses: values that have been parsed recently are not parsed again,
+     * instead a response is shared between all callers parsing the same value of the same characteristic.
+     * This is an opt-in feature for devices sending the same values repeatedly. Once it is enabled,
+     * responses returned by the parse methods are immutable, i.e. their field holders cannot be modified.
+     * Responses of methods filling caller owned responses (e.g. {@link #parseInto(CharacteristicHandle, byte[],
+     * MutableGattResponse)}) are not cached. Enabling the cache again replaces the existing one.
+     *
+     * @param maximumSize maximum number of cached responses, the least recently used ones are evicted
+     * @throws IllegalArgumentException if the maximum size is negative
+     */
+    public void enableParseCache(long maximumSize) {
+        parseCache = new ParseCache(maximumSize);
+    }
+
+    /**
+     * Disables memoization of parsed responses, see {@link #enableParseCache(long)}.
+     */
+    public void disableParseCache() {
+        parseCache = null;
+    }
+
+    /**
+     * Returns statistics of the parse cache (hits, misses and evictions), see {@link #enableParseCache(long)}.
+     * @return parse cache statistics or null if the cache is not enabled
+     */
+    public CacheStats getParseCacheStats() {
+        ParseCache cache = parseCache;
+        return cache != null ? cache.getStats() : null;
     }
 
     /**
@@ -118,6 +473,10 @@ public class BluetoothGattParser {
      * @return list of fields represented by {@link GattRequest} for a write operation
      */
     public GattRequest prepare(String characteristicUUID) {
+        CharacteristicHandle handle = resolve(characteristicUUID);
+        if (handle != null) {
+            return new GattRequest(handle.getCharacteristicUUID(), handle.getRequirements());
+        }
         characteristicUUID = getShortUUID(characteristicUUID);
         return new GattRequest(characteristicUUID,
                 specificationReader.getFields(specificationReader.getCharacteristicByUUID(characteristicUUID)));
@@ -135,8 +494,10 @@ public class BluetoothGattParser {
      * @return list of fields represented by {@link GattRequest} for a write operation
      */
     public GattRequest prepare(String characteristicUUID, byte[] initial) {
-        characteristicUUID = getShortUUID(characteristicUUID);
-        return new GattRequest(characteristicUUID, parseFields(characteristicUUID, initial));
+        CharacteristicHandle handle = getReadHandle(characteristicUUID, resolve(characteristicUUID));
+        // the parse cache is bypassed, field holders of a request are modified by users
+        return new GattRequest(handle.getCharacteristicUUID(), handle.getRequirements(),
+                parseValidResponse(getValidReadHandle(handle), initial, 0, initial.length, null).getMap());
     }
 
     /**
@@ -166,20 +527,92 @@ public class BluetoothGattParser {
      * @throws IllegalArgumentException if provided GATT request is not valid and strict parameter is set to true
      */
     public byte[] serialize(GattRequest gattRequest, boolean strict) {
-        if (strict && !validate(gattRequest)) {
-            throw new IllegalArgumentException("GATT request is not valid");
+        return getWriteParser(gattRequest, strict).serialize(gattRequest.getAllFieldHolders());
+    }
+
+    /**
+     * Performs serialization of a GATT request (see {@link BluetoothGattParser#serialize(GattRequest)}) into a region
+     * of an array owned by the caller. Unlike {@link BluetoothGattParser#serialize(GattRequest)}, the value
+     * is not truncated to the default ATT MTU, instead the overflow is reported if the value does not fit
+     * into the maximum length.
+     *
+     * @param gattRequest a GATT request object
+     * @param buffer an array to write the value into
+     * @param offset index of the first byte of the value in the array
+     * @param maxLength maximum length of the value, e.g. {@link #getMaxWriteLength(int)} for a negotiated ATT MTU
+     * @return length of the value written into the array
+     * @throws IllegalArgumentException if provided GATT request is not valid
+     * @throws CharacteristicOverflowException if the value is longer than the maximum length
+     * @throws IndexOutOfBoundsException if the region is out of the array bounds
+     */
+    public int serialize(GattRequest gattRequest, byte[] buffer, int offset, int maxLength) {
+        return getWriteParser(gattRequest, true).serialize(gattRequest.getAllFieldHolders(), buffer, offset,
+                maxLength);
+    }
+
+    /**
+     * Performs serialization of a GATT request (see {@link BluetoothGattParser#serialize(GattRequest)}) which value
+     * must not be longer than the maximum length.
+     *
+     * @param gattRequest a GATT request object
+     * @param maxLength maximum length of the value, e.g. {@link #getMaxWriteLength(int)} for a negotiated ATT MTU
+     * @return serialized fields as an array of bytes ready to send to a bluetooth device
+     * @throws IllegalArgumentException if provided GATT request is not valid
+     * @throws CharacteristicOverflowException if the value is longer than the maximum length
+     */
+    public byte[] serialize(GattRequest gattRequest, int maxLength) {
+        byte[] buffer = new byte[Math.max(0, Math.min(maxLength, MAX_ATTRIBUTE_LENGTH))];
+        return Arrays.copyOf(buffer, serialize(gattRequest, buffer, 0, buffer.length));
+    }
+
+    byte[] serialize(CharacteristicHandle handle, GattRequest gattRequest, boolean strict) {
+        return getWriteParser(handle, gattRequest, strict).serialize(gattRequest.getAllFieldHolders());
+    }
+
+    int serialize(CharacteristicHandle handle, GattRequest gattRequest, byte[] buffer, int offset, int maxLength) {
+        return getWriteParser(handle, gattRequest, true).serialize(gattRequest.getAllFieldHolders(), buffer, offset,
+                maxLength);
+    }
+
+    /**
+     * Performs serialization of a GATT request (see {@link BluetoothGattParser#serialize(GattRequest)}) for
+     * an ATT long write: the value is split into chunks to be sent by Prepare Write requests, a chunk at index i
+     * is to be sent with value offset i * (mtu - 5). A value that fits into a single Write request is returned
+     * as a single chunk.
+     *
+     * @param gattRequest a GATT request object
+     * @param mtu negotiated ATT MTU
+     * @return chunks of the value
+     * @throws IllegalArgumentException if provided GATT request is not valid or the MTU is less than
+     * {@link #DEFAULT_ATT_MTU}
+     * @throws CharacteristicOverflowException if the value is longer than the maximum attribute length (512 bytes)
+     */
+    public List<byte[]> serializeLongWrite(GattRequest gattRequest, int mtu) {
+        if (mtu < DEFAULT_ATT_MTU) {
+            throw new IllegalArgumentException("Invalid ATT MTU: " + mtu);
         }
-        synchronized (customParsers) {
-            String characteristicUUID = getShortUUID(gattRequest.getCharacteristicUUID());
-            if (strict && !isValidForWrite(characteristicUUID)) {
-                throw new CharacteristicFormatException(
-                        "Characteristic is not valid for write: " + characteristicUUID);
-            }
-            if (customParsers.containsKey(characteristicUUID)) {
-                return customParsers.get(characteristicUUID).serialize(gattRequest.getAllFieldHolders());
-            }
-            return defaultParser.serialize(gattRequest.getAllFieldHolders());
+        byte[] buffer = new byte[MAX_ATTRIBUTE_LENGTH];
+        int length = serialize(gattRequest, buffer, 0, buffer.length);
+        if (length <= getMaxWriteLength(mtu)) {
+            return Collections.singletonList(Arrays.copyOf(buffer, length));
         }
+        int chunkLength = mtu - PREPARE_WRITE_HEADER_LENGTH;
+        List<byte[]> chunks = new ArrayList<>((length + chunkLength - 1) / chunkLength);
+        for (int offset = 0; offset < length; offset += chunkLength) {
+            chunks.add(Arrays.copyOfRange(buffer, offset, Math.min(length, offset + chunkLength)));
+        }
+        return chunks;
+    }
+
+    /**
+     * Returns the maximum length of a characteristic value which can be sent by a single Write request,
+     * that is the ATT MTU minus the ATT header.
+     *
+     * @param mtu negotiated ATT MTU
+     * @return the maximum length of a characteristic value
+     */
+    public static int getMaxWriteLength(int mtu) {
+        return mtu - WRITE_HEADER_LENGTH;
     }
 
     /**
@@ -197,7 +630,7 @@ public class BluetoothGattParser {
      * @return a GATT characteristic specification by its UUID
      */
     public Characteristic getCharacteristic(String characteristicUUID) {
-        return specificationReader.getCharacteristicByUUID(getShortUUID(characteristicUUID));
+        return lookup(characteristicUUID);
     }
 
     /**
@@ -218,9 +651,9 @@ public class BluetoothGattParser {
      * @param parser a new instance of a characteristic parser
      */
     public void registerParser(String characteristicUUID, CharacteristicParser parser) {
-        synchronized (customParsers) {
-            customParsers.put(getShortUUID(characteristicUUID), parser);
-        }
+        customParsers.put(getShortUUID(characteristicUUID), parser);
+        generation.incrementAndGet();
+        invalidateParseCache();
     }
 
     /**
@@ -233,7 +666,7 @@ public class BluetoothGattParser {
      * @return true if a given characteristic is valid for read operation
      */
     public boolean isValidForRead(String characteristicUUID) {
-        Characteristic characteristic = specificationReader.getCharacteristicByUUID(getShortUUID(characteristicUUID));
+        Characteristic characteristic = lookup(characteristicUUID);
         return characteristic != null && characteristic.isValidForRead();
     }
 
@@ -247,7 +680,7 @@ public class BluetoothGattParser {
      * @return true if a given characteristic is valid for write operation
      */
     public boolean isValidForWrite(String characteristicUUID) {
-        Characteristic characteristic = specificationReader.getCharacteristicByUUID(getShortUUID(characteristicUUID));
+        Characteristic characteristic = lookup(characteristicUUID);
         return characteristic != null && characteristic.isValidForWrite();
     }
 
@@ -262,25 +695,19 @@ public class BluetoothGattParser {
         FieldHolder controlPointField = gattRequest.getOpCodesFieldHolder();
         String requirement = controlPointField != null ? controlPointField.getEnumerationRequires() : null;
 
+        long required = FieldRequirements.MANDATORY;
         if (requirement != null) {
-            List<FieldHolder> required = gattRequest.getRequiredHolders(requirement);
-            if (required.isEmpty()) {
+            long mask = gattRequest.getRequirementMask(requirement);
+            if (mask == 0) {
                 logger.info("GATT request is invalid; could not find any field by requirement: {}", requirement);
                 return false;
             }
-            for (FieldHolder holder : required) {
-                if (!holder.isValueSet()) {
-                    logger.info("GATT request is invalid; field is not set: {}", holder.getField().getName());
-                    return false;
-                }
-            }
+            required |= mask;
         }
 
-        for (FieldHolder holder : gattRequest.getRequiredHolders("Mandatory")) {
-            if (!holder.isValueSet()) {
-                logger.info("GATT request is invalid; field is not set: {}", holder.getField().getName());
-                return false;
-            }
+        for (FieldHolder holder : gattRequest.getUnsetHolders(required)) {
+            logger.info("GATT request is invalid; field is not set: {}", holder.getField().getName());
+            return false;
         }
         return true;
     }
@@ -296,6 +723,7 @@ public class BluetoothGattParser {
      */
     public void loadExtensionsFromFolder(String path) {
         specificationReader.loadExtensionsFromFolder(path);
+        clearLayouts();
     }
 
     /**
@@ -311,6 +739,32 @@ public class BluetoothGattParser {
     public void loadExtensionsFromCatalogResources(URL servicesCatalogResource, URL characteristicsCatalogResource)
             throws IllegalStateException {
         specificationReader.loadExtensionsFromCatalogResources(servicesCatalogResource, characteristicsCatalogResource);
+        clearLayouts();
+    }
+
+    /**
+     * Eagerly loads all registered services and characteristics in parallel and prepares them for parsing,
+     * see {@link BluetoothGattSpecificationReader#preload(ForkJoinPool)}. This is an opt-in feature that helps
+     * to avoid latency spikes when characteristics are parsed for the first time.
+     * @param pool a pool to load specifications
+     * @return preload report
+     */
+    public PreloadReport preload(ForkJoinPool pool) {
+        PreloadReport report = specificationReader.preload(pool);
+        if (defaultParser instanceof GenericCharacteristicParser) {
+            GenericCharacteristicParser parser = (GenericCharacteristicParser) defaultParser;
+            for (Characteristic characteristic : specificationReader.getCharacteristics()) {
+                if (!characteristic.isValidForRead()) {
+                    continue;
+                }
+                try {
+                    parser.getLayout(characteristic);
+                } catch (RuntimeException e) {
+                    logger.warn("Could not prepare characteristic for parsing: " + characteristic.getUuid(), e);
+                }
+            }
+        }
+        return report;
     }
 
     /**
@@ -353,18 +807,247 @@ public class BluetoothGattParser {
         return Long.toHexString(Long.valueOf(uuid.substring(0, 8), 16)).toUpperCase();
     }
 
-    private LinkedHashMap<String, FieldHolder> parseFields(String characteristicUUID, byte[] raw) {
-        characteristicUUID = getShortUUID(characteristicUUID);
-        synchronized (customParsers) {
-            if (!isValidForRead(characteristicUUID)) {
-                throw new CharacteristicFormatException("Characteristic is not valid for read: " + characteristicUUID);
+    private String getShortUUID(UUID uuid) {
+        return Long.toHexString(uuid.getMostSignificantBits() >>> 32).toUpperCase();
+    }
+
+    private Characteristic lookup(String characteristicUUID) {
+        // read-only queries do not resolve handles, so that probing characteristics does not compile layouts
+        // or evict handles of bound characteristics from the cache
+        CharacteristicHandle handle = handles.getIfPresent(characteristicUUID);
+        if (handle != null && handle.getGeneration() == generation.get()) {
+            return handle.getCharacteristic();
+        }
+        return specificationReader.getCharacteristicByUUID(getShortUUID(characteristicUUID));
+    }
+
+    private CharacteristicHandle resolve(String characteristicUUID) {
+        CharacteristicHandle handle = handles.getIfPresent(characteristicUUID);
+        if (handle != null && handle.getGeneration() == generation.get()) {
+            return handle;
+        }
+        return resolve(characteristicUUID, getShortUUID(characteristicUUID));
+    }
+
+    private CharacteristicHandle resolve(UUID characteristicUUID) {
+        CharacteristicHandle handle = handles.getIfPresent(characteristicUUID);
+        if (handle != null && handle.getGeneration() == generation.get()) {
+            return handle;
+        }
+        return resolve(characteristicUUID, getShortUUID(characteristicUUID));
+    }
+
+    private CharacteristicHandle resolve(Object key, String shortUUID) {
+        // the generation is taken first, so that a handle resolved concurrently with changes is considered stale
+        int current = generation.get();
+        Characteristic characteristic = specificationReader.getCharacteristicByUUID(shortUUID);
+        if (characteristic == null) {
+            return null;
+        }
+        CharacteristicParser parser = getParser(shortUUID);
+        CharacteristicLayout layout = null;
+        if (parser instanceof GenericCharacteristicParser && characteristic.isValidForRead()) {
+            try {
+                layout = ((GenericCharacteristicParser) parser).getLayout(characteristic);
+            } catch (RuntimeException ex) {
+                // the characteristic is parsed without a layout so that the error is reported on parse
+                logger.warn("Could not compile characteristic layout: {}", shortUUID, ex);
+            }
+        }
+        CharacteristicHandle handle =
+                new CharacteristicHandle(this, shortUUID, characteristic, parser, layout, current);
+        handles.put(key, handle);
+        return handle;
+    }
+
+    private CharacteristicHandle getReadHandle(Object characteristicUUID, CharacteristicHandle handle) {
+        if (handle == null) {
+            String shortUUID = characteristicUUID instanceof UUID
+                    ? getShortUUID((UUID) characteristicUUID) : getShortUUID((String) characteristicUUID);
+            throw new CharacteristicFormatException("Characteristic is not valid for read: " + shortUUID);
+        }
+        return handle;
+    }
+
+    private CharacteristicParser getWriteParser(GattRequest gattRequest, boolean strict) {
+        CharacteristicHandle handle = resolve(gattRequest.getCharacteristicUUID());
+        if (handle != null) {
+            return getWriteParser(handle, gattRequest, strict);
+        }
+        String characteristicUUID = getShortUUID(gattRequest.getCharacteristicUUID());
+        if (strict && !validate(gattRequest)) {
+            throw new IllegalArgumentException("GATT request is not valid");
+        }
+        if (strict) {
+            throw new CharacteristicFormatException("Characteristic is not valid for write: " + characteristicUUID);
+        }
+        return getParser(characteristicUUID);
+    }
+
+    private CharacteristicParser getWriteParser(CharacteristicHandle handle, GattRequest gattRequest,
+                                                boolean strict) {
+        if (!handle.getCharacteristicUUID().equals(getShortUUID(gattRequest.getCharacteristicUUID()))) {
+            throw new IllegalArgumentException("GATT request does not belong to characteristic: "
+                    + handle.getCharacteristicUUID());
+        }
+        if (strict && !validate(gattRequest)) {
+            throw new IllegalArgumentException("GATT request is not valid");
+        }
+        handle = refresh(handle);
+        if (handle == null) {
+            throw new CharacteristicFormatException("Characteristic is not known: "
+                    + getShortUUID(gattRequest.getCharacteristicUUID()));
+        }
+        if (strict && !handle.isValidForWrite()) {
+            throw new CharacteristicFormatException(
+                    "Characteristic is not valid for write: " + handle.getCharacteristicUUID());
+        }
+        return handle.getParser();
+    }
+
+    private CharacteristicHandle refresh(CharacteristicHandle handle) {
+        if (handle.getGeneration() == generation.get()) {
+            return handle;
+        }
+        return resolve(handle.getCharacteristicUUID());
+    }
+
+    private CharacteristicHandle getValidReadHandle(CharacteristicHandle handle) {
+        handle = getReadHandle(handle.getCharacteristicUUID(), refresh(handle));
+        if (!handle.isValidForRead()) {
+            throw new CharacteristicFormatException("Characteristic is not valid for read: "
+                    + handle.getCharacteristicUUID());
+        }
+        return handle;
+    }
+
+    private boolean parseBatchValue(CharacteristicHandle handle, byte[] raw, int offset, int length,
+                                    MutableGattResponse response, int index, GattResponseConsumer consumer) {
+        GattResponse parsed;
+        try {
+            parsed = parseValidResponse(handle, raw, offset, length, response);
+        } catch (CharacteristicFormatException ex) {
+            consumer.onError(index, ex);
+            return false;
+        }
+        consumer.accept(index, parsed);
+        return true;
+    }
+
+    private void tryParseValid(CharacteristicHandle handle, byte[] raw, int offset, int length, ParseResult result) {
+        CharacteristicLayout layout = handle.getLayout();
+        if (layout != null) {
+            ((GenericCharacteristicParser) handle.getParser()).tryParse(layout, raw, offset, length, result);
+            return;
+        }
+        try {
+            parseValidResponse(handle, raw, offset, length, result.getResponse());
+        } catch (RuntimeException ex) {
+            // custom parsers and characteristics which cannot be compiled into layouts
+            result.getResponse().clear();
+            result.fail(ParseResult.INVALID_VALUE, null, -1, -1);
+        }
+    }
+
+    private GattResponse parseResponse(CharacteristicHandle handle, byte[] raw, int offset, int length,
+                                       MutableGattResponse target) {
+        CharacteristicHandle valid = getValidReadHandle(handle);
+        ParseCache cache = parseCache;
+        if (cache == null || target != null) {
+            return parseValidResponse(valid, raw, offset, length, target);
+        }
+        ParseCache.Key key = ParseCache.key(valid, raw, offset, length);
+        GattResponse cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        return cache.put(key, parseValidResponse(valid, raw, offset, length, null));
+    }
+
+    private GattResponse parseValidResponse(CharacteristicHandle handle, byte[] raw, int offset, int length,
+                                            MutableGattResponse target) {
+        CharacteristicParser parser = handle.getParser();
+        CharacteristicLayout layout = handle.getLayout();
+        if (layout != null) {
+            // the characteristic has been validated when the handle was resolved
+            GenericCharacteristicParser genericParser = (GenericCharacteristicParser) parser;
+            if (!layout.isIndexed()) {
+                return getResponse(target, genericParser.parse(layout, raw, offset, length));
+            } else if (target == null) {
+                return genericParser.parseResponse(layout, raw, offset, length);
             }
-            Characteristic characteristic = specificationReader.getCharacteristicByUUID(characteristicUUID);
-            if (customParsers.containsKey(characteristicUUID)) {
-                return customParsers.get(characteristicUUID).parse(characteristic, raw);
+            genericParser.parseInto(layout, raw, offset, length, target);
+            return target;
+        }
+        if (offset == 0 && length == raw.length) {
+            return getResponse(target, parser.parse(handle.getCharacteristic(), raw));
+        }
+        return getResponse(target, parser.parse(handle.getCharacteristic(), raw, offset, length));
+    }
+
+    private static GattResponse getResponse(MutableGattResponse target, LinkedHashMap<String, FieldHolder> holders) {
+        if (target == null) {
+            return new GattResponse(holders);
+        }
+        target.reset(holders);
+        return target;
+    }
+
+    /**
+     * Counts a parse failure of a characteristic and checks whether it should be logged, failures of a characteristic
+     * are logged at most once per {@link #FAILURE_LOG_INTERVAL}.
+     * @param characteristicUUID short characteristic UUID
+     * @param now current time in nanoseconds
+     * @return number of failures suppressed since the last logged one or -1 if this failure should not be logged
+     */
+    int countFailure(String characteristicUUID, long now) {
+        FailureLog log = failureLogs.get(characteristicUUID);
+        if (log == null) {
+            log = failureLogs.computeIfAbsent(characteristicUUID, uuid -> new FailureLog(now));
+        }
+        return log.count(now);
+    }
+
+    private void invalidateParseCache() {
+        // responses of stale handles are never returned, this is to release memory
+        ParseCache cache = parseCache;
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    private CharacteristicParser getParser(String characteristicUUID) {
+        CharacteristicParser parser = customParsers.get(characteristicUUID);
+        return parser != null ? parser : defaultParser;
+    }
+
+    private void clearLayouts() {
+        generation.incrementAndGet();
+        invalidateParseCache();
+        // loaded extensions can override characteristics referenced by already compiled layouts
+        if (defaultParser instanceof GenericCharacteristicParser) {
+            ((GenericCharacteristicParser) defaultParser).clearLayouts();
+        }
+    }
+
+    private static final class FailureLog {
+
+        private final AtomicLong next;
+        private final AtomicInteger suppressed = new AtomicInteger();
+
+        private FailureLog(long now) {
+            next = new AtomicLong(now);
+        }
+
+        private int count(long now) {
+            long current = next.get();
+            if (now - current >= 0 && next.compareAndSet(current, now + FAILURE_LOG_INTERVAL)) {
+                return suppressed.getAndSet(0);
             }
-            return defaultParser.parse(characteristic, raw);
+            suppressed.incrementAndGet();
+            return -1;
         }
+
     }
 
 }
@@ -0,0 +1,323 @@
+package org.sputnikdev.bluetooth.gattparser;
+
+/*-
+ * #%L
+ * org.sputnikdev:bluetooth-gatt-parser
+ * %%
+ * Copyright (C) 2017 Sputnik Dev
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.sputnikdev.bluetooth.gattparser.spec.Characteristic;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A GATT characteristic resolved by {@link BluetoothGattParser#bind(String)}: its normalised (short) UUID,
+ * specification, validity, parser and compiled parse layout. Handles allow parsing and serializing characteristic
+ * values without resolving and validating the characteristic on every call:
+ * <pre>
+ * {@code
+ *
+ * CharacteristicHandle heartRate = parser.bind("2A37");
+ * ...
+ * heartRate.parse(rawData).get("Heart Rate Measurement Value (uint8)").getInteger();
+ * }
+ * </pre>
+ * Immutable and threadsafe.
+ */
+public final class CharacteristicHandle {
+
+    private final BluetoothGattParser owner;
+    private final String characteristicUUID;
+    private final Characteristic characteristic;
+    private final CharacteristicParser parser;
+    private final CharacteristicLayout layout;
+    private final int generation;
+    // compiled on first use, requirements are immutable so that a racy initialisation is harmless
+    private FieldRequirements requirements;
+
+    CharacteristicHandle(BluetoothGattParser owner, String characteristicUUID, Characteristic characteristic,
+                         CharacteristicParser parser, CharacteristicLayout layout, int generation) {
+        this.owner = owner;
+        this.characteristicUUID = characteristicUUID;
+        this.characteristic = characteristic;
+        this.parser = parser;
+        this.layout = layout;
+        this.generation = generation;
+    }
+
+    /**
+     * Performs parsing of a characteristic value, see {@link BluetoothGattParser#parse(String, byte[])}.
+     *
+     * @param raw byte array of data received from bluetooth device
+     * @return a map of parsed characteristic fields represented by {@link GattResponse}
+     * @throws CharacteristicFormatException if a characteristic cannot be parsed
+     */
+    public GattResponse parse(byte[] raw) throws CharacteristicFormatException {
+        return owner.parse(this, raw);
+    }
+
+    /**
+     * Performs parsing of a characteristic value stored in a region of a byte array,
+     * see {@link BluetoothGattParser#parse(String, byte[], int, int)}.
+     *
+     * @param raw byte array containing data received from bluetooth device
+     * @param offset index of the first byte of the characteristic value
+     * @param length length of the characteristic value
+     * @return a map of parsed characteristic fields represented by {@link GattResponse}
+     * @throws CharacteristicFormatException if a characteristic cannot be parsed
+     * @throws IndexOutOfBoundsException if the region is out of the array bounds
+     */
+    public GattResponse parse(byte[] raw, int offset, int length) throws CharacteristicFormatException {
+        return owner.parse(this, raw, offset, length);
+    }
+
+    /**
+     * Performs parsing of a characteristic value stored in a byte buffer,
+     * see {@link BluetoothGattParser#parse(String, ByteBuffer)}.
+     *
+     * @param raw byte buffer containing data received from bluetooth device
+     * @return a map of parsed characteristic fields represented by {@link GattResponse}
+     * @throws CharacteristicFormatException if a characteristic cannot be parsed
+     */
+    public GattResponse parse(ByteBuffer raw) throws CharacteristicFormatException {
+        return owner.parse(this, raw);
+    }
+
+    /**
+     * Performs parsing of a characteristic value into a response owned by the caller,
+     * see {@link BluetoothGattParser#parseInto(CharacteristicHandle, byte[], MutableGattResponse)}.
+     *
+     * @param raw byte array of data received from bluetooth device
+     * @param target a response to be filled with parsed fields
+     * @return the target response
+     * @throws CharacteristicFormatException if a characteristic cannot be parsed
+     */
+    public MutableGattResponse parseInto(byte[] raw, MutableGattResponse target)
+            throws CharacteristicFormatException {
+        return owner.parseInto(this, raw, target);
+    }
+
+    /**
+     * Performs parsing of a characteristic value stored in a region of a byte array into a response owned
+     * by the caller, see {@link BluetoothGattParser#parseInto(CharacteristicHandle, byte[], int, int,
+     * MutableGattResponse)}.
+     *
+     * @param raw byte array containing data received from bluetooth device
+     * @param offset index of the first byte of the characteristic value
+     * @param length length of the characteristic value
+     * @param target a response to be filled with parsed fields
+     * @return the target response
+     * @throws CharacteristicFormatException if a characteristic cannot be parsed
+     * @throws IndexOutOfBoundsException if the region is out of the array bounds
+     */
+    public MutableGattResponse parseInto(byte[] raw, int offset, int length, MutableGattResponse target)
+            throws CharacteristicFormatException {
+        return owner.parseInto(this, raw, offset, length, target);
+    }
+
+    /**
+     * Performs parsing of a characteristic value without throwing exceptions if the value is malformed,
+     * see {@link BluetoothGattParser#tryParse(CharacteristicHandle, byte[], ParseResult)}.
+     *
+     * @param raw byte array of data received from bluetooth device
+     * @param result a result to be filled with parsed fields or an error
+     * @return the result
+     */
+    public ParseResult tryParse(byte[] raw, ParseResult result) {
+        return owner.tryParse(this, raw, result);
+    }
+
+    /**
+     * Performs parsing of a characteristic value stored in a region of a byte array without throwing exceptions
+     * if the value is malformed, see {@link BluetoothGattParser#tryParse(CharacteristicHandle, byte[], int, int,
+     * ParseResult)}.
+     *
+     * @param raw byte array containing data received from bluetooth device
+     * @param offset index of the first byte of the characteristic value
+     * @param length length of the characteristic value
+     * @param result a result to be filled with parsed fields or an error
+     * @return the result
+     * @throws IndexOutOfBoundsException if the region is out of the array bounds
+     */
+    public ParseResult tryParse(byte[] raw, int offset, int length, ParseResult result) {
+        return owner.tryParse(this, raw, offset, length, result);
+    }
+
+    /**
+     * Performs parsing of a batch of characteristic values,
+     * see {@link BluetoothGattParser#parseBatch(CharacteristicHandle, byte[][], GattResponseConsumer)}.
+     *
+     * @param values byte arrays of data received from bluetooth device
+     * @param consumer a consumer of parsed values
+     * @return number of successfully parsed values
+     * @throws CharacteristicFormatException if the characteristic is not valid for read
+     */
+    public int parseBatch(byte[][] values, GattResponseConsumer consumer) throws CharacteristicFormatException {
+        return owner.parseBatch(this, values, consumer);
+    }
+
+    /**
+     * Performs parsing of a batch of characteristic values packed into a single byte array,
+     * see {@link BluetoothGattParser#parseBatch(CharacteristicHandle, byte[], int[], int[], int,
+     * GattResponseConsumer)}.
+     *
+     * @param raw byte array containing data received from bluetooth device
+     * @param offsets indexes of the first bytes of the values
+     * @param lengths lengths of the values
+     * @param count number of values
+     * @param consumer a consumer of parsed values
+     * @return number of successfully parsed values
+     * @throws CharacteristicFormatException if the characteristic is not valid for read
+     * @throws IndexOutOfBoundsException if a value is out of the array bounds
+     */
+    public int parseBatch(byte[] raw, int[] offsets, int[] lengths, int count, GattResponseConsumer consumer)
+            throws CharacteristicFormatException {
+        return owner.parseBatch(this, raw, offsets, lengths, count, consumer);
+    }
+
+    /**
+     * Returns index of a field in responses of this characteristic, so that field values can be accessed without
+     * looking them up by name, see {@link GattResponse#get(int)} and {@link GattResponse#getLong(int, long)}.
+     *
+     * @param fieldName field name
+     * @return field index or -1 if the field is unknown or responses of this characteristic are not array-backed
+     */
+    public int getFieldIndex(String fieldName) {
+        return layout != null && layout.isIndexed() ? layout.getSlot(fieldName) : -1;
+    }
+
+    /**
+     * Creates a columnar sink for batch parsing of values of this characteristic,
+     * see {@link #parseBatch(byte[][], GattResponseConsumer)}.
+     *
+     * @param capacity initial number of rows
+     * @return a new columnar sink
+     * @throws IllegalStateException if responses of this characteristic are not array-backed
+     */
+    public GattResponseColumns newColumns(int capacity) {
+        if (layout == null || !layout.isIndexed()) {
+            throw new IllegalStateException("Characteristic cannot be parsed into columns: " + characteristicUUID);
+        }
+        return new GattResponseColumns(layout, capacity);
+    }
+
+    /**
+     * Returns a list of fields represented by {@link GattRequest} for a write operation,
+     * see {@link BluetoothGattParser#prepare(String)}.
+     *
+     * @return list of fields represented by {@link GattRequest} for a write operation
+     */
+    public GattRequest prepare() {
+        return owner.prepare(characteristicUUID);
+    }
+
+    /**
+     * Performs serialization of a GATT request, see {@link BluetoothGattParser#serialize(GattRequest)}.
+     *
+     * @param gattRequest a GATT request object
+     * @return serialized fields as an array of bytes ready to send to a bluetooth device
+     * @throws IllegalArgumentException if provided GATT request is not valid
+     */
+    public byte[] serialize(GattRequest gattRequest) {
+        return owner.serialize(this, gattRequest, true);
+    }
+
+    /**
+     * Performs serialization of a GATT request into a region of an array owned by the caller,
+     * see {@link BluetoothGattParser#serialize(GattRequest, byte[], int, int)}.
+     *
+     * @param gattRequest a GATT request object
+     * @param buffer an array to write the value into
+     * @param offset index of the first byte of the value in the array
+     * @param maxLength maximum length of the value
+     * @return length of the value written into the array
+     * @throws IllegalArgumentException if provided GATT request is not valid
+     * @throws CharacteristicOverflowException if the value is longer than the maximum length
+     * @throws IndexOutOfBoundsException if the region is out of the array bounds
+     */
+    public int serialize(GattRequest gattRequest, byte[] buffer, int offset, int maxLength) {
+        return owner.serialize(this, gattRequest, buffer, offset, maxLength);
+    }
+
+    /**
+     * Returns short UUID of the characteristic.
+     * @return short UUID of the characteristic
+     */
+    public String getCharacteristicUUID() {
+        return characteristicUUID;
+    }
+
+    /**
+     * Returns characteristic specification.
+     * @return characteristic specification
+     */
+    public Characteristic getCharacteristic() {
+        return characteristic;
+    }
+
+    /**
+     * Checks whether the characteristic is valid for read operation,
+     * see {@link BluetoothGattParser#isValidForRead(String)}.
+     * @return true if the characteristic is valid for read operation
+     */
+    public boolean isValidForRead() {
+        return characteristic.isValidForRead();
+    }
+
+    /**
+     * Checks whether the characteristic is valid for write operation,
+     * see {@link BluetoothGattParser#isValidForWrite(String)}.
+     * @return true if the characteristic is valid for write operation
+     */
+    public boolean isValidForWrite() {
+        return characteristic.isValidForWrite();
+    }
+
+    CharacteristicParser getParser() {
+        return parser;
+    }
+
+    /**
+     * Returns compiled layout if the characteristic is parsed by {@link GenericCharacteristicParser}.
+     */
+    CharacteristicLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * Returns compiled requirements of the characteristic fields, they are taken from the layout if exists.
+     */
+    FieldRequirements getRequirements() {
+        if (layout != null) {
+            return layout.getRequirements();
+        }
+        FieldRequirements result = requirements;
+        if (result == null) {
+            result = FieldRequirements.compile(owner.getFields(characteristicUUID));
+            requirements = result;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the parser state (registered parsers and loaded extensions) the handle has been resolved against.
+     */
+    int getGeneration() {
+        return generation;
+    }
+
+}
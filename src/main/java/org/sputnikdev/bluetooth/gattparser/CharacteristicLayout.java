@@ -0,0 +1,383 @@
+package org.sputnikdev.bluetooth.gattparser;
+
+/*-
+ * #%L
+ * org.sputnikdev:bluetooth-gatt-parser
+ * %%
+ * Copyright (C) 2017 Sputnik Dev
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.sputnikdev.bluetooth.gattparser.num.BitUtils;
+import org.sputnikdev.bluetooth.gattparser.spec.Bit;
+import org.sputnikdev.bluetooth.gattparser.spec.BluetoothGattSpecificationReader;
+import org.sputnikdev.bluetooth.gattparser.spec.Characteristic;
+import org.sputnikdev.bluetooth.gattparser.spec.Field;
+import org.sputnikdev.bluetooth.gattparser.spec.FieldFormat;
+import org.sputnikdev.bluetooth.gattparser.spec.FlagUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A compiled parse plan of a GATT characteristic. The plan is built once per characteristic specification and then
+ * reused for every parse: field formats and sizes are resolved, referenced characteristics are compiled into nested
+ * layouts and field requirements are turned into bit masks, so that deciding whether a field is present
+ * in a payload is a single AND operation against the mask read from the Flags field.
+ * <br>Value fields (including fields of referenced characteristics) are also given slots: indexes of fields
+ * in an array-backed {@link GattResponse}, see {@link #isIndexed()}.
+ * Immutable and threadsafe.
+ */
+final class CharacteristicLayout {
+
+    static final int VALUE = 0;
+    static final int FLAGS = 1;
+    static final int REFERENCE = 2;
+    static final int INVALID = 3;
+
+    // how field values are stored in slots of an array-backed response
+    static final int SLOT_BOOLEAN = 0;
+    static final int SLOT_INT = 1;
+    static final int SLOT_LONG = 2;
+    static final int SLOT_FLOAT = 3;
+    static final int SLOT_DOUBLE = 4;
+    static final int SLOT_OBJECT = 5;
+
+    private static final int MAX_REFERENCE_DEPTH = 16;
+
+    private final Characteristic characteristic;
+    private final Field[] fields;
+    private final int[] kinds;
+    private final FieldFormat[] formats;
+    private final int[] sizes;
+    // value fields: slot index, reference fields: index of the first slot of the referenced characteristic
+    private final int[] slots;
+    private final long[] requirementMasks;
+    private final CharacteristicLayout[] references;
+    private final String[] errors;
+    private final Set<String> names = new HashSet<>();
+    private final boolean duplicateNames;
+    // requirements of all fields including fields of referenced characteristics
+    private final FieldRequirements requirements;
+
+    // slots of all value fields including fields of referenced characteristics
+    private final Field[] slotFields;
+    private final int[] slotTypes;
+    private final Map<String, Integer> slotsByName = new HashMap<>();
+    private final boolean objectSlots;
+
+    // Flags field: its position in the payload, sizes of its bits and requirement masks of the bit values
+    private final int flagsPosition;
+    private final int flagsSize;
+    private final int[] flagBitSizes;
+    private final long[][] flagBitMasks;
+    private final String flagsError;
+
+    private CharacteristicLayout(Characteristic characteristic, BluetoothGattSpecificationReader reader, int depth) {
+        this.characteristic = characteristic;
+        List<Field> specFields = characteristic.getValue().getFields();
+        int count = specFields.size();
+        fields = specFields.toArray(new Field[count]);
+        kinds = new int[count];
+        formats = new FieldFormat[count];
+        sizes = new int[count];
+        slots = new int[count];
+        requirementMasks = new long[count];
+        references = new CharacteristicLayout[count];
+        errors = new String[count];
+
+        boolean duplicates = false;
+        List<Field> valueFields = new ArrayList<>();
+        List<Field> allFields = new ArrayList<>();
+        List<Field> declaredFields = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Field field = fields[i];
+            if (field.getReference() != null) {
+                declaredFields.add(field);
+                kinds[i] = REFERENCE;
+                String type = field.getReference().trim();
+                Characteristic referenced = reader.getCharacteristicByType(type);
+                if (referenced == null || referenced.getValue() == null) {
+                    kinds[i] = INVALID;
+                    errors[i] = "Referenced characteristic is not found: \"" + type + "\".";
+                } else if (!referenced.isValidForRead()) {
+                    // validity of references is checked once here rather than on every parse
+                    kinds[i] = INVALID;
+                    errors[i] = "Characteristic cannot be parsed: \"" + referenced.getName() + "\".";
+                } else if (depth >= MAX_REFERENCE_DEPTH) {
+                    kinds[i] = INVALID;
+                    errors[i] = "Too many nested references: \"" + type + "\".";
+                } else {
+                    references[i] = new CharacteristicLayout(referenced, reader, depth + 1);
+                    slots[i] = valueFields.size();
+                    Collections.addAll(valueFields, references[i].slotFields);
+                    allFields.addAll(references[i].requirements.getFields());
+                    declaredFields.addAll(references[i].requirements.getDeclaredFields());
+                    duplicates |= references[i].duplicateNames;
+                    for (String name : references[i].names) {
+                        duplicates |= !names.add(name);
+                    }
+                }
+            } else if (field.getFormat() == null) {
+                allFields.add(field);
+                declaredFields.add(field);
+                kinds[i] = INVALID;
+                errors[i] = "Field format is unknown: \"" + field.getName() + "\".";
+            } else {
+                allFields.add(field);
+                declaredFields.add(field);
+                kinds[i] = FlagUtils.isFlagsField(field) ? FLAGS : VALUE;
+                formats[i] = field.getFormat();
+                sizes[i] = formats[i].getSize();
+                if (kinds[i] == VALUE) {
+                    slots[i] = valueFields.size();
+                    valueFields.add(field);
+                    duplicates |= !names.add(field.getName());
+                }
+            }
+        }
+        duplicateNames = duplicates;
+        // the same vocabulary is used to validate requests, see BluetoothGattParser.validate(GattRequest)
+        requirements = FieldRequirements.compile(Collections.unmodifiableList(allFields), declaredFields);
+        for (int i = 0; i < count; i++) {
+            requirementMasks[i] = requirements.getMask(fields[i]);
+        }
+        slotFields = valueFields.toArray(new Field[valueFields.size()]);
+        slotTypes = new int[slotFields.length];
+        boolean objects = false;
+        for (int slot = 0; slot < slotFields.length; slot++) {
+            slotTypes[slot] = getSlotType(slotFields[slot].getFormat());
+            objects |= slotTypes[slot] == SLOT_OBJECT;
+            slotsByName.put(slotFields[slot].getName(), slot);
+        }
+        objectSlots = objects;
+
+        int position = 0;
+        Field flags = null;
+        String error = null;
+        for (Field field : fields) {
+            if (FlagUtils.isFlagsField(field)) {
+                flags = field;
+                break;
+            }
+            if (field.getReference() != null) {
+                // if flags field goes after a reference field, then it is not possible to parse the such characteristic
+                // simply because we don't know if this reference field if optional or not
+                break;
+            }
+            if (field.getFormat() == null) {
+                error = "A filed is missing its format: " + field.getName();
+                break;
+            }
+            position += field.getFormat().getSize();
+        }
+        flagsError = error;
+        if (flags != null && flags.getFormat() != null) {
+            List<Bit> bits = flags.getBitField().getBits() != null
+                    ? flags.getBitField().getBits() : Collections.<Bit>emptyList();
+            flagsPosition = position;
+            flagsSize = flags.getFormat().getSize();
+            flagBitSizes = new int[bits.size()];
+            flagBitMasks = new long[bits.size()][];
+            for (int i = 0; i < bits.size(); i++) {
+                Bit bit = bits.get(i);
+                flagBitSizes[i] = bit.getSize();
+                // only the lowest byte of a flag value is taken into account by Bit.getFlag(byte)
+                long[] masks = new long[1 << Math.min(bit.getSize(), Byte.SIZE)];
+                for (int value = 0; value < masks.length; value++) {
+                    String requires = bit.getFlag((byte) value);
+                    masks[value] = requires != null ? getMask(requires.split(",")) : 0;
+                }
+                flagBitMasks[i] = masks;
+            }
+        } else {
+            flagsPosition = -1;
+            flagsSize = 0;
+            flagBitSizes = new int[0];
+            flagBitMasks = new long[0][];
+        }
+    }
+
+    /**
+     * Compiles a layout for a given characteristic. Referenced characteristics are resolved with the given reader.
+     * @param characteristic characteristic specification
+     * @param reader specification reader to resolve references
+     * @return compiled layout
+     */
+    static CharacteristicLayout compile(Characteristic characteristic, BluetoothGattSpecificationReader reader) {
+        return new CharacteristicLayout(characteristic, reader, 0);
+    }
+
+    Characteristic getCharacteristic() {
+        return characteristic;
+    }
+
+    int getFieldCount() {
+        return fields.length;
+    }
+
+    Field getField(int index) {
+        return fields[index];
+    }
+
+    int getKind(int index) {
+        return kinds[index];
+    }
+
+    FieldFormat getFormat(int index) {
+        return formats[index];
+    }
+
+    int getSize(int index) {
+        return sizes[index];
+    }
+
+    CharacteristicLayout getReference(int index) {
+        return references[index];
+    }
+
+    String getError(int index) {
+        return errors[index];
+    }
+
+    /**
+     * Returns compiled requirements of all fields of the characteristic including fields of referenced
+     * characteristics, the same masks are used for parsing and for validation of requests.
+     * @return compiled requirements
+     */
+    FieldRequirements getRequirements() {
+        return requirements;
+    }
+
+    /**
+     * Returns slot index of a value field or index of the first slot of a referenced characteristic.
+     * @param index field index
+     * @return slot index
+     */
+    int getSlot(int index) {
+        return slots[index];
+    }
+
+    /**
+     * Returns slot index of a field by its name.
+     * @param name field name
+     * @return slot index or -1 if there is no such field
+     */
+    int getSlot(String name) {
+        Integer slot = slotsByName.get(name);
+        return slot != null ? slot : -1;
+    }
+
+    /**
+     * Checks whether parsed values can be stored in an array-backed response: field names are unique
+     * and presence of all slots can be tracked in a single bit mask.
+     * @return true if values can be stored in an array-backed response
+     */
+    boolean isIndexed() {
+        return !duplicateNames && slotFields.length <= Long.SIZE;
+    }
+
+    int getSlotCount() {
+        return slotFields.length;
+    }
+
+    Field getSlotField(int slot) {
+        return slotFields[slot];
+    }
+
+    int getSlotType(int slot) {
+        return slotTypes[slot];
+    }
+
+    private static int getSlotType(FieldFormat format) {
+        int size = format.getSize();
+        switch (format.getType()) {
+            case BOOLEAN: return SLOT_BOOLEAN;
+            case UINT: return size < 32 ? SLOT_INT : size < 64 ? SLOT_LONG : SLOT_OBJECT;
+            case SINT: return size <= 32 ? SLOT_INT : size <= 64 ? SLOT_LONG : SLOT_OBJECT;
+            case FLOAT_IEE754:
+            case FLOAT_IEE11073:
+                return size == 16 || size == 32 ? SLOT_FLOAT : size == 64 ? SLOT_DOUBLE : SLOT_OBJECT;
+            default: return SLOT_OBJECT;
+        }
+    }
+
+    /**
+     * Checks whether some values cannot be stored as primitives, e.g. strings.
+     * @return true if some values are stored as objects
+     */
+    boolean hasObjectSlots() {
+        return objectSlots;
+    }
+
+    /**
+     * Checks whether the same field name can be produced more than once by this layout (including references).
+     * @return true if field names are not unique
+     */
+    boolean hasDuplicateNames() {
+        return duplicateNames;
+    }
+
+    /**
+     * Checks whether a field is present according to the requirements mask read from the Flags field.
+     * @param index field index
+     * @param flags requirements mask, see {@link #readFlags(byte[], int, int)}
+     * @return true if the field is present
+     */
+    boolean isPresent(int index, long flags) {
+        return (flags & requirementMasks[index]) == requirementMasks[index];
+    }
+
+    /**
+     * Reads the Flags field (if exists) and converts it into a requirements mask, mandatory fields are always present.
+     * @param raw data array
+     * @param start index of the first bit of the characteristic value
+     * @param limit index of the first bit after the characteristic value, bits after it are read as zeros
+     * @return requirements mask
+     */
+    long readFlags(byte[] raw, int start, int limit) {
+        if (flagsError != null) {
+            throw new IllegalStateException(flagsError);
+        }
+        if (flagsPosition < 0) {
+            return FieldRequirements.MANDATORY;
+        }
+        long mask = FieldRequirements.MANDATORY;
+        int offset = 0;
+        for (int i = 0; i < flagBitSizes.length; i++) {
+            // bits that go beyond the flags field are read as zeros
+            int position = start + flagsPosition + offset;
+            int size = Math.max(0, Math.min(Math.min(flagBitSizes[i], Byte.SIZE),
+                    Math.min(flagsSize - offset, limit - position)));
+            mask |= flagBitMasks[i][(int) BitUtils.readBits(raw, position, size)];
+            offset += flagBitSizes[i];
+        }
+        return mask;
+    }
+
+    private long getMask(String[] requires) {
+        long mask = 0;
+        for (String requirement : requires) {
+            mask |= requirements.getMask(requirement);
+        }
+        return mask;
+    }
+
+}
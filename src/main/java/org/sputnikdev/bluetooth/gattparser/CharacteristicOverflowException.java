@@ -0,0 +1,58 @@
+package org.sputnikdev.bluetooth.gattparser;
+
+/*-
+ * #%L
+ * org.sputnikdev:bluetooth-gatt-parser
+ * %%
+ * Copyright (C) 2017 Sputnik Dev
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * This exception is thrown if a serialized characteristic value does not fit into the maximum length,
+ * e.g. a characteristic value is longer than the negotiated ATT MTU allows.
+ */
+public class CharacteristicOverflowException extends CharacteristicFormatException {
+
+    private final int length;
+    private final int maxLength;
+
+    /**
+     * Creates a new exception for a serialized characteristic value that does not fit into the maximum length.
+     * @param length length of the serialized characteristic value in bytes
+     * @param maxLength maximum length in bytes
+     */
+    public CharacteristicOverflowException(int length, int maxLength) {
+        super("Characteristic value is too long: " + length + " bytes, maximum length: " + maxLength + " bytes");
+        this.length = length;
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * Returns length of the serialized characteristic value.
+     * @return length of the serialized characteristic value in bytes
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Returns the maximum length that the characteristic value was supposed to fit into.
+     * @return maximum length in bytes
+     */
+    public int getMaxLength() {
+        return maxLength;
+    }
+}
@@ -20,6 +20,7 @@ package org.sputnikdev.bluetooth.gattparser;
  * #L%
  */
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.LinkedHashMap;
 
@@ -45,6 +46,24 @@ public interface CharacteristicParser {
     LinkedHashMap<String, FieldHolder> parse(Characteristic characteristic, byte[] raw)
             throws CharacteristicFormatException;
 
+    /**
+     * Read operation. Same as {@link #parse(Characteristic, byte[])}, but the data is read from a region
+     * of a given array. Implementations must not keep a reference to the array as it can be reused by the caller.
+     * The default implementation copies the region into a new array.
+     *
+     * @param characteristic an instance of characteristic specification object
+     * @param raw byte array containing data received from bluetooth device
+     * @param offset index of the first byte of the data
+     * @param length length of the data
+     * @return a map of parsed characteristic fields
+     * @throws CharacteristicFormatException if provided data cannot be parsed,
+     *     see {@link BluetoothGattParser#isValidForRead(String)}
+     */
+    default LinkedHashMap<String, FieldHolder> parse(Characteristic characteristic, byte[] raw, int offset,
+                                                     int length) throws CharacteristicFormatException {
+        return parse(characteristic, Arrays.copyOfRange(raw, offset, offset + length));
+    }
+
     /**
      * Write operation. This method serialises characteristic fields into a raw array of bytes ready to send
      * to a bluetooth device.
@@ -56,4 +75,33 @@ public interface CharacteristicParser {
      */
     byte[] serialize(Collection<FieldHolder> fieldHolders) throws CharacteristicFormatException;
 
+    /**
+     * Write operation. Same as {@link #serialize(Collection)}, but the value is written into a region of an array
+     * owned by the caller and it is not truncated to the default ATT MTU. The maximum length is normally
+     * the negotiated ATT MTU minus 3 bytes of the ATT header, see {@link BluetoothGattParser#getMaxWriteLength(int)}.
+     * The default implementation copies the result of {@link #serialize(Collection)}.
+     *
+     * @param fieldHolders a collection of field holders populated with user input
+     * @param buffer an array to write the value into
+     * @param offset index of the first byte of the value in the array
+     * @param maxLength maximum length of the value
+     * @return length of the value written into the array
+     * @throws CharacteristicFormatException if provided fields cannot be serialized,
+     *     see {@link BluetoothGattParser#isValidForWrite(String)}, or a {@link CharacteristicOverflowException}
+     *     if the value is longer than the maximum length
+     * @throws IndexOutOfBoundsException if the region is out of the array bounds
+     */
+    default int serialize(Collection<FieldHolder> fieldHolders, byte[] buffer, int offset, int maxLength)
+            throws CharacteristicFormatException {
+        if (offset < 0 || maxLength < 0 || offset + maxLength > buffer.length) {
+            throw new IndexOutOfBoundsException("Invalid region: " + offset + ", " + maxLength);
+        }
+        byte[] data = serialize(fieldHolders);
+        if (data.length > maxLength) {
+            throw new CharacteristicOverflowException(data.length, maxLength);
+        }
+        System.arraycopy(data, 0, buffer, offset, data.length);
+        return data.length;
+    }
+
 }
@@ -35,6 +35,7 @@ import org.sputnikdev.bluetooth.gattparser.num.TwosComplementNumberFormatter;
 import org.sputnikdev.bluetooth.gattparser.spec.Enumeration;
 import org.sputnikdev.bluetooth.gattparser.spec.Field;
 import org.sputnikdev.bluetooth.gattparser.spec.FieldFormat;
+import org.sputnikdev.bluetooth.gattparser.spec.FieldScale;
 import org.sputnikdev.bluetooth.gattparser.spec.FieldType;
 import org.sputnikdev.bluetooth.gattparser.spec.FlagUtils;
 
@@ -122,10 +123,9 @@ public class FieldHolder {
     public Integer getInteger(Integer def) {
         Integer result = new IntegerConverter(null).convert(Integer.class, prepareValue());
         if (result != null) {
-            double multiplier = getMultiplier();
-            double offset = getOffset();
-            if (multiplier != 1.0 || offset != 0.0) {
-                return (int) Math.round(result * multiplier + offset);
+            FieldScale scale = field.getScale();
+            if (!scale.isIdentity()) {
+                return (int) Math.round(scale.scale(result));
             } else {
                 return result;
             }
@@ -143,10 +143,9 @@ public class FieldHolder {
     public Long getLong(Long def) {
         Long result = new LongConverter(null).convert(Long.class, prepareValue());
         if (result != null) {
-            double multiplier = getMultiplier();
-            double offset = getOffset();
-            if (multiplier != 1.0 || offset != 0.0) {
-                return Math.round(result * multiplier + offset);
+            FieldScale scale = field.getScale();
+            if (!scale.isIdentity()) {
+                return Math.round(scale.scale(result));
             } else {
                 return result;
             }
@@ -164,8 +163,8 @@ public class FieldHolder {
     public BigInteger getBigInteger(BigInteger def) {
         BigDecimal result = new BigDecimalConverter(null).convert(BigDecimal.class, prepareValue());
         return result != null
-                ? result.multiply(BigDecimal.valueOf(getMultiplier()))
-                        .add(BigDecimal.valueOf(getOffset())).setScale(0, RoundingMode.HALF_UP).toBigInteger()
+                ? result.multiply(field.getScale().getDecimalMultiplier())
+                        .add(field.getScale().getDecimalOffset()).setScale(0, RoundingMode.HALF_UP).toBigInteger()
                 : def;
     }
 
@@ -178,7 +177,7 @@ public class FieldHolder {
     public BigDecimal getBigDecimal(BigDecimal def) {
         BigDecimal result = new BigDecimalConverter(null).convert(BigDecimal.class, prepareValue());
         return result != null
-                ? result.multiply(BigDecimal.valueOf(getMultiplier()))
+                ? result.multiply(field.getScale().getDecimalMultiplier())
                 : def;
     }
 
@@ -191,7 +190,7 @@ public class FieldHolder {
     public Float getFloat(Float def) {
         Float result = new FloatConverter(null).convert(Float.class, prepareValue());
         if (result != null) {
-            return (float) (result * getMultiplier() + getOffset());
+            return (float) field.getScale().scale(result);
         } else {
             return def;
         }
@@ -206,7 +205,7 @@ public class FieldHolder {
     public Double getDouble(Double def) {
         Double result = new FloatConverter(null).convert(Double.class, prepareValue());
         if (result != null) {
-            return result * getMultiplier() + getOffset();
+            return field.getScale().scale(result);
         } else {
             return def;
         }
@@ -242,6 +241,64 @@ public class FieldHolder {
         return new ArrayConverter(byte[].class, new ByteConverter()).convert(byte[].class, value);
     }
 
+    /**
+     * Returns an int representation of the field or a default value in case if the field cannot
+     * be converted to an int. The same as {@link #getInteger(Integer)}, but number fields are converted
+     * without boxing and converters.
+     * @param def the default value to be returned if an error occurs converting the field
+     * @return an int representation of the field
+     */
+    public int getAsInt(int def) {
+        if (!(value instanceof Number)) {
+            Integer result = getInteger(null);
+            return result != null ? result : def;
+        }
+        long result = ((Number) value).longValue();
+        if (result > Integer.MAX_VALUE || result < Integer.MIN_VALUE) {
+            return def;
+        }
+        FieldScale scale = field.getScale();
+        if (!scale.isIdentity()) {
+            return (int) Math.round(scale.scale((int) result));
+        }
+        return (int) result;
+    }
+
+    /**
+     * Returns a long representation of the field or a default value in case if the field cannot
+     * be converted to a long. The same as {@link #getLong(Long)}, but number fields are converted
+     * without boxing and converters.
+     * @param def the default value to be returned if an error occurs converting the field
+     * @return a long representation of the field
+     */
+    public long getAsLong(long def) {
+        if (!(value instanceof Number)) {
+            Long result = getLong(null);
+            return result != null ? result : def;
+        }
+        long result = ((Number) value).longValue();
+        FieldScale scale = field.getScale();
+        if (!scale.isIdentity()) {
+            return Math.round(scale.scale(result));
+        }
+        return result;
+    }
+
+    /**
+     * Returns a double representation of the field or a default value in case if the field cannot
+     * be converted to a double. The same as {@link #getDouble(Double)}, but number fields are converted
+     * without boxing and converters.
+     * @param def the default value to be returned if an error occurs converting the field
+     * @return a double representation of the field
+     */
+    public double getAsDouble(double def) {
+        if (!(value instanceof Number)) {
+            Double result = getDouble(null);
+            return result != null ? result : def;
+        }
+        return field.getScale().scale(((Number) value).doubleValue());
+    }
+
     /**
      * Returns an Integer representation of the field or null in case if the field cannot
      * be converted to an Integer.
@@ -336,23 +393,35 @@ public class FieldHolder {
      * @return fields enumeration according to the field value
      */
     public Enumeration getEnumeration() {
-        BigInteger key;
+        if (field.getEnumerations() == null) {
+            return null;
+        }
+        if ((value instanceof Integer || value instanceof Long) && field.getScale().isIdentity()) {
+            return FlagUtils.getEnumeration(field, ((Number) value).longValue()).orElse(null);
+        }
+        byte[] data = null;
         if (field.getFormat().isStruct() && value instanceof byte[]) {
-            byte[] data = (byte[]) value;
-            key = new TwosComplementNumberFormatter().deserializeBigInteger(BitSet.valueOf(data),
-                    data.length * 8, false);
+            data = (byte[]) value;
         } else if (field.getFormat().isString() && value instanceof String) {
             String encoding = field.getFormat().getType() == FieldType.UTF8S ? "UTF-8" : "UTF-16";
             try {
-                byte[] data = ((String) value).getBytes(encoding);
-                key = new TwosComplementNumberFormatter().deserializeBigInteger(BitSet.valueOf(data),
-                        data.length * 8, false);
+                data = ((String) value).getBytes(encoding);
             } catch (UnsupportedEncodingException e) {
                 throw new IllegalStateException(e);
             }
-        } else {
-            key = getBigInteger();
         }
+        if (data != null && data.length < Long.BYTES) {
+            // unsigned little-endian key
+            long key = 0;
+            for (int i = data.length - 1; i >= 0; i--) {
+                key = key << Byte.SIZE | data[i] & 0xFF;
+            }
+            return FlagUtils.getEnumeration(field, key).orElse(null);
+        }
+        BigInteger key = data != null
+                ? new TwosComplementNumberFormatter().deserializeBigInteger(BitSet.valueOf(data),
+                        data.length * 8, false)
+                : getBigInteger();
         return FlagUtils.getEnumeration(field, key).orElse(null);
     }
 
@@ -398,10 +467,9 @@ public class FieldHolder {
             if (minimum != null && minimum > value) {
                 throw new IllegalArgumentException("Value [" + value + "] is less than minimum: " + minimum);
             }
-            double multiplier = getMultiplier();
-            double offset = getOffset();
-            if (multiplier != 1.0 || offset != 0.0) {
-                this.value = getConverter().convert(null, Math.round((value - offset) / multiplier));
+            FieldScale scale = field.getScale();
+            if (!scale.isIdentity()) {
+                this.value = getConverter().convert(null, Math.round(scale.unscale(value)));
             } else {
                 this.value = getConverter().convert(null, value);
             }
@@ -424,10 +492,9 @@ public class FieldHolder {
             if (minimum != null && minimum > value) {
                 throw new IllegalArgumentException("Value [" + value + "] is less than minimum: " + minimum);
             }
-            double multiplier = getMultiplier();
-            double offset = getOffset();
-            if (multiplier != 1.0 || offset != 0.0) {
-                this.value = getConverter().convert(null, Math.round((value - offset) / multiplier));
+            FieldScale scale = field.getScale();
+            if (!scale.isIdentity()) {
+                this.value = getConverter().convert(null, Math.round(scale.unscale(value)));
             } else {
                 this.value = getConverter().convert(null, value);
             }
@@ -451,12 +518,11 @@ public class FieldHolder {
             if (minimum != null && vl.compareTo(new BigDecimal(minimum)) < 0) {
                 throw new IllegalArgumentException("Value [" + value + "] is less than minimum: " + minimum);
             }
-            double multiplier = getMultiplier();
-            double offset = getOffset();
+            FieldScale scale = field.getScale();
             BigInteger adjusted;
-            if (multiplier != 1.0 || offset != 0.0) {
-                adjusted = vl.subtract(BigDecimal.valueOf(offset)).setScale(0, RoundingMode.HALF_UP)
-                                .divide(BigDecimal.valueOf(multiplier)).toBigInteger();
+            if (!scale.isIdentity()) {
+                adjusted = vl.subtract(scale.getDecimalOffset()).setScale(0, RoundingMode.HALF_UP)
+                                .divide(scale.getDecimalMultiplier()).toBigInteger();
             } else {
                 adjusted = value;
             }
@@ -486,7 +552,7 @@ public class FieldHolder {
             if (minimum != null && minimum > value) {
                 throw new IllegalArgumentException("Value [" + value + "] is less than minimum: " + minimum);
             }
-            this.value = getConverter().convert(null, (value - getOffset()) / getMultiplier());
+            this.value = getConverter().convert(null, field.getScale().unscale(value));
         }
     }
 
@@ -506,7 +572,7 @@ public class FieldHolder {
             if (minimum != null && minimum > value) {
                 throw new IllegalArgumentException("Value [" + value + "] is less than minimum: " + minimum);
             }
-            this.value = getConverter().convert(null, (value - getOffset()) / getMultiplier());
+            this.value = getConverter().convert(null, field.getScale().unscale(value));
         }
     }
 
@@ -574,31 +640,6 @@ public class FieldHolder {
         return getString();
     }
 
-    private double getMultiplier() {
-        double multiplier = 1;
-        if (field.getDecimalExponent() != null) {
-            multiplier = Math.pow(10, field.getDecimalExponent());
-        }
-        if (field.getBinaryExponent() != null) {
-            multiplier *= Math.pow(2, field.getBinaryExponent());
-        }
-        if (field.getMultiplier() != null && field.getMultiplier() != 0) {
-            multiplier *= (double) field.getMultiplier();
-        }
-        return multiplier;
-    }
-
-    /**
-     * Reads offset-to-be-added to field value received from request.
-     * This is an extension to official GATT characteristic field specification, 
-     * allowing to implement subset of proprietary devices that almost follow standard
-     * GATT specifications.
-     * @return offset as double if set, 0 if not present
-     */
-    private double getOffset() {
-        return (field.getOffset() != null) ? field.getOffset() : 0;
-    }
-
     private AbstractConverter getConverter() {
         FieldFormat fieldFormat = field.getFormat();
         int size = fieldFormat.getSize();
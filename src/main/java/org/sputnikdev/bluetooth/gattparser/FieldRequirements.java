@@ -0,0 +1,151 @@
+package org.sputnikdev.bluetooth.gattparser;
+
+/*-
+ * #%L
+ * org.sputnikdev:bluetooth-gatt-parser
+ * %%
+ * Copyright (C) 2017 Sputnik Dev
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.sputnikdev.bluetooth.gattparser.spec.Field;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A requirement vocabulary of a characteristic (Mandatory, C1, C2, ...) compiled into bit positions. Each field is
+ * given a mask of its requirements, so that checking whether a field is required is a single AND operation.
+ * Immutable and threadsafe.
+ */
+final class FieldRequirements {
+
+    static final long MANDATORY = 1L;
+
+    private static final String MANDATORY_FLAG = "Mandatory";
+
+    private final List<Field> fields;
+    private final List<Field> declaredFields;
+    private final Map<String, Integer> vocabulary = new HashMap<>();
+    private final Map<Field, Long> masks = new IdentityHashMap<>();
+
+    private FieldRequirements(List<Field> fields, List<Field> declaredFields) {
+        this.fields = fields;
+        this.declaredFields = declaredFields;
+        vocabulary.put(MANDATORY_FLAG, 0);
+        for (Field field : declaredFields) {
+            List<String> requirements = field.getRequirements();
+            if (requirements == null) {
+                continue;
+            }
+            for (String requirement : requirements) {
+                if (!vocabulary.containsKey(requirement)) {
+                    if (vocabulary.size() == Long.SIZE) {
+                        throw new IllegalStateException("Too many requirements in characteristic");
+                    }
+                    vocabulary.put(requirement, vocabulary.size());
+                }
+            }
+        }
+        for (Field field : declaredFields) {
+            masks.put(field, getMask(field.getRequirements()));
+        }
+    }
+
+    /**
+     * Compiles requirements of given fields.
+     * @param fields characteristic fields
+     * @return compiled requirements
+     */
+    static FieldRequirements compile(List<Field> fields) {
+        return new FieldRequirements(fields, fields);
+    }
+
+    /**
+     * Compiles requirements of given fields and of fields referencing other characteristics.
+     * @param fields characteristic fields, references are expanded
+     * @param declaredFields characteristic fields including reference fields in order of their declaration
+     * @return compiled requirements
+     */
+    static FieldRequirements compile(List<Field> fields, List<Field> declaredFields) {
+        return new FieldRequirements(fields, declaredFields);
+    }
+
+    /**
+     * Compiles requirements of fields of given field holders.
+     * @param holders field holders
+     * @return compiled requirements
+     */
+    static FieldRequirements compile(Collection<FieldHolder> holders) {
+        Field[] fields = new Field[holders.size()];
+        int index = 0;
+        for (FieldHolder holder : holders) {
+            fields[index++] = holder.getField();
+        }
+        List<Field> list = Arrays.asList(fields);
+        return new FieldRequirements(list, list);
+    }
+
+    /**
+     * Returns the fields the requirements have been compiled for.
+     * @return characteristic fields
+     */
+    List<Field> getFields() {
+        return fields;
+    }
+
+    /**
+     * Returns the fields the requirements have been compiled for including reference fields.
+     * @return characteristic fields including reference fields
+     */
+    List<Field> getDeclaredFields() {
+        return declaredFields;
+    }
+
+    /**
+     * Returns a mask of a requirement.
+     * @param requirement requirement, e.g. C1
+     * @return requirement mask or 0 if none of the fields has this requirement
+     */
+    long getMask(String requirement) {
+        Integer bit = vocabulary.get(requirement);
+        return bit != null ? 1L << bit : 0;
+    }
+
+    /**
+     * Returns a mask of all requirements of a field.
+     * @param field characteristic field
+     * @return requirements mask
+     */
+    long getMask(Field field) {
+        Long mask = masks.get(field);
+        return mask != null ? mask : getMask(field.getRequirements());
+    }
+
+    private long getMask(List<String> requirements) {
+        long mask = 0;
+        if (requirements != null) {
+            for (String requirement : requirements) {
+                mask |= getMask(requirement);
+            }
+        }
+        return mask;
+    }
+
+}
@@ -45,6 +45,10 @@ public class GattRequest {
     private final String characteristicUUID;
     private final Map<String, FieldHolder> holders;
     private final FieldHolder opCodesHolder;
+    private final FieldRequirements requirements;
+    // holders in the map order and masks of their requirements
+    private final FieldHolder[] orderedHolders;
+    private final long[] requirementMasks;
 
     /**
      * Creates a GATT request for a given GATT characteristic and its fields.
@@ -52,12 +56,24 @@ public class GattRequest {
      * @param fields a list of characteristic fields
      */
     GattRequest(String characteristicUUID, List<Field> fields) {
-        if (fields.isEmpty()) {
+        this(characteristicUUID, FieldRequirements.compile(fields));
+    }
+
+    /**
+     * Creates a GATT request for a given GATT characteristic and its fields with compiled requirements.
+     * @param characteristicUUID an UUID of a characteristic
+     * @param requirements compiled requirements of characteristic fields
+     */
+    GattRequest(String characteristicUUID, FieldRequirements requirements) {
+        if (requirements.getFields().isEmpty()) {
             throw new IllegalArgumentException("Fields cannot be empty");
         }
         this.characteristicUUID = characteristicUUID;
-        holders = getHolders(fields);
+        this.requirements = requirements;
+        holders = getHolders(requirements.getFields());
         opCodesHolder = findOpCodesField();
+        orderedHolders = holders.values().toArray(new FieldHolder[holders.size()]);
+        requirementMasks = getRequirementMasks();
     }
 
     /**
@@ -66,12 +82,25 @@ public class GattRequest {
      * @param holders a list of characteristic field hodlers
      */
     GattRequest(String characteristicUUID, Map<String, FieldHolder> holders) {
+        this(characteristicUUID, FieldRequirements.compile(holders.values()), holders);
+    }
+
+    /**
+     * Creates a GATT request for a given GATT characteristic and its field holders with compiled requirements.
+     * @param characteristicUUID an UUID of a characteristic
+     * @param requirements compiled requirements of characteristic fields
+     * @param holders a list of characteristic field hodlers
+     */
+    GattRequest(String characteristicUUID, FieldRequirements requirements, Map<String, FieldHolder> holders) {
         if (holders.isEmpty()) {
             throw new IllegalArgumentException("Fields cannot be empty");
         }
         this.characteristicUUID = characteristicUUID;
         this.holders = new HashMap<>(holders);
         opCodesHolder = findOpCodesField();
+        this.requirements = requirements;
+        orderedHolders = this.holders.values().toArray(new FieldHolder[this.holders.size()]);
+        requirementMasks = getRequirementMasks();
     }
 
     /**
@@ -201,7 +230,7 @@ public class GattRequest {
         String requirement = controlPointField != null ? controlPointField.getEnumerationRequires() : null;
 
         List<FieldHolder> required = new ArrayList<>();
-        required.addAll(getRequiredHolders("Mandatory"));
+        required.addAll(getRequiredHolders(FieldRequirements.MANDATORY));
 
         if (requirement != null) {
             required.addAll(getRequiredHolders(requirement));
@@ -230,10 +259,41 @@ public class GattRequest {
     }
 
     List<FieldHolder> getRequiredHolders(String requirement) {
+        return getRequiredHolders(getRequirementMask(requirement));
+    }
+
+    List<FieldHolder> getRequiredHolders(long mask) {
         List<FieldHolder> result = new ArrayList<>();
-        for (FieldHolder holder : holders.values()) {
-            if (holder.getField().getRequirements().contains(requirement)) {
-                result.add(holder);
+        for (int i = 0; i < orderedHolders.length; i++) {
+            if ((requirementMasks[i] & mask) != 0) {
+                result.add(orderedHolders[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns a mask of a requirement, see {@link FieldRequirements#getMask(String)}.
+     * @param requirement requirement, e.g. C1
+     * @return requirement mask or 0 if none of the fields has this requirement
+     */
+    long getRequirementMask(String requirement) {
+        return requirements.getMask(requirement);
+    }
+
+    /**
+     * Returns field holders which are required by any of the given requirements, but their values are not set.
+     * @param mask requirements mask
+     * @return field holders which are not set, empty list if all required fields are set
+     */
+    List<FieldHolder> getUnsetHolders(long mask) {
+        List<FieldHolder> result = Collections.emptyList();
+        for (int i = 0; i < orderedHolders.length; i++) {
+            if ((requirementMasks[i] & mask) != 0 && !orderedHolders[i].isValueSet()) {
+                if (result.isEmpty()) {
+                    result = new ArrayList<>();
+                }
+                result.add(orderedHolders[i]);
             }
         }
         return result;
@@ -253,6 +313,14 @@ public class GattRequest {
         }
     }
 
+    private long[] getRequirementMasks() {
+        long[] masks = new long[orderedHolders.length];
+        for (int i = 0; i < orderedHolders.length; i++) {
+            masks[i] = requirements.getMask(orderedHolders[i].getField());
+        }
+        return masks;
+    }
+
     private FieldHolder findOpCodesField() {
         return holders.values().stream().filter(field -> FlagUtils.isOpCodesField(field.getField()))
                 .findFirst().orElse(null);
@@ -20,6 +20,9 @@ package org.sputnikdev.bluetooth.gattparser;
  * #L%
  */
 
+import org.sputnikdev.bluetooth.gattparser.spec.Field;
+import org.sputnikdev.bluetooth.gattparser.spec.FieldScale;
+
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashMap;
@@ -29,23 +32,45 @@ import java.util.Set;
 /**
  * Represents result of Bluetooth GATT characteristic deserialization. Defines some useful methods for accessing
  * deserialized field values in a user-friendly manner.
+ * <br>Responses of characteristics resolved by {@link BluetoothGattParser#bind(String)} are array-backed:
+ * values are stored as primitives in slots addressed by field indexes
+ * (see {@link CharacteristicHandle#getFieldIndex(String)}), field holders are created only when requested.
+ * <br>A response is not changed after it has been returned by a parser (apart from {@link MutableGattResponse})
+ * and can be read by multiple threads.
  *
  * @author Vlad Kolotov
  */
 public class GattResponse {
 
-    private final LinkedHashMap<String, FieldHolder> holders;
+    // the content is set while the response is filled by a parser, only MutableGattResponse replaces it afterwards
+    LinkedHashMap<String, FieldHolder> holders;
+
+    // array-backed response: values (floating point numbers as raw bits) and their presence mask
+    CharacteristicLayout layout;
+    long[] values;
+    Object[] objects;
+    long present;
+
+    // field holders of an array-backed response are created on demand by readers, guarded by this response
+    FieldHolder[] slotHolders;
+    LinkedHashMap<String, FieldHolder> slotMap;
 
     GattResponse(LinkedHashMap<String, FieldHolder> holders) {
         this.holders = holders;
     }
 
+    GattResponse(CharacteristicLayout layout) {
+        this.layout = layout;
+        values = new long[layout.getSlotCount()];
+        objects = layout.hasObjectSlots() ? new Object[layout.getSlotCount()] : null;
+    }
+
     /**
      * Returns field holders in this response as a Map (field name -&gt; field holder).
      * @return field holders
      */
     public Map<String, FieldHolder> getHolders() {
-        return Collections.unmodifiableMap(holders);
+        return Collections.unmodifiableMap(getMap());
     }
 
     /**
@@ -53,7 +78,7 @@ public class GattResponse {
      * @return a list of field names in this response
      */
     public Set<String> getFieldNames() {
-        return holders.keySet();
+        return getMap().keySet();
     }
 
     /**
@@ -61,7 +86,7 @@ public class GattResponse {
      * @return a list of field holders in this response
      */
     public Collection<FieldHolder> getFieldHolders() {
-        return holders.values();
+        return getMap().values();
     }
 
     /**
@@ -70,7 +95,85 @@ public class GattResponse {
      * @return a field holder
      */
     public FieldHolder get(String fieldName) {
-        return holders.get(fieldName);
+        if (holders != null) {
+            return holders.get(fieldName);
+        }
+        return get(layout.getSlot(fieldName));
+    }
+
+    /**
+     * Returns a field holder by its field index, see {@link CharacteristicHandle#getFieldIndex(String)}.
+     * @param index field index
+     * @return a field holder or null if the field is not present in this response
+     */
+    public FieldHolder get(int index) {
+        if (!contains(index)) {
+            return null;
+        }
+        synchronized (this) {
+            return getSlotHolder(index);
+        }
+    }
+
+    private FieldHolder getSlotHolder(int index) {
+        if (slotHolders == null) {
+            slotHolders = new FieldHolder[values.length];
+        }
+        if (slotHolders[index] == null) {
+            slotHolders[index] = newHolder(layout.getSlotField(index), getRawValue(index));
+        }
+        return slotHolders[index];
+    }
+
+    /**
+     * Returns a long representation of a field by its field index (see {@link CharacteristicHandle#getFieldIndex}),
+     * the same as {@link FieldHolder#getAsLong(long)}, but does not create a field holder for integer fields.
+     * @param index field index
+     * @param def the default value to be returned if the field is not present or cannot be converted to a long
+     * @return a long representation of the field
+     */
+    public long getLong(int index, long def) {
+        if (!contains(index)) {
+            return def;
+        }
+        int type = layout.getSlotType(index);
+        if (type != CharacteristicLayout.SLOT_INT && type != CharacteristicLayout.SLOT_LONG) {
+            return get(index).getAsLong(def);
+        }
+        FieldScale scale = layout.getSlotField(index).getScale();
+        if (!scale.isIdentity()) {
+            return Math.round(scale.scale(values[index]));
+        }
+        return values[index];
+    }
+
+    /**
+     * Returns a double representation of a field by its field index (see {@link CharacteristicHandle#getFieldIndex}),
+     * the same as {@link FieldHolder#getAsDouble(double)}, but does not create a field holder for number fields.
+     * @param index field index
+     * @param def the default value to be returned if the field is not present or cannot be converted to a double
+     * @return a double representation of the field
+     */
+    public double getDouble(int index, double def) {
+        if (!contains(index)) {
+            return def;
+        }
+        double value;
+        switch (layout.getSlotType(index)) {
+            case CharacteristicLayout.SLOT_INT:
+            case CharacteristicLayout.SLOT_LONG:
+                value = values[index];
+                break;
+            case CharacteristicLayout.SLOT_FLOAT:
+                value = Float.intBitsToFloat((int) values[index]);
+                break;
+            case CharacteristicLayout.SLOT_DOUBLE:
+                value = Double.longBitsToDouble(values[index]);
+                break;
+            default:
+                return get(index).getAsDouble(def);
+        }
+        return layout.getSlotField(index).getScale().scale(value);
     }
 
     /**
@@ -78,7 +181,7 @@ public class GattResponse {
      * @return the number of fields in this response
      */
     public int getSize() {
-        return holders.size();
+        return holders != null ? holders.size() : Long.bitCount(present);
     }
 
     /**
@@ -87,7 +190,82 @@ public class GattResponse {
      * @return true if a requested fields exists, false otherwise
      */
     public boolean contains(String fieldName) {
-        return holders.containsKey(fieldName);
+        if (holders != null) {
+            return holders.containsKey(fieldName);
+        }
+        return contains(layout.getSlot(fieldName));
+    }
+
+    /**
+     * Checks whether a field by its index exists in this response, see {@link CharacteristicHandle#getFieldIndex}.
+     * @param index field index
+     * @return true if a requested fields exists, false otherwise
+     */
+    public boolean contains(int index) {
+        return layout != null && index >= 0 && index < values.length && (present & 1L << index) != 0;
+    }
+
+    CharacteristicLayout getLayout() {
+        return layout;
+    }
+
+    long getSlotValue(int index) {
+        return values[index];
+    }
+
+    Object getSlotObject(int index) {
+        return objects[index];
+    }
+
+    /**
+     * Sets a value of a slot, used by parsers while the response is being filled.
+     */
+    void setLong(int index, long value) {
+        values[index] = value;
+        present |= 1L << index;
+    }
+
+    /**
+     * Sets an object value of a slot, used by parsers while the response is being filled.
+     */
+    void setObject(int index, Object value) {
+        objects[index] = value;
+        present |= 1L << index;
+    }
+
+    private Object getRawValue(int index) {
+        long value = values[index];
+        switch (layout.getSlotType(index)) {
+            case CharacteristicLayout.SLOT_BOOLEAN: return value != 0;
+            case CharacteristicLayout.SLOT_INT: return (int) value;
+            case CharacteristicLayout.SLOT_LONG: return value;
+            case CharacteristicLayout.SLOT_FLOAT: return Float.intBitsToFloat((int) value);
+            case CharacteristicLayout.SLOT_DOUBLE: return Double.longBitsToDouble(value);
+            default: return objects[index];
+        }
+    }
+
+    FieldHolder newHolder(Field field, Object value) {
+        return new FieldHolder(field, value);
+    }
+
+    LinkedHashMap<String, FieldHolder> getMap() {
+        if (holders != null) {
+            return holders;
+        }
+        synchronized (this) {
+            if (slotMap == null) {
+                // slots are ordered the same way as fields are parsed
+                LinkedHashMap<String, FieldHolder> map = new LinkedHashMap<>();
+                for (int index = 0; index < values.length; index++) {
+                    if (contains(index)) {
+                        map.put(layout.getSlotField(index).getName(), getSlotHolder(index));
+                    }
+                }
+                slotMap = map;
+            }
+            return slotMap;
+        }
     }
 
 }
@@ -0,0 +1,342 @@
+package org.sputnikdev.bluetooth.gattparser;
+
+/*-
+ * #%L
+ * org.sputnikdev:bluetooth-gatt-parser
+ * %%
+ * Copyright (C) 2017 Sputnik Dev
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.sputnikdev.bluetooth.gattparser.spec.Field;
+import org.sputnikdev.bluetooth.gattparser.spec.FieldScale;
+
+import java.util.Arrays;
+
+/**
+ * A columnar sink for batch parsing of values of a characteristic resolved by {@link BluetoothGattParser#bind(String)},
+ * see {@link CharacteristicHandle#parseBatch(byte[][], GattResponseConsumer)}. Parsed values are appended as rows
+ * to per-field primitive arrays, so that they can be handed to a columnar writer without creating field holders:
+ * <ul>
+ * <li>integer fields: long[] of raw (not scaled) values</li>
+ * <li>floating point fields: double[] of raw (not scaled) values</li>
+ * <li>boolean fields: a bitmap (long[], bit i of word i / 64 is the value of row i)</li>
+ * <li>other fields (strings, structs, big numbers): Object[]</li>
+ * </ul>
+ * Every field also has a validity bitmap which tells whether the field is present in a row, e.g. fields that are
+ * optional according to the Flags field. Values that cannot be parsed are appended as rows without valid fields,
+ * so that rows always correspond to values of the batch.
+ * <br>Column arrays grow as rows are appended, hence they can be longer than the number of rows.
+ * Not threadsafe.
+ */
+public final class GattResponseColumns implements GattResponseConsumer {
+
+    private final CharacteristicLayout layout;
+    private final long[][] longs;
+    private final double[][] doubles;
+    private final Object[][] objects;
+    private final long[][] validity;
+    private int capacity;
+    private int rows;
+
+    GattResponseColumns(CharacteristicLayout layout, int capacity) {
+        this.layout = layout;
+        this.capacity = Math.max(capacity, 1);
+        int fields = layout.getSlotCount();
+        longs = new long[fields][];
+        doubles = new double[fields][];
+        objects = new Object[fields][];
+        validity = new long[fields][];
+        int words = getWords(this.capacity);
+        for (int index = 0; index < fields; index++) {
+            switch (layout.getSlotType(index)) {
+                case CharacteristicLayout.SLOT_BOOLEAN:
+                    longs[index] = new long[words];
+                    break;
+                case CharacteristicLayout.SLOT_INT:
+                case CharacteristicLayout.SLOT_LONG:
+                    longs[index] = new long[this.capacity];
+                    break;
+                case CharacteristicLayout.SLOT_FLOAT:
+                case CharacteristicLayout.SLOT_DOUBLE:
+                    doubles[index] = new double[this.capacity];
+                    break;
+                default:
+                    objects[index] = new Object[this.capacity];
+            }
+            validity[index] = new long[words];
+        }
+    }
+
+    /**
+     * Returns the number of fields (columns), fields are addressed by their indexes,
+     * see {@link CharacteristicHandle#getFieldIndex(String)}.
+     * @return the number of fields
+     */
+    public int getFieldCount() {
+        return layout.getSlotCount();
+    }
+
+    /**
+     * Returns a field specification by its index.
+     * @param index field index
+     * @return field specification
+     */
+    public Field getField(int index) {
+        return layout.getSlotField(index);
+    }
+
+    /**
+     * Returns the number of rows.
+     * @return the number of rows
+     */
+    public int getRowCount() {
+        return rows;
+    }
+
+    /**
+     * Removes all rows, column arrays are reused.
+     */
+    public void clear() {
+        for (int index = 0; index < validity.length; index++) {
+            Arrays.fill(validity[index], 0);
+            if (layout.getSlotType(index) == CharacteristicLayout.SLOT_BOOLEAN) {
+                Arrays.fill(longs[index], 0);
+            } else if (objects[index] != null) {
+                Arrays.fill(objects[index], null);
+            }
+        }
+        rows = 0;
+    }
+
+    /**
+     * Returns raw values of an integer field.
+     * @param index field index
+     * @return raw values, one per row
+     * @throws IllegalStateException if the field is not an integer field
+     */
+    public long[] getLongs(int index) {
+        int type = layout.getSlotType(index);
+        if (type != CharacteristicLayout.SLOT_INT && type != CharacteristicLayout.SLOT_LONG) {
+            throw new IllegalStateException("Not an integer field: " + getField(index).getName());
+        }
+        return longs[index];
+    }
+
+    /**
+     * Returns raw values of a floating point field.
+     * @param index field index
+     * @return raw values, one per row
+     * @throws IllegalStateException if the field is not a floating point field
+     */
+    public double[] getDoubles(int index) {
+        if (doubles[index] == null) {
+            throw new IllegalStateException("Not a floating point field: " + getField(index).getName());
+        }
+        return doubles[index];
+    }
+
+    /**
+     * Returns values of a boolean field as a bitmap.
+     * @param index field index
+     * @return bitmap of values
+     * @throws IllegalStateException if the field is not a boolean field
+     */
+    public long[] getBooleans(int index) {
+        if (layout.getSlotType(index) != CharacteristicLayout.SLOT_BOOLEAN) {
+            throw new IllegalStateException("Not a boolean field: " + getField(index).getName());
+        }
+        return longs[index];
+    }
+
+    /**
+     * Returns values of a field which cannot be represented by a primitive, e.g. strings and structs.
+     * @param index field index
+     * @return values, one per row
+     * @throws IllegalStateException if the field is represented by a primitive
+     */
+    public Object[] getObjects(int index) {
+        if (objects[index] == null) {
+            throw new IllegalStateException("Not an object field: " + getField(index).getName());
+        }
+        return objects[index];
+    }
+
+    /**
+     * Returns a bitmap which tells whether a field is present in rows.
+     * @param index field index
+     * @return validity bitmap
+     */
+    public long[] getValidity(int index) {
+        return validity[index];
+    }
+
+    /**
+     * Checks whether a field is present in a row.
+     * @param index field index
+     * @param row row index
+     * @return true if the field is present in the row
+     */
+    public boolean isValid(int index, int row) {
+        checkRow(row);
+        return isSet(validity[index], row);
+    }
+
+    /**
+     * Returns a long representation of a field in a row, the same as {@link GattResponse#getLong(int, long)}.
+     * @param index field index
+     * @param row row index
+     * @param def the default value to be returned if the field is not present or is not a number
+     * @return a long representation of the field (scaled)
+     */
+    public long getLong(int index, int row, long def) {
+        if (!isValid(index, row) || longs[index] == null) {
+            return def;
+        }
+        if (layout.getSlotType(index) == CharacteristicLayout.SLOT_BOOLEAN) {
+            return def;
+        }
+        FieldScale scale = getField(index).getScale();
+        if (!scale.isIdentity()) {
+            return Math.round(scale.scale(longs[index][row]));
+        }
+        return longs[index][row];
+    }
+
+    /**
+     * Returns a double representation of a field in a row, the same as {@link GattResponse#getDouble(int, double)}.
+     * @param index field index
+     * @param row row index
+     * @param def the default value to be returned if the field is not present or is not a number
+     * @return a double representation of the field (scaled)
+     */
+    public double getDouble(int index, int row, double def) {
+        if (!isValid(index, row)) {
+            return def;
+        }
+        double value;
+        if (doubles[index] != null) {
+            value = doubles[index][row];
+        } else if (longs[index] != null && layout.getSlotType(index) != CharacteristicLayout.SLOT_BOOLEAN) {
+            value = longs[index][row];
+        } else {
+            return def;
+        }
+        return getField(index).getScale().scale(value);
+    }
+
+    /**
+     * Returns a value of a boolean field in a row.
+     * @param index field index
+     * @param row row index
+     * @return the value, false if the field is not present in the row
+     * @throws IllegalStateException if the field is not a boolean field
+     */
+    public boolean getBoolean(int index, int row) {
+        return isValid(index, row) && isSet(getBooleans(index), row);
+    }
+
+    /**
+     * Appends a parsed value as a row.
+     * @param index index of the value in the batch
+     * @param response parsed characteristic fields
+     * @throws IllegalArgumentException if the response does not belong to the characteristic of the columns
+     */
+    @Override
+    public void accept(int index, GattResponse response) {
+        if (response.getLayout() != layout) {
+            throw new IllegalArgumentException("Response does not belong to the characteristic of the columns");
+        }
+        int row = appendRow();
+        for (int slot = 0; slot < validity.length; slot++) {
+            boolean valid = response.contains(slot);
+            long value = valid ? response.getSlotValue(slot) : 0;
+            if (valid) {
+                validity[slot][row >>> 6] |= 1L << row;
+            }
+            switch (layout.getSlotType(slot)) {
+                case CharacteristicLayout.SLOT_BOOLEAN:
+                    if (value != 0) {
+                        longs[slot][row >>> 6] |= 1L << row;
+                    }
+                    break;
+                case CharacteristicLayout.SLOT_INT:
+                case CharacteristicLayout.SLOT_LONG:
+                    longs[slot][row] = value;
+                    break;
+                case CharacteristicLayout.SLOT_FLOAT:
+                    doubles[slot][row] = Float.intBitsToFloat((int) value);
+                    break;
+                case CharacteristicLayout.SLOT_DOUBLE:
+                    doubles[slot][row] = Double.longBitsToDouble(value);
+                    break;
+                default:
+                    objects[slot][row] = valid ? response.getSlotObject(slot) : null;
+            }
+        }
+    }
+
+    /**
+     * Appends a row without valid fields for a value that cannot be parsed.
+     * @param index index of the value in the batch
+     * @param error parsing error
+     */
+    @Override
+    public void onError(int index, CharacteristicFormatException error) {
+        int row = appendRow();
+        for (int slot = 0; slot < validity.length; slot++) {
+            if (longs[slot] != null && layout.getSlotType(slot) != CharacteristicLayout.SLOT_BOOLEAN) {
+                longs[slot][row] = 0;
+            } else if (doubles[slot] != null) {
+                doubles[slot][row] = 0;
+            }
+        }
+    }
+
+    private int appendRow() {
+        if (rows == capacity) {
+            capacity *= 2;
+            int words = getWords(capacity);
+            for (int index = 0; index < validity.length; index++) {
+                validity[index] = Arrays.copyOf(validity[index], words);
+                if (layout.getSlotType(index) == CharacteristicLayout.SLOT_BOOLEAN) {
+                    longs[index] = Arrays.copyOf(longs[index], words);
+                } else if (longs[index] != null) {
+                    longs[index] = Arrays.copyOf(longs[index], capacity);
+                } else if (doubles[index] != null) {
+                    doubles[index] = Arrays.copyOf(doubles[index], capacity);
+                } else {
+                    objects[index] = Arrays.copyOf(objects[index], capacity);
+                }
+            }
+        }
+        return rows++;
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= rows) {
+            throw new IndexOutOfBoundsException("Row: " + row + ", rows: " + rows);
+        }
+    }
+
+    private static boolean isSet(long[] bitmap, int row) {
+        return (bitmap[row >>> 6] & 1L << row) != 0;
+    }
+
+    private static int getWords(int capacity) {
+        return (capacity + 63) >>> 6;
+    }
+
+}
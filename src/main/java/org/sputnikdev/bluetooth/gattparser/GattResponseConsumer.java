@@ -0,0 +1,50 @@
+package org.sputnikdev.bluetooth.gattparser;
+
+/*-
+ * #%L
+ * org.sputnikdev:bluetooth-gatt-parser
+ * %%
+ * Copyright (C) 2017 Sputnik Dev
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * A consumer of characteristic values parsed in batches, see
+ * {@link BluetoothGattParser#parseBatch(CharacteristicHandle, byte[][], GattResponseConsumer)}.
+ */
+@FunctionalInterface
+public interface GattResponseConsumer {
+
+    /**
+     * Accepts a parsed characteristic value. The response is reused for subsequent values of the batch,
+     * therefore it must not be kept after this method returns.
+     *
+     * @param index index of the value in the batch
+     * @param response parsed characteristic fields
+     */
+    void accept(int index, GattResponse response);
+
+    /**
+     * Handles a characteristic value of the batch that cannot be parsed. The default implementation rethrows
+     * the exception so that the rest of the batch is not parsed.
+     *
+     * @param index index of the value in the batch
+     * @param error parsing error
+     */
+    default void onError(int index, CharacteristicFormatException error) {
+        throw error;
+    }
+
+}
@@ -22,6 +22,7 @@ package org.sputnikdev.bluetooth.gattparser;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.sputnikdev.bluetooth.gattparser.num.BitUtils;
 import org.sputnikdev.bluetooth.gattparser.num.FloatingPointNumberFormatter;
 import org.sputnikdev.bluetooth.gattparser.num.RealNumberFormatter;
 import org.sputnikdev.bluetooth.gattparser.spec.BluetoothGattSpecificationReader;
@@ -29,7 +30,6 @@ import org.sputnikdev.bluetooth.gattparser.spec.Characteristic;
 import org.sputnikdev.bluetooth.gattparser.spec.Field;
 import org.sputnikdev.bluetooth.gattparser.spec.FieldFormat;
 import org.sputnikdev.bluetooth.gattparser.spec.FieldType;
-import org.sputnikdev.bluetooth.gattparser.spec.FlagUtils;
 
 import java.io.UnsupportedEncodingException;
 import java.math.BigInteger;
@@ -37,8 +37,8 @@ import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Collection;
 import java.util.LinkedHashMap;
-import java.util.List;
-import java.util.Set;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * A generic implementation of a GATT characteristic parser capable of reading and writing standard/approved
@@ -52,80 +52,184 @@ import java.util.Set;
  */
 public class GenericCharacteristicParser implements CharacteristicParser {
 
+    // returned by layout execution when an error has been reported to a parse result
+    private static final int FAILED = Integer.MIN_VALUE;
+
+    private static final ValueSink<LinkedHashMap<String, FieldHolder>> HOLDERS = new HolderSink();
+    private static final ValueSink<GattResponse> SLOTS = new SlotSink();
+
     private final Logger logger = LoggerFactory.getLogger(GenericCharacteristicParser.class);
     private final BluetoothGattSpecificationReader reader;
+    private final Map<Characteristic, CharacteristicLayout> layouts = new ConcurrentHashMap<>();
 
     GenericCharacteristicParser(BluetoothGattSpecificationReader reader) {
         this.reader = reader;
     }
 
+    /**
+     * Clears compiled characteristic layouts, e.g. when specifications get reloaded/extended.
+     */
+    void clearLayouts() {
+        layouts.clear();
+    }
+
+    CharacteristicLayout getLayout(Characteristic characteristic) {
+        return layouts.computeIfAbsent(characteristic, c -> CharacteristicLayout.compile(c, reader));
+    }
+
     @Override
     public LinkedHashMap<String, FieldHolder> parse(Characteristic characteristic, byte[] raw)
             throws CharacteristicFormatException {
-        LinkedHashMap<String, FieldHolder> result = new LinkedHashMap<>();
+        return parse(characteristic, raw, 0, raw.length);
+    }
 
+    @Override
+    public LinkedHashMap<String, FieldHolder> parse(Characteristic characteristic, byte[] raw, int offset, int length)
+            throws CharacteristicFormatException {
         validate(characteristic);
 
-        int offset = 0;
-        List<Field> fields = characteristic.getValue().getFields();
-        Set<String> requires = FlagUtils.getReadFlags(fields, raw);
-        requires.add("Mandatory");
-        for (Field field : fields) {
-            List<String> requirements = field.getRequirements();
-            if (requirements != null && !requirements.isEmpty() && !requires.containsAll(requirements)) {
-                // skipping field as per requirement in the Flags field
-                continue;
-            }
-            if (field.getReference() != null) {
-                LinkedHashMap<String, FieldHolder> subCharacteristic =
-                        parse(reader.getCharacteristicByType(field.getReference().trim()), getRemainder(raw, offset));
-                result.putAll(subCharacteristic);
-                int size = getSize(subCharacteristic.values());
-                if (size == FieldFormat.FULL_SIZE) {
-                    break;
+        return parse(getLayout(characteristic), raw, offset, length);
+    }
+
+    /**
+     * Parses a characteristic value with a compiled layout. The characteristic is not validated,
+     * see {@link CharacteristicHandle}.
+     * @param layout compiled characteristic layout
+     * @param raw data array
+     * @param offset index of the first byte of the characteristic value
+     * @param length length of the characteristic value
+     * @return parsed fields
+     */
+    LinkedHashMap<String, FieldHolder> parse(CharacteristicLayout layout, byte[] raw, int offset, int length) {
+        checkRegion(raw, offset, length);
+        LinkedHashMap<String, FieldHolder> result = new LinkedHashMap<>();
+        parse(layout, raw, offset * 8, (offset + length) * 8, HOLDERS, result, 0, null);
+        return result;
+    }
+
+    /**
+     * Parses a characteristic value with a compiled layout without throwing exceptions for malformed values,
+     * errors are recorded into the given result instead. The characteristic is not validated,
+     * see {@link CharacteristicHandle}.
+     * @param layout compiled characteristic layout
+     * @param raw data array
+     * @param offset index of the first byte of the characteristic value
+     * @param length length of the characteristic value
+     * @param result parse result, its response is filled with parsed fields
+     * @return true if the value has been parsed
+     */
+    boolean tryParse(CharacteristicLayout layout, byte[] raw, int offset, int length, ParseResult result) {
+        checkRegion(raw, offset, length);
+        MutableGattResponse response = result.getResponse();
+        try {
+            if (layout.isIndexed()) {
+                response.reset(layout);
+                if (parse(layout, raw, offset * 8, (offset + length) * 8, SLOTS, response, 0, result) != FAILED) {
+                    return true;
                 }
-                offset += size;
             } else {
-                if (FlagUtils.isFlagsField(field)) {
-                    // skipping flags field
-                    offset += field.getFormat().getSize();
-                    continue;
-                }
-                FieldFormat fieldFormat = field.getFormat();
-                result.put(field.getName(), parseField(field, raw, offset));
-                if (fieldFormat.getSize() == FieldFormat.FULL_SIZE) {
-                    // full size field, e.g. a string
-                    break;
+                LinkedHashMap<String, FieldHolder> holders = new LinkedHashMap<>();
+                if (parse(layout, raw, offset * 8, (offset + length) * 8, HOLDERS, holders, 0, result) != FAILED) {
+                    response.reset(holders);
+                    return true;
                 }
-                offset += field.getFormat().getSize();
             }
+        } catch (RuntimeException ex) {
+            // errors of formatters, e.g. unsupported sizes of numbers
+            result.fail(ParseResult.INVALID_VALUE, null, -1, -1);
+        }
+        response.clear();
+        return false;
+    }
+
+    /**
+     * Parses a characteristic value with a compiled layout into an array-backed response.
+     * The characteristic is not validated, see {@link CharacteristicHandle}.
+     * @param layout compiled characteristic layout, must be indexed (see {@link CharacteristicLayout#isIndexed()})
+     * @param raw data array
+     * @param offset index of the first byte of the characteristic value
+     * @param length length of the characteristic value
+     * @return parsed fields
+     */
+    GattResponse parseResponse(CharacteristicLayout layout, byte[] raw, int offset, int length) {
+        checkRegion(raw, offset, length);
+        GattResponse response = new GattResponse(layout);
+        parse(layout, raw, offset * 8, (offset + length) * 8, SLOTS, response, 0, null);
+        return response;
+    }
+
+    /**
+     * Parses a characteristic value with a compiled layout into an existing array-backed response,
+     * see {@link #parseResponse(CharacteristicLayout, byte[], int, int)}. The response is cleared before parsing
+     * and also if parsing fails.
+     * @param layout compiled characteristic layout, must be indexed (see {@link CharacteristicLayout#isIndexed()})
+     * @param raw data array
+     * @param offset index of the first byte of the characteristic value
+     * @param length length of the characteristic value
+     * @param response target response
+     */
+    void parseInto(CharacteristicLayout layout, byte[] raw, int offset, int length, MutableGattResponse response) {
+        checkRegion(raw, offset, length);
+        response.reset(layout);
+        try {
+            parse(layout, raw, offset * 8, (offset + length) * 8, SLOTS, response, 0, null);
+        } catch (RuntimeException ex) {
+            response.reset(layout);
+            throw ex;
         }
-        return result;
     }
 
     @Override
     public byte[] serialize(Collection<FieldHolder> fieldHolders) throws CharacteristicFormatException {
-        BitSet bitSet = new BitSet();
-        int offset = 0;
+        FieldValues values = getFieldValues(fieldHolders);
+        byte[] data = new byte[(values.size + 7) / 8];
+        write(values, data, 0);
+        // the value is truncated to the default ATT MTU (23 bytes) minus the ATT header (3 bytes)
+        int length = Math.min(getLength(data, 0, data.length), BluetoothGattParser.getMaxWriteLength(
+                BluetoothGattParser.DEFAULT_ATT_MTU));
+        return length == data.length ? data : Arrays.copyOf(data, length);
+    }
 
-        for (FieldHolder holder : fieldHolders) {
-            if (holder.isValueSet()) {
-                int size = holder.getField().getFormat().getSize();
-                BitSet serialized = serialize(holder);
-                if (size == FieldFormat.FULL_SIZE) {
-                    size = serialized.length();
-                }
-                concat(bitSet, serialized, offset, size);
-                offset += size;
-            }
+    @Override
+    public int serialize(Collection<FieldHolder> fieldHolders, byte[] buffer, int offset, int maxLength)
+            throws CharacteristicFormatException {
+        if (offset < 0 || maxLength < 0 || offset + maxLength > buffer.length) {
+            throw new IndexOutOfBoundsException("Invalid region: " + offset + ", " + maxLength);
+        }
+        FieldValues values = getFieldValues(fieldHolders);
+        int size = (values.size + 7) / 8;
+        byte[] data = buffer;
+        int start = offset;
+        if (size > maxLength) {
+            // the value can still fit if its trailing bytes are zeros
+            data = new byte[size];
+            start = 0;
+        } else {
+            Arrays.fill(buffer, offset, offset + size, (byte) 0);
+        }
+        write(values, data, start * 8);
+        int length = getLength(data, start, size);
+        if (length > maxLength) {
+            throw new CharacteristicOverflowException(length, maxLength);
+        }
+        if (data != buffer) {
+            System.arraycopy(data, 0, buffer, offset, length);
+        } else if (size == 0) {
+            buffer[offset] = 0;
         }
-        // BitSet does not keep 0, fields could be set all to 0, resulting bitSet to be of 0 length,
-        // however data array must not be empty, hence forcing to return an array with first byte of 0 value
-        byte[] data = bitSet.isEmpty() ? new byte[] {0} : bitSet.toByteArray();
-        return data.length > 20 ? Arrays.copyOf(bitSet.toByteArray(), 20) : data;
+        return length;
     }
 
-    Object parse(Field field, byte[] raw, int offset) {
+    /**
+     * Parses a field value.
+     * @param field field specification
+     * @param raw data array
+     * @param offset index of the first bit of the field in the data array
+     * @param limit index of the first bit after the last bit of the characteristic value in the data array,
+     *              full size fields (e.g. strings) are read till that index
+     * @return parsed value
+     */
+    Object parse(Field field, byte[] raw, int offset, int limit) {
         FieldFormat fieldFormat = field.getFormat();
         int size = fieldFormat.getSize();
         switch (fieldFormat.getType()) {
@@ -136,63 +240,208 @@ public class GenericCharacteristicParser implements CharacteristicParser {
                     BluetoothGattParserFactory.getIEEE754FloatingPointNumberFormatter(), raw, offset, size);
             case FLOAT_IEE11073: return deserializeFloat(
                     BluetoothGattParserFactory.getIEEE11073FloatingPointNumberFormatter(), raw, offset, size);
-            case UTF8S: return deserializeString(raw, offset, "UTF-8");
-            case UTF16S: return deserializeString(raw, offset, "UTF-16");
-            case STRUCT: return BitSet.valueOf(raw).get(offset, offset + raw.length * 8).toByteArray();
+            case UTF8S: return deserializeString(raw, offset, limit, "UTF-8");
+            case UTF16S: return deserializeString(raw, offset, limit, "UTF-16");
+            case STRUCT: return getBytes(raw, offset, limit);
             default:
                 throw new IllegalStateException("Unsupported field format: " + fieldFormat.getType());
         }
     }
 
-    BitSet serialize(boolean value) {
-        BitSet bitSet = new BitSet();
-        if (value) {
-            bitSet.set(0);
+    private FieldValues getFieldValues(Collection<FieldHolder> fieldHolders) {
+        FieldValues values = new FieldValues(fieldHolders.toArray(new FieldHolder[fieldHolders.size()]));
+        // sizes of all fields, strings and structs are encoded upfront as their size depends on value
+        for (int i = 0; i < values.holders.length; i++) {
+            FieldHolder holder = values.holders[i];
+            if (holder.isValueSet()) {
+                FieldFormat fieldFormat = holder.getField().getFormat();
+                int size = fieldFormat.getSize();
+                FieldType type = fieldFormat.getType();
+                if (type == FieldType.UTF8S || type == FieldType.UTF16S || type == FieldType.STRUCT) {
+                    values.bytes[i] = type == FieldType.STRUCT ? (byte[]) holder.getRawValue()
+                            : serializeString(holder, type == FieldType.UTF8S ? "UTF-8" : "UTF-16");
+                    if (size == FieldFormat.FULL_SIZE) {
+                        // full size fields take all bits up to the last set bit
+                        size = getBitLength(values.bytes[i]);
+                    }
+                } else if (size == FieldFormat.FULL_SIZE) {
+                    throw new IllegalStateException("Unsupported field format: " + type);
+                }
+                values.formats[i] = fieldFormat;
+                values.sizes[i] = size;
+                values.size += size;
+            }
         }
-        return bitSet;
+        return values;
     }
 
-    void concat(BitSet target, BitSet source, int offset, int size) {
-        for (int i = 0; i < size; i++) {
-            if (source.get(i)) {
-                target.set(offset + i);
+    private void write(FieldValues values, byte[] data, int offset) {
+        // the array must be zeroed, fields are written straight into it
+        for (int i = 0; i < values.holders.length; i++) {
+            if (values.formats[i] != null) {
+                write(values.holders[i], values.formats[i], values.bytes[i], data, offset, values.sizes[i]);
+                offset += values.sizes[i];
             }
         }
     }
 
-    private BitSet serialize(FieldHolder holder) {
-        FieldFormat fieldFormat = holder.getField().getFormat();
+    private void write(FieldHolder holder, FieldFormat fieldFormat, byte[] value, byte[] data, int offset,
+                       int size) {
         switch (fieldFormat.getType()) {
-            case BOOLEAN: return serialize(holder.getBoolean(null));
+            case BOOLEAN:
+                if (holder.getBoolean(null)) {
+                    BitUtils.writeBits(data, offset, 1, 1);
+                }
+                break;
             case UINT:
-            case SINT: return serializeReal(holder);
-            case FLOAT_IEE754: return serializeFloat(
-                    BluetoothGattParserFactory.getIEEE754FloatingPointNumberFormatter(), holder);
-            case FLOAT_IEE11073: return serializeFloat(
-                    BluetoothGattParserFactory.getIEEE11073FloatingPointNumberFormatter(), holder);
-            case UTF8S: return serializeString(holder, "UTF-8");
-            case UTF16S: return serializeString(holder, "UTF-16");
-            case STRUCT: return BitSet.valueOf((byte[]) holder.getRawValue());
+                writeReal(holder, data, offset, size, false);
+                break;
+            case SINT:
+                writeReal(holder, data, offset, size, true);
+                break;
+            case FLOAT_IEE754:
+                writeFloat(BluetoothGattParserFactory.getIEEE754FloatingPointNumberFormatter(),
+                        holder, data, offset, size);
+                break;
+            case FLOAT_IEE11073:
+                writeFloat(BluetoothGattParserFactory.getIEEE11073FloatingPointNumberFormatter(),
+                        holder, data, offset, size);
+                break;
+            case UTF8S:
+            case UTF16S:
+            case STRUCT:
+                BitUtils.writeBytes(data, offset, value, size);
+                break;
             default:
                 throw new IllegalStateException("Unsupported field format: " + fieldFormat.getType());
         }
     }
 
+    /**
+     * Executes a compiled layout putting parsed values into the target with the given sink. The characteristic value
+     * is read from a window of the data array: from the "start" bit (inclusive) to the "limit" bit (exclusive).
+     * Malformed values are reported to the parse result if it is given, otherwise an exception is thrown.
+     * @param base index of the first slot of the layout in an array-backed response
+     * @return total size of parsed fields (flags fields excluded), FULL_SIZE if a full size field has been parsed
+     *     or FAILED if an error has been reported to the parse result
+     */
+    private <T> int parse(CharacteristicLayout layout, byte[] raw, int start, int limit, ValueSink<T> sink, T target,
+                          int base, ParseResult error) {
+        long flags = layout.readFlags(raw, start, limit);
+        int offset = 0;
+        int parsed = 0;
+        for (int i = 0; i < layout.getFieldCount(); i++) {
+            if (!layout.isPresent(i, flags)) {
+                // skipping field as per requirement in the Flags field
+                continue;
+            }
+            int size;
+            switch (layout.getKind(i)) {
+                case CharacteristicLayout.FLAGS:
+                    // skipping flags field
+                    offset += layout.getSize(i);
+                    continue;
+                case CharacteristicLayout.REFERENCE:
+                    // the referenced characteristic starts at the current bit and takes whole bytes that are left
+                    int referenceLength = Math.max(0, (limit - start) / 8 - (offset + 7) / 8);
+                    size = sink.putReference(this, target, layout.getReference(i), raw, start + offset,
+                            start + offset + referenceLength * 8, base + layout.getSlot(i), error);
+                    if (size == FAILED) {
+                        return FAILED;
+                    }
+                    break;
+                case CharacteristicLayout.VALUE:
+                    if (error != null && !hasEnoughBits(layout.getSize(i), start + offset, limit)) {
+                        return fail(error, ParseResult.NOT_ENOUGH_DATA, layout, i, start + offset);
+                    }
+                    sink.putValue(this, target, layout, i, raw, start + offset, limit, base + layout.getSlot(i));
+                    size = layout.getSize(i);
+                    break;
+                default:
+                    if (error != null) {
+                        return fail(error, ParseResult.INVALID_CHARACTERISTIC, layout, i, start + offset);
+                    }
+                    throw new CharacteristicFormatException(layout.getError(i));
+            }
+            if (size == FieldFormat.FULL_SIZE) {
+                // full size field, e.g. a string
+                return FieldFormat.FULL_SIZE;
+            }
+            offset += size;
+            parsed += size;
+        }
+        return parsed;
+    }
+
+    private void parseSlot(CharacteristicLayout layout, int index, byte[] raw, int offset, int limit,
+                           GattResponse response, int slot) {
+        Field field = layout.getField(index);
+        FieldType type = layout.getFormat(index).getType();
+        int size = layout.getSize(index);
+        checkSize(field, size, offset, limit);
+        switch (layout.getSlotType(layout.getSlot(index))) {
+            case CharacteristicLayout.SLOT_BOOLEAN:
+                response.setLong(slot, BitUtils.readBit(raw, offset) ? 1 : 0);
+                break;
+            case CharacteristicLayout.SLOT_INT:
+            case CharacteristicLayout.SLOT_LONG:
+                response.setLong(slot, BluetoothGattParserFactory.getTwosComplementNumberFormatter()
+                        .readLong(raw, offset, size, type == FieldType.SINT));
+                break;
+            case CharacteristicLayout.SLOT_FLOAT:
+                FloatingPointNumberFormatter formatter = getFloatingPointNumberFormatter(type);
+                float value = size == 16 ? formatter.readSFloat(raw, offset) : formatter.readFloat(raw, offset);
+                response.setLong(slot, Float.floatToRawIntBits(value));
+                break;
+            case CharacteristicLayout.SLOT_DOUBLE:
+                response.setLong(slot,
+                        Double.doubleToRawLongBits(getFloatingPointNumberFormatter(type).readDouble(raw, offset)));
+                break;
+            default:
+                response.setObject(slot, parse(field, raw, offset, limit));
+        }
+    }
+
     private Boolean parseBoolean(byte[] raw, int offset) {
-        return BitSet.valueOf(raw).get(offset);
+        return BitUtils.readBit(raw, offset);
     }
 
-    private FieldHolder parseField(Field field, byte[] raw, int offset) {
-        FieldFormat fieldFormat = field.getFormat();
-        if (fieldFormat.getSize() != FieldFormat.FULL_SIZE && offset + fieldFormat.getSize() > raw.length * 8) {
+    private FieldHolder parseField(Field field, byte[] raw, int offset, int limit) {
+        checkSize(field, field.getFormat().getSize(), offset, limit);
+        Object value = parse(field, raw, offset, limit);
+        return new FieldHolder(field, value);
+
+    }
+
+    private static void checkRegion(byte[] raw, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > raw.length) {
+            throw new IndexOutOfBoundsException("Offset: " + offset + ", length: " + length
+                    + ", array length: " + raw.length);
+        }
+    }
+
+    private static boolean hasEnoughBits(int size, int offset, int limit) {
+        return size == FieldFormat.FULL_SIZE || offset + size <= limit;
+    }
+
+    private static int fail(ParseResult error, int code, CharacteristicLayout layout, int index, int position) {
+        error.fail(code, layout.getField(index), index, position);
+        return FAILED;
+    }
+
+    private void checkSize(Field field, int size, int offset, int limit) {
+        if (!hasEnoughBits(size, offset, limit)) {
             throw new CharacteristicFormatException(
                     "Not enough bits to parse field \"" + field.getName() + "\". "
-                            + "Data length: " + raw.length + " bytes. "
+                            + "Data length: " + (limit - offset + 7) / 8 + " bytes left. "
                             + "Looks like your device does not conform SIG specification.");
         }
-        Object value = parse(field, raw, offset);
-        return new FieldHolder(field, value);
+    }
 
+    private FloatingPointNumberFormatter getFloatingPointNumberFormatter(FieldType type) {
+        return type == FieldType.FLOAT_IEE754
+                ? BluetoothGattParserFactory.getIEEE754FloatingPointNumberFormatter()
+                : BluetoothGattParserFactory.getIEEE11073FloatingPointNumberFormatter();
     }
 
     private void validate(Characteristic characteristic) {
@@ -215,78 +464,177 @@ public class GenericCharacteristicParser implements CharacteristicParser {
         return size;
     }
 
-    private BitSet serializeReal(FieldHolder holder) {
+    private void writeReal(FieldHolder holder, byte[] data, int offset, int size, boolean signed) {
         RealNumberFormatter realNumberFormatter = BluetoothGattParserFactory.getTwosComplementNumberFormatter();
-        int size = holder.getField().getFormat().getSize();
-        boolean signed = holder.getField().getFormat().getType() == FieldType.SINT;
         if ((signed && size <= 32) || (!signed && size < 32)) {
-            return realNumberFormatter.serialize((Integer) holder.getRawValue(), size, signed);
+            realNumberFormatter.writeInt(data, offset, (Integer) holder.getRawValue(), size, signed);
         } else if ((signed && size <= 64) || (!signed && size < 64)) {
-            return realNumberFormatter.serialize((Long) holder.getRawValue(), size, signed);
+            realNumberFormatter.writeLong(data, offset, (Long) holder.getRawValue(), size, signed);
         } else {
-            return realNumberFormatter.serialize((BigInteger) holder.getRawValue(), size, signed);
+            realNumberFormatter.writeBigInteger(data, offset, (BigInteger) holder.getRawValue(), size, signed);
         }
     }
 
     private Object deserializeReal(byte[] raw, int offset, int size, boolean signed) {
         RealNumberFormatter realNumberFormatter = BluetoothGattParserFactory.getTwosComplementNumberFormatter();
-        int toIndex = offset + size;
         if ((signed && size <= 32) || (!signed && size < 32)) {
-            return realNumberFormatter.deserializeInteger(BitSet.valueOf(raw).get(offset, toIndex), size, signed);
+            return realNumberFormatter.readInt(raw, offset, size, signed);
         } else if ((signed && size <= 64) || (!signed && size < 64)) {
-            return realNumberFormatter.deserializeLong(BitSet.valueOf(raw).get(offset, toIndex), size, signed);
+            return realNumberFormatter.readLong(raw, offset, size, signed);
         } else {
-            return realNumberFormatter.deserializeBigInteger(BitSet.valueOf(raw).get(offset, toIndex), size, signed);
+            return realNumberFormatter.deserializeBigInteger(getBits(raw, offset, size), size, signed);
         }
     }
 
     private Object deserializeFloat(FloatingPointNumberFormatter formatter, byte[] raw, int offset, int size) {
-        int toIndex = offset + size;
         if (size == 16) {
-            return formatter.deserializeSFloat(BitSet.valueOf(raw).get(offset, toIndex));
+            return formatter.readSFloat(raw, offset);
         } else if (size == 32) {
-            return formatter.deserializeFloat(BitSet.valueOf(raw).get(offset, toIndex));
+            return formatter.readFloat(raw, offset);
         } else if (size == 64) {
-            return formatter.deserializeDouble(BitSet.valueOf(raw).get(offset, toIndex));
+            return formatter.readDouble(raw, offset);
         } else {
             throw new IllegalStateException("Unknown bit size for float numbers: " + size);
         }
     }
 
-    private BitSet serializeFloat(FloatingPointNumberFormatter formatter, FieldHolder holder) {
-        int size = holder.getField().getFormat().getSize();
+    private void writeFloat(FloatingPointNumberFormatter formatter, FieldHolder holder, byte[] data, int offset,
+                            int size) {
         if (size == 16) {
-            return formatter.serializeSFloat(holder.getFloat(null));
+            formatter.writeSFloat(data, offset, holder.getFloat(null));
         } else if (size == 32) {
-            return formatter.serializeFloat(holder.getFloat(null));
+            formatter.writeFloat(data, offset, holder.getFloat(null));
         } else if (size == 64) {
-            return formatter.serializeDouble(holder.getDouble(null));
+            formatter.writeDouble(data, offset, holder.getDouble(null));
         } else {
             throw new IllegalStateException("Invalid bit size for float numbers: " + size);
         }
     }
 
-    private String deserializeString(byte[] raw, int offset, String encoding) {
+    private String deserializeString(byte[] raw, int offset, int limit, String encoding) {
         try {
-            return new String(BitSet.valueOf(raw).get(offset, offset + raw.length * 8).toByteArray(), encoding);
+            return new String(getBytes(raw, offset, limit), encoding);
         } catch (UnsupportedEncodingException e) {
             throw new IllegalStateException(e);
         }
     }
 
-    private BitSet serializeString(FieldHolder holder, String encoding) {
+    private byte[] serializeString(FieldHolder holder, String encoding) {
         try {
-            return BitSet.valueOf(holder.getString(null).getBytes(encoding));
+            return holder.getString(null).getBytes(encoding);
         } catch (UnsupportedEncodingException e) {
             throw new IllegalStateException(e);
         }
     }
 
-    private byte[] getRemainder(byte[] raw, int offset) {
-        byte[] remained = BitSet.valueOf(raw).get(offset, raw.length * 8).toByteArray();
-        byte[] remainedWithTrailingZeros = new byte[(raw.length - (int) Math.ceil(offset / 8.0))];
-        System.arraycopy(remained, 0, remainedWithTrailingZeros, 0, remained.length);
-        return remainedWithTrailingZeros;
+    private static int getLength(byte[] data, int offset, int size) {
+        // trailing zero bytes are not sent, however data array must not be empty, hence the first byte of 0 value
+        // is sent if all fields are set to 0
+        int length = size;
+        while (length > 1 && data[offset + length - 1] == 0) {
+            length--;
+        }
+        return Math.max(length, 1);
+    }
+
+    private static int getBitLength(byte[] bytes) {
+        for (int i = bytes.length - 1; i >= 0; i--) {
+            if (bytes[i] != 0) {
+                return i * 8 + Integer.SIZE - Integer.numberOfLeadingZeros(bytes[i] & 0xFF);
+            }
+        }
+        return 0;
+    }
+
+    private BitSet getBits(byte[] raw, int offset, int size) {
+        byte[] bytes = BitUtils.readBytes(raw, offset, (size + 7) / 8);
+        if (size % 8 != 0) {
+            bytes[bytes.length - 1] &= (1 << size % 8) - 1;
+        }
+        return BitSet.valueOf(bytes);
+    }
+
+    private byte[] getBytes(byte[] raw, int offset, int limit) {
+        // all bits till the limit, trailing zeros are not included
+        int size = Math.max(0, limit - offset);
+        byte[] bytes = BitUtils.readBytes(raw, offset, (size + 7) / 8);
+        if (size % 8 != 0) {
+            bytes[bytes.length - 1] &= (1 << size % 8) - 1;
+        }
+        return BitUtils.trimTrailingZeros(bytes);
+    }
+
+    /**
+     * Puts parsed values into a target: field holders into a map or values into slots of an array-backed response.
+     * Sinks do not keep any state so that the same layout execution code is used for both targets without allocating.
+     */
+    private interface ValueSink<T> {
+
+        void putValue(GenericCharacteristicParser parser, T target, CharacteristicLayout layout, int index,
+                      byte[] raw, int offset, int limit, int slot);
+
+        int putReference(GenericCharacteristicParser parser, T target, CharacteristicLayout reference, byte[] raw,
+                         int start, int limit, int base, ParseResult error);
+
+    }
+
+    private static final class HolderSink implements ValueSink<LinkedHashMap<String, FieldHolder>> {
+
+        @Override
+        public void putValue(GenericCharacteristicParser parser, LinkedHashMap<String, FieldHolder> target,
+                             CharacteristicLayout layout, int index, byte[] raw, int offset, int limit, int slot) {
+            Field field = layout.getField(index);
+            target.put(field.getName(), parser.parseField(field, raw, offset, limit));
+        }
+
+        @Override
+        public int putReference(GenericCharacteristicParser parser, LinkedHashMap<String, FieldHolder> target,
+                                CharacteristicLayout reference, byte[] raw, int start, int limit, int base,
+                                ParseResult error) {
+            if (!reference.hasDuplicateNames()) {
+                return parser.parse(reference, raw, start, limit, this, target, 0, error);
+            }
+            // some fields get overwritten, the size must be calculated from what is left
+            LinkedHashMap<String, FieldHolder> subCharacteristic = new LinkedHashMap<>();
+            if (parser.parse(reference, raw, start, limit, this, subCharacteristic, 0, error) == FAILED) {
+                return FAILED;
+            }
+            target.putAll(subCharacteristic);
+            return parser.getSize(subCharacteristic.values());
+        }
+
+    }
+
+    private static final class SlotSink implements ValueSink<GattResponse> {
+
+        @Override
+        public void putValue(GenericCharacteristicParser parser, GattResponse target, CharacteristicLayout layout,
+                             int index, byte[] raw, int offset, int limit, int slot) {
+            parser.parseSlot(layout, index, raw, offset, limit, target, slot);
+        }
+
+        @Override
+        public int putReference(GenericCharacteristicParser parser, GattResponse target,
+                                CharacteristicLayout reference, byte[] raw, int start, int limit, int base,
+                                ParseResult error) {
+            return parser.parse(reference, raw, start, limit, this, target, base, error);
+        }
+
+    }
+
+    private static final class FieldValues {
+        private final FieldHolder[] holders;
+        private final FieldFormat[] formats;
+        private final byte[][] bytes;
+        private final int[] sizes;
+        private int size;
+
+        private FieldValues(FieldHolder[] holders) {
+            this.holders = holders;
+            formats = new FieldFormat[holders.length];
+            bytes = new byte[holders.length][];
+            sizes = new int[holders.length];
+        }
     }
 
 }
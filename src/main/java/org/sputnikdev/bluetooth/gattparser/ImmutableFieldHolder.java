@@ -0,0 +1,105 @@
+package org.sputnikdev.bluetooth.gattparser;
+
+/*-
+ * #%L
+ * org.sputnikdev:bluetooth-gatt-parser
+ * %%
+ * Copyright (C) 2017 Sputnik Dev
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.sputnikdev.bluetooth.gattparser.spec.Enumeration;
+import org.sputnikdev.bluetooth.gattparser.spec.Field;
+
+import java.math.BigInteger;
+
+/**
+ * A field holder of a response shared between callers, see {@link ImmutableGattResponse}. The value cannot be changed,
+ * byte array values are copied when they are accessed.
+ */
+final class ImmutableFieldHolder extends FieldHolder {
+
+    ImmutableFieldHolder(Field field, Object value) {
+        super(field, value);
+    }
+
+    @Override
+    public byte[] getBytes(byte[] def) {
+        byte[] bytes = super.getBytes(def);
+        return bytes != null && bytes == super.getRawValue() ? bytes.clone() : bytes;
+    }
+
+    @Override
+    public Object getRawValue() {
+        Object value = super.getRawValue();
+        return value instanceof byte[] ? ((byte[]) value).clone() : value;
+    }
+
+    @Override
+    public void setBoolean(Boolean value) {
+        throw unsupported();
+    }
+
+    @Override
+    public void setInteger(Integer value) {
+        throw unsupported();
+    }
+
+    @Override
+    public void setLong(Long value) {
+        throw unsupported();
+    }
+
+    @Override
+    public void setBigInteger(BigInteger value) {
+        throw unsupported();
+    }
+
+    @Override
+    public void setFloat(Float value) {
+        throw unsupported();
+    }
+
+    @Override
+    public void setDouble(Double value) {
+        throw unsupported();
+    }
+
+    @Override
+    public void setString(String value) {
+        throw unsupported();
+    }
+
+    @Override
+    public void setStruct(byte[] struct) {
+        throw unsupported();
+    }
+
+    @Override
+    public void setEnumeration(Enumeration value) {
+        throw unsupported();
+    }
+
+    @Override
+    public void setRawValue(Object value) {
+        throw unsupported();
+    }
+
+    private UnsupportedOperationException unsupported() {
+        return new UnsupportedOperationException("Field holder of a cached response cannot be modified: "
+                + getField().getName());
+    }
+
+}
@@ -0,0 +1,90 @@
+package org.sputnikdev.bluetooth.gattparser;
+
+/*-
+ * #%L
+ * org.sputnikdev:bluetooth-gatt-parser
+ * %%
+ * Copyright (C) 2017 Sputnik Dev
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.sputnikdev.bluetooth.gattparser.spec.Field;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Set;
+
+/**
+ * A response shared between callers by the parse cache, see {@link BluetoothGattParser#enableParseCache(long)}.
+ * Field holders are created eagerly and cannot be modified, so that the response is never changed after
+ * it has been published and can be read by multiple threads.
+ */
+final class ImmutableGattResponse extends GattResponse {
+
+    private ImmutableGattResponse(CharacteristicLayout layout) {
+        super(layout);
+    }
+
+    private ImmutableGattResponse(LinkedHashMap<String, FieldHolder> holders) {
+        super(holders);
+    }
+
+    /**
+     * Copies a response, field holders of the copy are created eagerly.
+     * @param response a response to copy
+     * @return immutable copy of the response
+     */
+    static ImmutableGattResponse copyOf(GattResponse response) {
+        CharacteristicLayout layout = response.getLayout();
+        ImmutableGattResponse copy;
+        if (layout != null) {
+            copy = new ImmutableGattResponse(layout);
+            for (int index = 0; index < layout.getSlotCount(); index++) {
+                if (response.contains(index)) {
+                    copy.setLong(index, response.getSlotValue(index));
+                    if (layout.hasObjectSlots() && response.getSlotObject(index) != null) {
+                        copy.setObject(index, response.getSlotObject(index));
+                    }
+                }
+            }
+        } else {
+            LinkedHashMap<String, FieldHolder> holders = new LinkedHashMap<>();
+            for (FieldHolder holder : response.getFieldHolders()) {
+                holders.put(holder.getField().getName(),
+                        new ImmutableFieldHolder(holder.getField(), holder.getRawValue()));
+            }
+            copy = new ImmutableGattResponse(holders);
+        }
+        copy.getMap();
+        return copy;
+    }
+
+    @Override
+    public Set<String> getFieldNames() {
+        return Collections.unmodifiableSet(super.getFieldNames());
+    }
+
+    @Override
+    public Collection<FieldHolder> getFieldHolders() {
+        return Collections.unmodifiableCollection(super.getFieldHolders());
+    }
+
+    @Override
+    FieldHolder newHolder(Field field, Object value) {
+        return new ImmutableFieldHolder(field, value);
+    }
+
+}
@@ -0,0 +1,88 @@
+package org.sputnikdev.bluetooth.gattparser;
+
+/*-
+ * #%L
+ * org.sputnikdev:bluetooth-gatt-parser
+ * %%
+ * Copyright (C) 2017 Sputnik Dev
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+
+/**
+ * A reusable {@link GattResponse} that is owned by a caller and refilled on every parse, see
+ * {@link BluetoothGattParser#parseInto(CharacteristicHandle, byte[], MutableGattResponse)}. Once it has been filled
+ * with values of a characteristic, parsing other values of the same characteristic into it does not produce
+ * any garbage as long as values are read with {@link #getLong(int, long)} or {@link #getDouble(int, double)}
+ * and the characteristic does not have string or struct fields.
+ * <br>Not threadsafe, a response should be used by a single thread at a time.
+ */
+public class MutableGattResponse extends GattResponse {
+
+    /**
+     * Creates a new empty response.
+     */
+    public MutableGattResponse() {
+        super(new LinkedHashMap<>());
+    }
+
+    /**
+     * Clears the response.
+     */
+    public void clear() {
+        reset(new LinkedHashMap<>());
+    }
+
+    /**
+     * Clears the response so that it can be filled with values of a characteristic with the given layout.
+     * Arrays are reused if the layout is the same as the one the response has been filled for.
+     * @param layout compiled characteristic layout, must be indexed
+     */
+    void reset(CharacteristicLayout layout) {
+        holders = null;
+        slotMap = null;
+        present = 0;
+        if (this.layout != layout) {
+            this.layout = layout;
+            values = new long[layout.getSlotCount()];
+            objects = layout.hasObjectSlots() ? new Object[layout.getSlotCount()] : null;
+            slotHolders = null;
+            return;
+        }
+        if (objects != null) {
+            Arrays.fill(objects, null);
+        }
+        if (slotHolders != null) {
+            Arrays.fill(slotHolders, null);
+        }
+    }
+
+    /**
+     * Replaces content of the response with the given field holders.
+     * @param holders field holders
+     */
+    void reset(LinkedHashMap<String, FieldHolder> holders) {
+        this.holders = holders;
+        layout = null;
+        values = null;
+        objects = null;
+        present = 0;
+        slotHolders = null;
+        slotMap = null;
+    }
+
+}
@@ -0,0 +1,147 @@
+package org.sputnikdev.bluetooth.gattparser;
+
+/*-
+ * #%L
+ * org.sputnikdev:bluetooth-gatt-parser
+ * %%
+ * Copyright (C) 2017 Sputnik Dev
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import java.util.Arrays;
+
+/**
+ * A bounded memoization cache of parsed responses keyed by characteristic and value,
+ * see {@link BluetoothGattParser#enableParseCache(long)}. The least recently used responses are evicted
+ * once the cache reaches its maximum size.
+ */
+final class ParseCache {
+
+    private static final int FNV_OFFSET_BASIS = 0x811c9dc5;
+    private static final int FNV_PRIME = 0x01000193;
+
+    private final Cache<Key, GattResponse> responses;
+
+    ParseCache(long maximumSize) {
+        responses = CacheBuilder.newBuilder().maximumSize(maximumSize).recordStats().build();
+    }
+
+    /**
+     * Looks up a response of a characteristic value stored in a region of a byte array.
+     * @param key a key created by {@link #key(CharacteristicHandle, byte[], int, int)}
+     * @return cached response or null
+     */
+    GattResponse get(Key key) {
+        return responses.getIfPresent(key);
+    }
+
+    /**
+     * Caches an immutable copy of a response, the value is copied so that the key does not refer to the data array.
+     * @param key a key created by {@link #key(CharacteristicHandle, byte[], int, int)}
+     * @param response parsed response
+     * @return the immutable copy to be shared between callers
+     */
+    GattResponse put(Key key, GattResponse response) {
+        GattResponse immutable = ImmutableGattResponse.copyOf(response);
+        responses.put(key.copy(), immutable);
+        return immutable;
+    }
+
+    CacheStats getStats() {
+        return responses.stats();
+    }
+
+    void invalidateAll() {
+        responses.invalidateAll();
+    }
+
+    static Key key(CharacteristicHandle handle, byte[] raw, int offset, int length) {
+        return new Key(handle.getCharacteristicUUID(), handle.getGeneration(), raw, offset, length);
+    }
+
+    /**
+     * Characteristic UUID and generation of its handle along with the value. Responses of stale handles are
+     * never returned even if they are cached concurrently with registering a parser or loading extensions.
+     */
+    static final class Key {
+
+        private final String characteristicUUID;
+        private final int generation;
+        private final byte[] raw;
+        private final int offset;
+        private final int length;
+        private final int hash;
+
+        private Key(String characteristicUUID, int generation, byte[] raw, int offset, int length) {
+            this(characteristicUUID, generation, raw, offset, length,
+                    hash(characteristicUUID.hashCode() ^ generation, raw, offset, length));
+        }
+
+        private Key(String characteristicUUID, int generation, byte[] raw, int offset, int length, int hash) {
+            this.characteristicUUID = characteristicUUID;
+            this.generation = generation;
+            this.raw = raw;
+            this.offset = offset;
+            this.length = length;
+            this.hash = hash;
+        }
+
+        Key copy() {
+            return new Key(characteristicUUID, generation, Arrays.copyOfRange(raw, offset, offset + length),
+                    0, length, hash);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            if (hash != other.hash || length != other.length || generation != other.generation
+                    || !characteristicUUID.equals(other.characteristicUUID)) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (raw[offset + i] != other.raw[other.offset + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        // FNV-1a, values are short so that a byte at a time is fast enough
+        private static int hash(int seed, byte[] raw, int offset, int length) {
+            int hash = FNV_OFFSET_BASIS ^ seed;
+            for (int i = offset; i < offset + length; i++) {
+                hash = (hash ^ (raw[i] & 0xFF)) * FNV_PRIME;
+            }
+            return hash;
+        }
+
+    }
+
+}
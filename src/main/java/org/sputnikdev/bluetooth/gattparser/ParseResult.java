@@ -0,0 +1,154 @@
+package org.sputnikdev.bluetooth.gattparser;
+
+/*-
+ * #%L
+ * org.sputnikdev:bluetooth-gatt-parser
+ * %%
+ * Copyright (C) 2017 Sputnik Dev
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.sputnikdev.bluetooth.gattparser.spec.Field;
+
+/**
+ * An outcome of a non-throwing parse, see {@link BluetoothGattParser#tryParse(CharacteristicHandle, byte[],
+ * ParseResult)}. A result is reusable and is refilled on every parse: it holds either parsed values
+ * (see {@link #getResponse()}) or an error code along with the failing field and its offset in the payload.
+ * <br>Not threadsafe, a result should be used by a single thread at a time.
+ */
+public final class ParseResult {
+
+    /**
+     * The value has been parsed.
+     */
+    public static final int OK = 0;
+    /**
+     * The value is shorter than required by the characteristic and its Flags field, e.g. a truncated payload.
+     */
+    public static final int NOT_ENOUGH_DATA = 1;
+    /**
+     * The characteristic is not known, not valid for read or its specification has invalid fields.
+     */
+    public static final int INVALID_CHARACTERISTIC = 2;
+    /**
+     * The value cannot be decoded.
+     */
+    public static final int INVALID_VALUE = 3;
+
+    private final MutableGattResponse response = new MutableGattResponse();
+    private String characteristicUUID;
+    private int code;
+    private Field field;
+    private int fieldIndex = -1;
+    private int byteOffset = -1;
+    // index of the first byte of the value in the data array
+    private int valueOffset;
+
+    /**
+     * Returns UUID of the parsed characteristic.
+     * @return characteristic UUID
+     */
+    public String getCharacteristicUUID() {
+        return characteristicUUID;
+    }
+
+    /**
+     * Checks whether the value has been parsed.
+     * @return true if the value has been parsed
+     */
+    public boolean isOk() {
+        return code == OK;
+    }
+
+    /**
+     * Returns the error code or {@link #OK}.
+     * @return error code
+     */
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * Returns the field that could not be parsed if known.
+     * @return failing field or null
+     */
+    public Field getField() {
+        return field;
+    }
+
+    /**
+     * Returns index of the field that could not be parsed in its characteristic (in a referenced characteristic
+     * if the field belongs to it).
+     * @return index of the failing field or -1 if unknown
+     */
+    public int getFieldIndex() {
+        return fieldIndex;
+    }
+
+    /**
+     * Returns offset of the field that could not be parsed from the beginning of the value.
+     * @return byte offset of the failing field or -1 if unknown
+     */
+    public int getByteOffset() {
+        return byteOffset;
+    }
+
+    /**
+     * Returns parsed values. The response is empty if the value could not be parsed.
+     * @return parsed values
+     */
+    public MutableGattResponse getResponse() {
+        return response;
+    }
+
+    @Override
+    public String toString() {
+        if (code == OK) {
+            return "Parsed characteristic " + characteristicUUID;
+        }
+        return "Could not parse characteristic " + characteristicUUID + ", code: " + code
+                + (field != null ? ", field: \"" + field.getName() + "\" (" + fieldIndex + ")" : "")
+                + (byteOffset >= 0 ? ", byte offset: " + byteOffset : "");
+    }
+
+    /**
+     * Prepares the result for parsing a value.
+     * @param characteristicUUID characteristic UUID
+     * @param valueOffset index of the first byte of the value in the data array
+     */
+    void reset(String characteristicUUID, int valueOffset) {
+        this.characteristicUUID = characteristicUUID;
+        this.valueOffset = valueOffset;
+        code = OK;
+        field = null;
+        fieldIndex = -1;
+        byteOffset = -1;
+    }
+
+    /**
+     * Records an error.
+     * @param code error code
+     * @param field failing field or null if unknown
+     * @param fieldIndex index of the failing field or -1
+     * @param position index of the first bit of the failing field in the data array or -1
+     */
+    void fail(int code, Field field, int fieldIndex, int position) {
+        this.code = code;
+        this.field = field;
+        this.fieldIndex = fieldIndex;
+        byteOffset = position >= 0 ? position / 8 - valueOffset : -1;
+    }
+
+}
@@ -0,0 +1,197 @@
+package org.sputnikdev.bluetooth.gattparser.num;
+
+/*-
+ * #%L
+ * org.sputnikdev:bluetooth-gatt-parser
+ * %%
+ * Copyright (C) 2017 Sputnik Dev
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Utility methods for reading and writing bits directly from/to little-endian byte arrays, the same bit order as
+ * {@link java.util.BitSet#valueOf(byte[])} uses, i.e. bit N is bit (N % 8) of byte (N / 8).
+ * Bits beyond the array boundary are read as zeros. Stateless and threadsafe.
+ */
+public final class BitUtils {
+
+    private BitUtils() { }
+
+    /**
+     * Reads a single bit.
+     * @param data source array
+     * @param bitIndex bit index
+     * @return true if the bit is set
+     */
+    public static boolean readBit(byte[] data, int bitIndex) {
+        int byteIndex = bitIndex >>> 3;
+        return byteIndex < data.length && (data[byteIndex] & (1 << (bitIndex & 7))) != 0;
+    }
+
+    /**
+     * Reads up to 64 bits as an unsigned number, the first bit being the least significant one.
+     * @param data source array
+     * @param bitOffset index of the first bit
+     * @param size number of bits to read (0..64)
+     * @return bits read, all bits above the given size are zeros
+     */
+    public static long readBits(byte[] data, int bitOffset, int size) {
+        if (size < 0 || size > Long.SIZE) {
+            throw new IllegalArgumentException("size must be between 0 and 64: " + size);
+        }
+        if (size == 0) {
+            return 0L;
+        }
+        int byteIndex = bitOffset >>> 3;
+        int shift = bitOffset & 7;
+        if (shift == 0 && (size & 7) == 0 && byteIndex + (size >>> 3) <= data.length) {
+            // aligned fast path: whole bytes only
+            long value = 0L;
+            for (int i = (size >>> 3) - 1; i >= 0; i--) {
+                value = (value << 8) | (data[byteIndex + i] & 0xFFL);
+            }
+            return value;
+        }
+        // shifting path: first byte contributes (8 - shift) bits, next bytes contribute 8 bits each
+        long value = byteIndex < data.length ? (data[byteIndex] & 0xFFL) >>> shift : 0L;
+        int read = 8 - shift;
+        for (int i = byteIndex + 1; read < size && i < data.length; i++, read += 8) {
+            value |= (data[i] & 0xFFL) << read;
+        }
+        return size == Long.SIZE ? value : value & ((1L << size) - 1);
+    }
+
+    /**
+     * Reads a given number of bytes starting from a bit offset. If the offset is not aligned to bytes,
+     * then all the bits are shifted respectively.
+     * @param data source array
+     * @param bitOffset index of the first bit
+     * @param length number of bytes to read
+     * @return a new array of the given length
+     */
+    public static byte[] readBytes(byte[] data, int bitOffset, int length) {
+        byte[] result = new byte[length];
+        int byteIndex = bitOffset >>> 3;
+        int shift = bitOffset & 7;
+        if (shift == 0) {
+            System.arraycopy(data, byteIndex, result, 0, Math.max(0, Math.min(length, data.length - byteIndex)));
+            return result;
+        }
+        for (int i = 0; i < length && byteIndex + i < data.length; i++) {
+            int value = (data[byteIndex + i] & 0xFF) >>> shift;
+            if (byteIndex + i + 1 < data.length) {
+                value |= data[byteIndex + i + 1] << (8 - shift);
+            }
+            result[i] = (byte) value;
+        }
+        return result;
+    }
+
+    /**
+     * Returns a copy of a given array without its trailing zero bytes (same as {@link java.util.BitSet#toByteArray()}
+     * does).
+     * @param data source array
+     * @return a trimmed copy or the same array if there are no trailing zeros
+     */
+    public static byte[] trimTrailingZeros(byte[] data) {
+        int length = data.length;
+        while (length > 0 && data[length - 1] == 0) {
+            length--;
+        }
+        return length == data.length ? data : Arrays.copyOf(data, length);
+    }
+
+    /**
+     * Writes up to 64 bits of a given value, the least significant bit goes first. Other bits of the array
+     * are not changed.
+     * @param data target array
+     * @param bitOffset index of the first bit
+     * @param value bits to write
+     * @param size number of bits to write (0..64)
+     * @throws IndexOutOfBoundsException if the array is not big enough
+     */
+    public static void writeBits(byte[] data, int bitOffset, long value, int size) {
+        if (size < 0 || size > Long.SIZE) {
+            throw new IllegalArgumentException("size must be between 0 and 64: " + size);
+        }
+        if (bitOffset < 0 || bitOffset + size > data.length * 8) {
+            throw new IndexOutOfBoundsException("Not enough space to write " + size + " bits at " + bitOffset
+                    + ", array length: " + data.length);
+        }
+        int byteIndex = bitOffset >>> 3;
+        if ((bitOffset & 7) == 0 && (size & 7) == 0) {
+            // aligned fast path: whole bytes only
+            for (int i = 0; i < size >>> 3; i++) {
+                data[byteIndex + i] = (byte) (value >>> (i << 3));
+            }
+            return;
+        }
+        // shifting path: writing byte by byte, masking out bits that do not belong to the value
+        int written = 0;
+        while (written < size) {
+            int index = (bitOffset + written) >>> 3;
+            int shift = (bitOffset + written) & 7;
+            int chunk = Math.min(8 - shift, size - written);
+            int mask = ((1 << chunk) - 1) << shift;
+            data[index] = (byte) ((data[index] & ~mask) | (((int) (value >>> written) << shift) & mask));
+            written += chunk;
+        }
+    }
+
+    /**
+     * Writes bits of a given array, the first bit of the array goes first. Bits beyond the source array are
+     * written as zeros.
+     * @param data target array
+     * @param bitOffset index of the first bit
+     * @param source bits to write
+     * @param size number of bits to write
+     * @throws IndexOutOfBoundsException if the target array is not big enough
+     */
+    public static void writeBytes(byte[] data, int bitOffset, byte[] source, int size) {
+        if (size < 0 || bitOffset < 0 || bitOffset + size > data.length * 8) {
+            throw new IndexOutOfBoundsException("Not enough space to write " + size + " bits at " + bitOffset
+                    + ", array length: " + data.length);
+        }
+        int bytes = Math.min(source.length, size >>> 3);
+        if ((bitOffset & 7) == 0) {
+            // aligned fast path: whole bytes are copied
+            System.arraycopy(source, 0, data, bitOffset >>> 3, bytes);
+            Arrays.fill(data, (bitOffset >>> 3) + bytes, (bitOffset + size) >>> 3, (byte) 0);
+        } else {
+            for (int i = 0; i < size >>> 3; i++) {
+                writeBits(data, bitOffset + i * 8, i < bytes ? source[i] : 0, 8);
+            }
+        }
+        int left = size & 7;
+        if (left != 0) {
+            int index = size >>> 3;
+            writeBits(data, bitOffset + size - left, index < source.length ? source[index] : 0, left);
+        }
+    }
+
+    /**
+     * Returns the first 64 bits of a given bit set as a number.
+     * @param bits a bit set
+     * @return the first 64 bits
+     */
+    public static long toLong(BitSet bits) {
+        long[] words = bits.toLongArray();
+        return words.length > 0 ? words[0] : 0L;
+    }
+
+}
@@ -81,4 +81,76 @@ public interface FloatingPointNumberFormatter {
      */
     BitSet serializeDouble(Double number);
 
+    /**
+     * Reads a short decimal number encoded as a sfloat number (16 bits) directly from a byte array.
+     * The default implementation is an adapter for {@link #deserializeSFloat(BitSet)}.
+     *
+     * @param data a byte array
+     * @param bitOffset index of the first bit of the number
+     * @return decoded number
+     */
+    default float readSFloat(byte[] data, int bitOffset) {
+        return deserializeSFloat(BitSet.valueOf(new long[] {BitUtils.readBits(data, bitOffset, 16)}));
+    }
+
+    /**
+     * Reads a decimal number encoded as a float number (32 bits) directly from a byte array.
+     * The default implementation is an adapter for {@link #deserializeFloat(BitSet)}.
+     *
+     * @param data a byte array
+     * @param bitOffset index of the first bit of the number
+     * @return decoded number
+     */
+    default float readFloat(byte[] data, int bitOffset) {
+        return deserializeFloat(BitSet.valueOf(new long[] {BitUtils.readBits(data, bitOffset, 32)}));
+    }
+
+    /**
+     * Reads a decimal number encoded as a double number (64 bits) directly from a byte array.
+     * The default implementation is an adapter for {@link #deserializeDouble(BitSet)}.
+     *
+     * @param data a byte array
+     * @param bitOffset index of the first bit of the number
+     * @return decoded number
+     */
+    default double readDouble(byte[] data, int bitOffset) {
+        return deserializeDouble(BitSet.valueOf(new long[] {BitUtils.readBits(data, bitOffset, 64)}));
+    }
+
+    /**
+     * Writes a number in a sfloat format (16 bits) directly into a byte array.
+     * The default implementation is an adapter for {@link #serializeSFloat(Float)}.
+     *
+     * @param data a byte array
+     * @param bitOffset index of the first bit of the number
+     * @param number a number to write
+     */
+    default void writeSFloat(byte[] data, int bitOffset, float number) {
+        BitUtils.writeBits(data, bitOffset, BitUtils.toLong(serializeSFloat(number)), 16);
+    }
+
+    /**
+     * Writes a number in a float format (32 bits) directly into a byte array.
+     * The default implementation is an adapter for {@link #serializeFloat(Float)}.
+     *
+     * @param data a byte array
+     * @param bitOffset index of the first bit of the number
+     * @param number a number to write
+     */
+    default void writeFloat(byte[] data, int bitOffset, float number) {
+        BitUtils.writeBits(data, bitOffset, BitUtils.toLong(serializeFloat(number)), 32);
+    }
+
+    /**
+     * Writes a number in a double format (64 bits) directly into a byte array.
+     * The default implementation is an adapter for {@link #serializeDouble(Double)}.
+     *
+     * @param data a byte array
+     * @param bitOffset index of the first bit of the number
+     * @param number a number to write
+     */
+    default void writeDouble(byte[] data, int bitOffset, double number) {
+        BitUtils.writeBits(data, bitOffset, BitUtils.toLong(serializeDouble(number)), 64);
+    }
+
 }
@@ -49,10 +49,39 @@ public class IEEE11073FloatingPointNumberFormatter implements FloatingPointNumbe
 
     @Override
     public Float deserializeSFloat(BitSet bits) {
-        BitSet exponentBits = bits.get(12, 16);
-        BitSet mantissaBits = bits.get(0, 12);
-        int exponent = twosComplementNumberFormatter.deserializeInteger(exponentBits, 4, true);
-        int mantissa = twosComplementNumberFormatter.deserializeInteger(mantissaBits, 12, true);
+        return readSFloat(bits.toByteArray(), 0);
+    }
+
+    @Override
+    public Float deserializeFloat(BitSet bits) {
+        return readFloat(bits.toByteArray(), 0);
+    }
+
+    @Override
+    public Double deserializeDouble(BitSet bits) {
+        throw new IllegalStateException("Operation not supported");
+    }
+
+
+    @Override
+    public BitSet serializeSFloat(Float number) {
+        throw new IllegalStateException("Operation not supported");
+    }
+
+    @Override
+    public BitSet serializeFloat(Float number) {
+        throw new IllegalStateException("Operation not supported");
+    }
+
+    @Override
+    public BitSet serializeDouble(Double number) {
+        throw new IllegalStateException("Operation not supported");
+    }
+
+    @Override
+    public float readSFloat(byte[] data, int bitOffset) {
+        int exponent = twosComplementNumberFormatter.readInt(data, bitOffset + 12, 4, true);
+        int mantissa = twosComplementNumberFormatter.readInt(data, bitOffset, 12, true);
         if (exponent == 0) {
             if (mantissa == SFLOAT_NaN) {
                 return Float.NaN;
@@ -66,11 +95,9 @@ public class IEEE11073FloatingPointNumberFormatter implements FloatingPointNumbe
     }
 
     @Override
-    public Float deserializeFloat(BitSet bits) {
-        BitSet exponentBits = bits.get(24, 32);
-        BitSet mantissaBits = bits.get(0, 24);
-        int exponent = twosComplementNumberFormatter.deserializeInteger(exponentBits, 8, true);
-        int mantissa = twosComplementNumberFormatter.deserializeInteger(mantissaBits, 24, true);
+    public float readFloat(byte[] data, int bitOffset) {
+        int exponent = twosComplementNumberFormatter.readInt(data, bitOffset + 24, 8, true);
+        int mantissa = twosComplementNumberFormatter.readInt(data, bitOffset, 24, true);
         if (exponent == 0) {
             if (mantissa == FLOAT_NaN) {
                 return Float.NaN;
@@ -84,23 +111,22 @@ public class IEEE11073FloatingPointNumberFormatter implements FloatingPointNumbe
     }
 
     @Override
-    public Double deserializeDouble(BitSet bits) {
+    public double readDouble(byte[] data, int bitOffset) {
         throw new IllegalStateException("Operation not supported");
     }
 
-
     @Override
-    public BitSet serializeSFloat(Float number) {
+    public void writeSFloat(byte[] data, int bitOffset, float number) {
         throw new IllegalStateException("Operation not supported");
     }
 
     @Override
-    public BitSet serializeFloat(Float number) {
+    public void writeFloat(byte[] data, int bitOffset, float number) {
         throw new IllegalStateException("Operation not supported");
     }
 
     @Override
-    public BitSet serializeDouble(Double number) {
+    public void writeDouble(byte[] data, int bitOffset, double number) {
         throw new IllegalStateException("Operation not supported");
     }
 
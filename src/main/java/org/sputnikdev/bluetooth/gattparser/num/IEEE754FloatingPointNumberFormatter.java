@@ -37,12 +37,12 @@ public class IEEE754FloatingPointNumberFormatter implements FloatingPointNumberF
 
     @Override
     public Float deserializeFloat(BitSet bits) {
-        return Float.intBitsToFloat((int) bits.toLongArray()[0]);
+        return readFloat(bits.toByteArray(), 0);
     }
 
     @Override
     public Double deserializeDouble(BitSet bits) {
-        return Double.longBitsToDouble(bits.toLongArray()[0]);
+        return readDouble(bits.toByteArray(), 0);
     }
 
     @Override
@@ -59,4 +59,34 @@ public class IEEE754FloatingPointNumberFormatter implements FloatingPointNumberF
     public BitSet serializeDouble(Double number) {
         return BitSet.valueOf(new long[] { Double.doubleToRawLongBits(number) });
     }
+
+    @Override
+    public float readSFloat(byte[] data, int bitOffset) {
+        throw new IllegalStateException("Operation not supported");
+    }
+
+    @Override
+    public float readFloat(byte[] data, int bitOffset) {
+        return Float.intBitsToFloat((int) BitUtils.readBits(data, bitOffset, 32));
+    }
+
+    @Override
+    public double readDouble(byte[] data, int bitOffset) {
+        return Double.longBitsToDouble(BitUtils.readBits(data, bitOffset, 64));
+    }
+
+    @Override
+    public void writeSFloat(byte[] data, int bitOffset, float number) {
+        throw new IllegalStateException("Operation not supported");
+    }
+
+    @Override
+    public void writeFloat(byte[] data, int bitOffset, float number) {
+        BitUtils.writeBits(data, bitOffset, Float.floatToRawIntBits(number), 32);
+    }
+
+    @Override
+    public void writeDouble(byte[] data, int bitOffset, double number) {
+        BitUtils.writeBits(data, bitOffset, Double.doubleToRawLongBits(number), 64);
+    }
 }
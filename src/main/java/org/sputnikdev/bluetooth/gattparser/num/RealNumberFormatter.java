@@ -84,4 +84,72 @@ public interface RealNumberFormatter {
      */
     BitSet serialize(BigInteger number, int size, boolean signed);
 
+    /**
+     * Reads a real number of up to 32 bits directly from a byte array.
+     * The default implementation is an adapter for {@link #deserializeInteger(BitSet, int, boolean)}.
+     * @param data a byte array
+     * @param bitOffset index of the first bit of the number
+     * @param size number of bits of the number
+     * @param signed indicates whether the number is a signed number
+     * @return decoded number
+     */
+    default int readInt(byte[] data, int bitOffset, int size, boolean signed) {
+        return deserializeInteger(BitSet.valueOf(new long[] {BitUtils.readBits(data, bitOffset, size)}), size, signed);
+    }
+
+    /**
+     * Reads a real number of up to 64 bits directly from a byte array.
+     * The default implementation is an adapter for {@link #deserializeLong(BitSet, int, boolean)}.
+     * @param data a byte array
+     * @param bitOffset index of the first bit of the number
+     * @param size number of bits of the number
+     * @param signed indicates whether the number is a signed number
+     * @return decoded number
+     */
+    default long readLong(byte[] data, int bitOffset, int size, boolean signed) {
+        return deserializeLong(BitSet.valueOf(new long[] {BitUtils.readBits(data, bitOffset, size)}), size, signed);
+    }
+
+    /**
+     * Writes a real number of up to 32 bits directly into a byte array.
+     * The default implementation is an adapter for {@link #serialize(Integer, int, boolean)}.
+     * @param data a byte array
+     * @param bitOffset index of the first bit of the number
+     * @param number a number to write
+     * @param size number of bits of the number
+     * @param signed indicates whether the number is a signed number
+     */
+    default void writeInt(byte[] data, int bitOffset, int number, int size, boolean signed) {
+        BitUtils.writeBits(data, bitOffset, BitUtils.toLong(serialize(number, size, signed)), size);
+    }
+
+    /**
+     * Writes a real number of up to 64 bits directly into a byte array.
+     * The default implementation is an adapter for {@link #serialize(Long, int, boolean)}.
+     * @param data a byte array
+     * @param bitOffset index of the first bit of the number
+     * @param number a number to write
+     * @param size number of bits of the number
+     * @param signed indicates whether the number is a signed number
+     */
+    default void writeLong(byte[] data, int bitOffset, long number, int size, boolean signed) {
+        BitUtils.writeBits(data, bitOffset, BitUtils.toLong(serialize(number, size, signed)), size);
+    }
+
+    /**
+     * Writes a real number of any size directly into a byte array, bits of the number are expected to be zeros.
+     * The default implementation is an adapter for {@link #serialize(BigInteger, int, boolean)}.
+     * @param data a byte array
+     * @param bitOffset index of the first bit of the number
+     * @param number a number to write
+     * @param size number of bits of the number
+     * @param signed indicates whether the number is a signed number
+     */
+    default void writeBigInteger(byte[] data, int bitOffset, BigInteger number, int size, boolean signed) {
+        BitSet bits = serialize(number, size, signed);
+        for (int i = bits.nextSetBit(0); i >= 0 && i < size; i = bits.nextSetBit(i + 1)) {
+            BitUtils.writeBits(data, bitOffset + i, 1, 1);
+        }
+    }
+
 }
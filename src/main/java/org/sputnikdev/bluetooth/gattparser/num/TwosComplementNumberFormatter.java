@@ -33,46 +33,12 @@ public class TwosComplementNumberFormatter implements RealNumberFormatter {
 
     @Override
     public Integer deserializeInteger(BitSet bits, int size, boolean signed) {
-        if (size > 32) {
-            throw new IllegalArgumentException("size must be less or equal 32");
-        }
-
-        if (size == 1) {
-            signed = false;
-        }
-
-        boolean isNegative = signed && size > 1 && bits.get(size - 1);
-        int value = isNegative ? -1 : 0;
-        for (int i = 0; i < bits.length() && i < size; i++) {
-            if (isNegative && !bits.get(i)) {
-                value ^= 1 << i;
-            } else if (!isNegative && bits.get(i)) {
-                value |= 1 << i;
-            }
-        }
-        return value;
+        return readInt(bits.toByteArray(), 0, size, signed);
     }
 
     @Override
     public Long deserializeLong(BitSet bits, int size, boolean signed) {
-        if (size > 64) {
-            throw new IllegalArgumentException("size must be less or equal than 64");
-        }
-
-        if (size == 1) {
-            signed = false;
-        }
-
-        boolean isNegative = signed && size > 1 && bits.get(size - 1);
-        long value = isNegative ? -1L : 0L;
-        for (int i = 0; i < bits.length() && i < size; i++) {
-            if (isNegative && !bits.get(i)) {
-                value ^= 1L << i;
-            } else if (!isNegative && bits.get(i)) {
-                value |= 1L << i;
-            }
-        }
-        return value;
+        return readLong(bits.toByteArray(), 0, size, signed);
     }
 
     @Override
@@ -137,4 +103,76 @@ public class TwosComplementNumberFormatter implements RealNumberFormatter {
         }
         return bitSet;
     }
+
+    @Override
+    public int readInt(byte[] data, int bitOffset, int size, boolean signed) {
+        if (size > 32) {
+            throw new IllegalArgumentException("size must be less or equal 32");
+        }
+        return (int) signExtend(BitUtils.readBits(data, bitOffset, size), size, signed);
+    }
+
+    @Override
+    public long readLong(byte[] data, int bitOffset, int size, boolean signed) {
+        if (size > 64) {
+            throw new IllegalArgumentException("size must be less or equal than 64");
+        }
+        return signExtend(BitUtils.readBits(data, bitOffset, size), size, signed);
+    }
+
+    @Override
+    public void writeInt(byte[] data, int bitOffset, int number, int size, boolean signed) {
+        if (size > 32) {
+            throw new IllegalArgumentException("size must be less or equal 32");
+        }
+        BitUtils.writeBits(data, bitOffset, toBits(number, size, signed), size);
+    }
+
+    @Override
+    public void writeLong(byte[] data, int bitOffset, long number, int size, boolean signed) {
+        if (size > 64) {
+            throw new IllegalArgumentException("size must be less or equal than 64");
+        }
+        BitUtils.writeBits(data, bitOffset, toBits(number, size, signed), size);
+    }
+
+    @Override
+    public void writeBigInteger(byte[] data, int bitOffset, BigInteger number, int size, boolean signed) {
+        if (size == 1) {
+            signed = false;
+        }
+        int length = Math.min(size, BIG_INTEGER_MAX_SIZE);
+        // the most significant bit of signed numbers is the sign bit
+        int bits = length - (signed ? 1 : 0);
+        for (int written = 0; written < bits; written += Long.SIZE) {
+            int chunk = Math.min(Long.SIZE, bits - written);
+            long value = number.shiftRight(written).longValue();
+            if (value != 0) {
+                BitUtils.writeBits(data, bitOffset + written, value, chunk);
+            }
+        }
+        if (signed && number.signum() == -1) {
+            BitUtils.writeBits(data, bitOffset + length - 1, 1, 1);
+        }
+    }
+
+    private static long signExtend(long bits, int size, boolean signed) {
+        // 1 bit numbers are always unsigned
+        if (signed && size > 1 && size < Long.SIZE && (bits >>> (size - 1) & 1) != 0) {
+            return bits | (-1L << size);
+        }
+        return bits;
+    }
+
+    private static long toBits(long number, int size, boolean signed) {
+        if (size == Long.SIZE) {
+            return number;
+        }
+        long bits = number & ((1L << size) - 1);
+        if (signed && size > 1 && number < 0) {
+            bits |= 1L << (size - 1);
+        }
+        return bits;
+    }
+
 }
@@ -23,8 +23,6 @@ package org.sputnikdev.bluetooth.gattparser.spec;
 import com.thoughtworks.xstream.annotations.XStreamAlias;
 import com.thoughtworks.xstream.annotations.XStreamAsAttribute;
 
-import java.math.BigInteger;
-
 /**
  *
  * @author Vlad Kolotov
@@ -58,14 +56,11 @@ public class Bit {
     }
 
     public String getFlag(byte value) {
-        if (enumerations == null) {
-            return null;
-        }
-        for (Enumeration enumeration : enumerations.getEnumerations()) {
-            if (enumeration.getKey().equals(BigInteger.valueOf(value))) {
-                return enumeration.getRequires();
-            }
-        }
-        return null;
+        Enumeration enumeration = getEnumeration(value);
+        return enumeration != null ? enumeration.getRequires() : null;
+    }
+
+    public Enumeration getEnumeration(long key) {
+        return enumerations != null ? Enumerations.getIndex(enumerations).get(key) : null;
     }
 }
@@ -24,7 +24,6 @@ import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 import com.google.gson.stream.JsonReader;
 import com.thoughtworks.xstream.XStream;
-import com.thoughtworks.xstream.io.xml.DomDriver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -46,12 +45,20 @@ import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
  * Bluetooth GATT specification reader. Capable of reading Bluetooth SIG GATT specifications for
  * <a href="https://www.bluetooth.com/specifications/gatt">services and characteristics</a>.
- * Stateful but threadsafe.
+ * Stateful but threadsafe. Specifications are loaded lazily, each of them is loaded at most once
+ * and then looked up without locking.
  *
  * @author Vlad Kolotov
  */
@@ -71,23 +78,33 @@ public class BluetoothGattSpecificationReader {
             SPEC_ROOT_FOLDER_NAME + "/" + SPEC_CHARACTERISTICS_FOLDER_NAME + "/" + SPEC_REGISTRY_FILE_NAME;
     private static final String CLASSPATH_SPEC_FULL_SERVICE_FILE_NAME =
             SPEC_ROOT_FOLDER_NAME + "/" + SPEC_SERVICES_FOLDER_NAME + "/" + SPEC_REGISTRY_FILE_NAME;
+    private static final String CLASSPATH_SPEC_BUNDLE_FILE_NAME =
+            SPEC_ROOT_FOLDER_NAME + "/" + SpecificationBundle.BUNDLE_FILE_NAME;
     private final Logger logger = LoggerFactory.getLogger(BluetoothGattSpecificationReader.class);
 
-    private final Map<String, URL> servicesRegistry = new HashMap<>();
-    private final Map<String, URL> characteristicsRegistry = new HashMap<>();
-    private final Map<String, String> characteristicsTypeRegistry = new HashMap<>();
+    private final Map<String, URL> servicesRegistry = new ConcurrentHashMap<>();
+    private final Map<String, URL> characteristicsRegistry = new ConcurrentHashMap<>();
+    private final Map<String, String> characteristicsTypeRegistry = new ConcurrentHashMap<>();
 
-    private final Map<String, Service> services = new HashMap<>();
-    private final Map<String, Characteristic> characteristicsByUUID = new HashMap<>();
-    private final Map<String, Characteristic> characteristicsByType = new HashMap<>();
+    private final ConcurrentHashMap<String, Service> services = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Characteristic> characteristicsByUUID = new ConcurrentHashMap<>();
+    private final Map<String, Characteristic> characteristicsByType = new ConcurrentHashMap<>();
+
+    // configured once, XStream is threadsafe for reading afterwards
+    private final XStream xstream = createXStream();
+    // precompiled bundled specifications, XML files are read if it is not available
+    private final SpecificationBundle bundle;
 
     /**
      * Creates an instance of GATT specification reader and pre-cache GATT specification files from java classpath
-     * by the following paths: gatt/characteristic and gatt/service.
+     * by the following paths: gatt/characteristic and gatt/service. Bundled specifications are read from
+     * a precompiled bundle (gatt/gatt_spec_bundle.bin) if it is available.
      */
     public BluetoothGattSpecificationReader() {
         URL servicesResource = getClass().getClassLoader().getResource(CLASSPATH_SPEC_FULL_SERVICE_FILE_NAME);
-        URL characteristicsResource = getClass().getClassLoader().getResource(CLASSPATH_SPEC_FULL_CHARACTERISTIC_FILE_NAME);
+        URL characteristicsResource =
+                getClass().getClassLoader().getResource(CLASSPATH_SPEC_FULL_CHARACTERISTIC_FILE_NAME);
+        bundle = loadBundle(getClass().getClassLoader().getResource(CLASSPATH_SPEC_BUNDLE_FILE_NAME));
 
         loadExtensionsFromCatalogResources(servicesResource, characteristicsResource);
     }
@@ -99,19 +116,11 @@ public class BluetoothGattSpecificationReader {
      * @return GATT service specification
      */
     public Service getService(String uuid) {
-        if (services.containsKey(uuid)) {
-            return services.get(uuid);
-        } else if (servicesRegistry.containsKey(uuid)) {
-            synchronized (services) {
-                // is it still not loaded?
-                if (!services.containsKey(uuid)) {
-                    Service service = loadService(uuid);
-                    addService(service);
-                    return service;
-                }
-            }
+        Service service = services.get(uuid);
+        if (service == null && servicesRegistry.containsKey(uuid)) {
+            service = services.computeIfAbsent(uuid, this::loadService);
         }
-        return null;
+        return service;
     }
 
     /**
@@ -121,19 +130,11 @@ public class BluetoothGattSpecificationReader {
      * @return GATT characteristic specification
      */
     public Characteristic getCharacteristicByUUID(String uuid) {
-        if (characteristicsByUUID.containsKey(uuid)) {
-            return characteristicsByUUID.get(uuid);
-        } else if (characteristicsRegistry.containsKey(uuid)) {
-            synchronized (characteristicsByUUID) {
-                // is it still not loaded?
-                if (!characteristicsByUUID.containsKey(uuid)) {
-                    Characteristic characteristic = loadCharacteristic(uuid);
-                    addCharacteristic(characteristic);
-                    return characteristic;
-                }
-            }
+        Characteristic characteristic = characteristicsByUUID.get(uuid);
+        if (characteristic == null && characteristicsRegistry.containsKey(uuid)) {
+            characteristic = characteristicsByUUID.computeIfAbsent(uuid, this::loadCharacteristic);
         }
-        return null;
+        return characteristic;
     }
 
     /**
@@ -143,20 +144,14 @@ public class BluetoothGattSpecificationReader {
      * @return GATT characteristic specification
      */
     public Characteristic getCharacteristicByType(String type) {
-        if (characteristicsByType.containsKey(type)) {
-            return characteristicsByType.get(type);
-        } else if (characteristicsTypeRegistry.containsKey(type)) {
-            synchronized (characteristicsByUUID) {
-                // is it still not loaded?
-                if (!characteristicsByType.containsKey(type)) {
-                    Characteristic characteristic = loadCharacteristic(
-                            characteristicsTypeRegistry.get(type));
-                    addCharacteristic(characteristic);
-                    return characteristic;
-                }
+        Characteristic characteristic = characteristicsByType.get(type);
+        if (characteristic == null) {
+            String uuid = characteristicsTypeRegistry.get(type);
+            if (uuid != null) {
+                characteristic = getCharacteristicByUUID(uuid);
             }
         }
-        return null;
+        return characteristic;
     }
 
     /**
@@ -201,6 +196,55 @@ public class BluetoothGattSpecificationReader {
         return Collections.unmodifiableList(fields);
     }
 
+    /**
+     * Eagerly loads and validates all registered services and characteristics in parallel,
+     * see {@link #preload(ForkJoinPool)}. The common fork-join pool is used.
+     *
+     * @return preload report
+     */
+    public PreloadReport preload() {
+        return preload(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Eagerly loads and validates all registered services and characteristics in parallel on a given pool
+     * so that the first lookup of a specification does not have to read it. Specifications that cannot be read,
+     * characteristics that are valid neither for read nor for write and characteristics with unresolvable references
+     * are reported as failures. Fields of unknown formats are reported separately.
+     *
+     * @param pool a pool to load specifications
+     * @return preload report
+     */
+    public PreloadReport preload(ForkJoinPool pool) {
+        final long started = System.nanoTime();
+        AtomicInteger loadedServices = new AtomicInteger();
+        AtomicInteger loadedCharacteristics = new AtomicInteger();
+        Map<String, String> failures = new ConcurrentHashMap<>();
+        Map<String, String> unknownFormats = new ConcurrentHashMap<>();
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (String uuid : servicesRegistry.keySet()) {
+            tasks.add(pool.submit(() -> {
+                if (preloadSpecification(uuid, failures, () -> getService(uuid) != null)) {
+                    loadedServices.incrementAndGet();
+                }
+            }));
+        }
+        for (String uuid : characteristicsRegistry.keySet()) {
+            tasks.add(pool.submit(() -> {
+                if (preloadSpecification(uuid, failures, () -> preloadCharacteristic(uuid, failures, unknownFormats))) {
+                    loadedCharacteristics.incrementAndGet();
+                }
+            }));
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+        PreloadReport report = new PreloadReport(loadedServices.get(), loadedCharacteristics.get(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), failures, unknownFormats);
+        logger.info("{}", report);
+        return report;
+    }
+
     /**
      * This method is used to load/register custom services and characteristics
      * (defined in GATT XML specification files,
@@ -245,7 +289,8 @@ public class BluetoothGattSpecificationReader {
                 logger.debug("Loaded {} underneath {}", entry.getValue(), specUrl);
                 processed.put(entry.getKey(), specUrl);
             } catch (MalformedURLException err) {
-                logger.error("Failed to make GATT registry entry for {} underneath {}", entry.getValue(), serviceRegistry);
+                logger.error("Failed to make GATT registry entry for {} underneath {}",
+                        entry.getValue(), serviceRegistry);
             }
         }
         return processed;
@@ -257,7 +302,8 @@ public class BluetoothGattSpecificationReader {
         Map<String, URL> loadedServicesRegistry = catalogToURLs(servicesResource, loadedServices);
 
         Map<String, String> loadedCharacteristics = readRegistryFromCatalogResource(characteristicsResource);
-        logger.info("Loaded {} GATT specifications from resource {}", loadedCharacteristics.size(), characteristicsResource);
+        logger.info("Loaded {} GATT specifications from resource {}",
+                loadedCharacteristics.size(), characteristicsResource);
         Map<String, URL> loadedCharacteristicsRegistry = catalogToURLs(characteristicsResource, loadedCharacteristics);
 
         Map<String, String> loadedTypeRegistry = loadedCharacteristics.entrySet().stream()
@@ -291,6 +337,7 @@ public class BluetoothGattSpecificationReader {
     }
 
     private void addCharacteristic(Characteristic characteristic) {
+        // validating before publishing so that other threads never see a half initialised characteristic
         validate(characteristic);
         characteristicsByUUID.put(characteristic.getUuid(), characteristic);
         characteristicsByType.put(characteristic.getType().trim(), characteristic);
@@ -301,12 +348,22 @@ public class BluetoothGattSpecificationReader {
     }
 
     private void validate(Characteristic characteristic) {
-        List<Field> fields = characteristic.getValue().getFields();
-        if (fields.isEmpty()) {
+        List<Field> fields = characteristic.getValue() != null ? characteristic.getValue().getFields() : null;
+        if (fields == null || fields.isEmpty()) {
             logger.warn("Characteristic \"{}\" does not have any Fields tags, "
                     + "therefore reading this characteristic will not be possible.", characteristic.getName());
             return;
         }
+        // resolving field formats once so that parsing never has to look them up by name
+        String unknownFormats = getUnknownFormats(fields);
+        if (unknownFormats != null) {
+            logger.warn("Characteristic \"{}\" has fields of unknown formats: {}.",
+                    characteristic.getName(), unknownFormats);
+        }
+        // building enumeration lookup tables once so that enumerations are never scanned by their keys
+        for (Field field : fields) {
+            indexEnumerations(field);
+        }
         Field flags = null;
         Field opCodes = null;
         for (Field field : fields) {
@@ -341,6 +398,33 @@ public class BluetoothGattSpecificationReader {
         }
     }
 
+    private static void indexEnumerations(Field field) {
+        if (field.getEnumerations() != null) {
+            Enumerations.getIndex(field.getEnumerations());
+        }
+        if (field.getBitField() != null && field.getBitField().getBits() != null) {
+            for (Bit bit : field.getBitField().getBits()) {
+                if (bit.getEnumerations() != null) {
+                    Enumerations.getIndex(bit.getEnumerations());
+                }
+            }
+        }
+    }
+
+    private static String getUnknownFormats(List<Field> fields) {
+        if (fields == null) {
+            return null;
+        }
+        StringBuilder unknownFormats = null;
+        for (Field field : fields) {
+            if (field.isUnknownFormat()) {
+                unknownFormats = unknownFormats == null ? new StringBuilder() : unknownFormats.append(", ");
+                unknownFormats.append(field.getName()).append(" (").append(field.getFormatName()).append(')');
+            }
+        }
+        return unknownFormats != null ? unknownFormats.toString() : null;
+    }
+
     private List<URL> getFilesFromFolder(String folder) {
         File folderFile = new File(folder);
         File[] files = folderFile.listFiles();
@@ -360,12 +444,22 @@ public class BluetoothGattSpecificationReader {
 
     private Service loadService(String uuid) {
         URL url = servicesRegistry.get(uuid);
-        return getService(url);
+        Service service = readBundle(specs -> specs.getService(url));
+        return service != null ? service : getService(url);
     }
 
     private Characteristic loadCharacteristic(String uuid) {
         URL url = characteristicsRegistry.get(uuid);
-        return getCharacteristic(url);
+        Characteristic characteristic = readBundle(specs -> specs.getCharacteristic(url));
+        if (characteristic == null) {
+            characteristic = getCharacteristic(url);
+        }
+        if (characteristic != null) {
+            // the characteristic becomes visible by its UUID once the enclosing computeIfAbsent completes
+            validate(characteristic);
+            characteristicsByType.put(characteristic.getType().trim(), characteristic);
+        }
+        return characteristic;
     }
 
     private void readServices(List<URL> files) {
@@ -396,24 +490,6 @@ public class BluetoothGattSpecificationReader {
 
     private <T> T getSpec(URL file) {
         try {
-            XStream xstream = new XStream(new DomDriver());
-            xstream.autodetectAnnotations(true);
-            xstream.processAnnotations(Bit.class);
-            xstream.processAnnotations(BitField.class);
-            xstream.processAnnotations(Characteristic.class);
-            xstream.processAnnotations(Enumeration.class);
-            xstream.processAnnotations(Enumerations.class);
-            xstream.processAnnotations(Field.class);
-            xstream.processAnnotations(InformativeText.class);
-            xstream.processAnnotations(Service.class);
-            xstream.processAnnotations(Value.class);
-            xstream.processAnnotations(Reserved.class);
-            xstream.processAnnotations(Examples.class);
-            xstream.processAnnotations(CharacteristicAccess.class);
-            xstream.processAnnotations(Characteristics.class);
-            xstream.processAnnotations(Properties.class);
-            xstream.ignoreUnknownElements();
-            xstream.setClassLoader(Characteristic.class.getClassLoader());
             return (T) xstream.fromXML(file);
         } catch (Exception e) {
             logger.error("Could not read file: " + file, e);
@@ -421,6 +497,79 @@ public class BluetoothGattSpecificationReader {
         return null;
     }
 
+    private boolean preloadSpecification(String uuid, Map<String, String> failures, Supplier<Boolean> loader) {
+        try {
+            if (loader.get()) {
+                return true;
+            }
+            failures.putIfAbsent(uuid, "Could not read specification");
+        } catch (RuntimeException e) {
+            logger.warn("Could not preload specification: " + uuid, e);
+            failures.put(uuid, e.toString());
+        }
+        return false;
+    }
+
+    private boolean preloadCharacteristic(String uuid, Map<String, String> failures,
+            Map<String, String> unknownFormats) {
+        Characteristic characteristic = getCharacteristicByUUID(uuid);
+        if (characteristic == null) {
+            return false;
+        }
+        String unknown = characteristic.getValue() != null
+                ? getUnknownFormats(characteristic.getValue().getFields()) : null;
+        if (unknown != null) {
+            unknownFormats.put(uuid, unknown);
+        }
+        if (!characteristic.isValidForRead() && !characteristic.isValidForWrite()) {
+            failures.put(uuid, "Characteristic is valid neither for read nor for write");
+        } else if (characteristic.getValue() != null) {
+            for (Field field : characteristic.getValue().getFields()) {
+                String reference = field.getReference();
+                if (reference != null && getCharacteristicByType(reference.trim()) == null) {
+                    failures.put(uuid, "Referenced characteristic is not found: " + reference.trim());
+                }
+            }
+        }
+        return true;
+    }
+
+    private SpecificationBundle loadBundle(URL url) {
+        if (url == null) {
+            return null;
+        }
+        try {
+            SpecificationBundle loaded = SpecificationBundle.load(url);
+            logger.info("Loaded {} precompiled GATT specifications from {}", loaded.size(), url);
+            return loaded;
+        } catch (IOException e) {
+            logger.warn("Could not read precompiled GATT specifications, falling back to XML files: " + url, e);
+        }
+        return null;
+    }
+
+    private <T> T readBundle(Function<SpecificationBundle, T> reader) {
+        try {
+            return bundle != null ? reader.apply(bundle) : null;
+        } catch (RuntimeException e) {
+            logger.warn("Could not read precompiled GATT specification, falling back to XML file", e);
+        }
+        return null;
+    }
+
+    static XStream createXStream() {
+        // annotations are processed upfront as their auto detection is not threadsafe
+        XStream xstream = new XStream(new SpecificationXmlDriver());
+        xstream.processAnnotations(new Class[] {
+            Bit.class, BitField.class, Characteristic.class, Enumeration.class, Enumerations.class, Field.class,
+            InformativeText.class, Service.class, Value.class, Reserved.class, Examples.class,
+            CharacteristicAccess.class, Characteristics.class, Properties.class
+        });
+        xstream.ignoreUnknownElements();
+        xstream.setClassLoader(Characteristic.class.getClassLoader());
+        return xstream;
+    }
+
     private Map<String, String> readRegistryFromCatalogResource(URL serviceRegistry) {
         logger.info("Reading GATT registry from: {}", serviceRegistry);
         if (serviceRegistry == null) {
@@ -0,0 +1,147 @@
+package org.sputnikdev.bluetooth.gattparser.spec;
+
+/*-
+ * #%L
+ * org.sputnikdev:bluetooth-gatt-parser
+ * %%
+ * Copyright (C) 2017 Sputnik Dev
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A lookup table of enumerations by their keys and values. Keys of a small range are looked up in a dense array,
+ * other keys that fit in a long are looked up in an open addressing hash table, wider keys are looked up in a map.
+ * If there are several enumerations with the same key, the first one is returned.
+ * Immutable and threadsafe.
+ */
+final class EnumerationIndex {
+
+    static final EnumerationIndex EMPTY = new EnumerationIndex(null);
+
+    private static final int MIN_DENSE_RANGE = 256;
+
+    // dense table: enumerations by key - base
+    private final long base;
+    private final Enumeration[] dense;
+    // open addressing table with linear probing, an empty slot has null value
+    private final long[] keys;
+    private final Enumeration[] values;
+    // keys that do not fit in a long
+    private final Map<BigInteger, Enumeration> wide = new HashMap<>();
+    private final Map<String, List<Enumeration>> byValue = new HashMap<>();
+
+    EnumerationIndex(List<Enumeration> enumerations) {
+        List<Enumeration> narrow = new ArrayList<>();
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        if (enumerations != null) {
+            for (Enumeration enumeration : enumerations) {
+                BigInteger key = enumeration.getKey();
+                if (key != null && key.bitLength() < Long.SIZE) {
+                    narrow.add(enumeration);
+                    min = Math.min(min, key.longValue());
+                    max = Math.max(max, key.longValue());
+                } else if (key != null) {
+                    wide.putIfAbsent(key, enumeration);
+                }
+                if (enumeration.getValue() != null) {
+                    byValue.computeIfAbsent(enumeration.getValue(), value -> new ArrayList<>()).add(enumeration);
+                }
+            }
+        }
+        for (Map.Entry<String, List<Enumeration>> entry : byValue.entrySet()) {
+            entry.setValue(Collections.unmodifiableList(entry.getValue()));
+        }
+
+        // a range which does not fit in a long overflows and is never dense
+        long range = max - min + 1;
+        if (!narrow.isEmpty() && range > 0 && range <= Math.max(MIN_DENSE_RANGE, narrow.size() * 4L)) {
+            base = min;
+            dense = new Enumeration[(int) range];
+            for (Enumeration enumeration : narrow) {
+                int index = (int) (enumeration.getKey().longValue() - base);
+                if (dense[index] == null) {
+                    dense[index] = enumeration;
+                }
+            }
+            keys = null;
+            values = null;
+        } else {
+            base = 0;
+            dense = null;
+            int capacity = Integer.highestOneBit(Math.max(1, narrow.size()) * 2 - 1) << 1;
+            keys = new long[capacity];
+            values = new Enumeration[capacity];
+            for (Enumeration enumeration : narrow) {
+                long key = enumeration.getKey().longValue();
+                int slot = find(key);
+                if (values[slot] == null) {
+                    keys[slot] = key;
+                    values[slot] = enumeration;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns an enumeration by its key.
+     * @param key enumeration key
+     * @return enumeration or null if there is no enumeration with the given key
+     */
+    Enumeration get(long key) {
+        if (dense != null) {
+            long index = key - base;
+            return index >= 0 && index < dense.length ? dense[(int) index] : null;
+        }
+        return values[find(key)];
+    }
+
+    /**
+     * Returns an enumeration by its key.
+     * @param key enumeration key
+     * @return enumeration or null if there is no enumeration with the given key
+     */
+    Enumeration get(BigInteger key) {
+        return key.bitLength() < Long.SIZE ? get(key.longValue()) : wide.get(key);
+    }
+
+    /**
+     * Returns enumerations by their value.
+     * @param value enumeration value
+     * @return unmodifiable list of enumerations
+     */
+    List<Enumeration> get(String value) {
+        List<Enumeration> result = byValue.get(value);
+        return result != null ? result : Collections.emptyList();
+    }
+
+    private int find(long key) {
+        int mask = keys.length - 1;
+        long hash = key * 0x9E3779B97F4A7C15L;
+        int slot = (int) (hash ^ (hash >>> 32)) & mask;
+        while (values[slot] != null && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+}
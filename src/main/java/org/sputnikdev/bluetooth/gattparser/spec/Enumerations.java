@@ -23,6 +23,7 @@ package org.sputnikdev.bluetooth.gattparser.spec;
 import com.thoughtworks.xstream.annotations.XStreamAlias;
 import com.thoughtworks.xstream.annotations.XStreamImplicit;
 
+import java.math.BigInteger;
 import java.util.Collections;
 import java.util.List;
 
@@ -38,6 +39,9 @@ public class Enumerations {
     @XStreamImplicit
     private List<Reserved> reserves;
 
+    // computed on first use, enumerations are created by deserializers bypassing constructors
+    private transient EnumerationIndex index;
+
     public List<Enumeration> getEnumerations() {
         return enumerations != null ? Collections.unmodifiableList(enumerations) : null;
     }
@@ -45,4 +49,47 @@ public class Enumerations {
     public List<Reserved> getReserves() {
         return reserves != null ? Collections.unmodifiableList(reserves) : reserves;
     }
+
+    /**
+     * Returns an enumeration by its key.
+     * @param key enumeration key
+     * @return enumeration or null if there is no enumeration with the given key
+     */
+    public Enumeration getEnumeration(long key) {
+        return getIndex(this).get(key);
+    }
+
+    /**
+     * Returns an enumeration by its key.
+     * @param key enumeration key
+     * @return enumeration or null if there is no enumeration with the given key
+     */
+    public Enumeration getEnumeration(BigInteger key) {
+        return key != null ? getIndex(this).get(key) : null;
+    }
+
+    /**
+     * Returns enumerations by their value.
+     * @param value enumeration value
+     * @return unmodifiable list of enumerations with the given value
+     */
+    public List<Enumeration> getEnumerationsByValue(String value) {
+        return value != null ? getIndex(this).get(value) : Collections.emptyList();
+    }
+
+    /**
+     * Returns the lookup index of given enumerations, the index is built on first use from
+     * {@link #getEnumerations()}.
+     * @param enumerations enumerations
+     * @return enumerations index
+     */
+    static EnumerationIndex getIndex(Enumerations enumerations) {
+        EnumerationIndex result = enumerations.index;
+        if (result == null) {
+            List<Enumeration> list = enumerations.getEnumerations();
+            result = list != null ? new EnumerationIndex(list) : EnumerationIndex.EMPTY;
+            enumerations.index = result;
+        }
+        return result;
+    }
 }
@@ -25,6 +25,7 @@ import com.thoughtworks.xstream.annotations.XStreamAsAttribute;
 import com.thoughtworks.xstream.annotations.XStreamImplicit;
 
 import java.math.BigInteger;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -69,6 +70,10 @@ public class Field {
     @XStreamAsAttribute
     private boolean system;
 
+    // computed on first use, fields are created by deserializers bypassing constructors
+    private transient FieldScale scale;
+    private transient FieldFormat fieldFormat;
+
     public String getName() {
         return name != null ? name.trim() : null;
     }
@@ -81,8 +86,33 @@ public class Field {
         return requirements;
     }
 
+    /**
+     * Returns the field format, it is looked up once and then cached.
+     * @return field format or null if the format is not declared or unknown
+     */
     public FieldFormat getFormat() {
-        return FieldFormat.valueOf(format);
+        FieldFormat result = fieldFormat;
+        if (result == null) {
+            result = FieldFormat.lookup(format);
+            fieldFormat = result;
+        }
+        return result != FieldFormat.UNKNOWN ? result : null;
+    }
+
+    /**
+     * Checks whether the field declares a format which is not known to the parser.
+     * @return true if the field format is declared but unknown
+     */
+    boolean isUnknownFormat() {
+        try {
+            return format != null && getFormat() == null;
+        } catch (IllegalStateException ex) {
+            return true;
+        }
+    }
+
+    String getFormatName() {
+        return format;
     }
 
     public BitField getBitField() {
@@ -117,6 +147,19 @@ public class Field {
         return offset;
     }
 
+    /**
+     * Returns scaling of field values defined by exponents, multiplier and offset of the field.
+     * @return field scale
+     */
+    public FieldScale getScale() {
+        FieldScale result = scale;
+        if (result == null) {
+            result = FieldScale.valueOf(decimalExponent, binaryExponent, multiplier, offset);
+            scale = result;
+        }
+        return result;
+    }
+
     public Enumerations getEnumerations() {
         return enumerations;
     }
@@ -147,11 +190,16 @@ public class Field {
     }
 
     public Enumeration getEnumeration(BigInteger key) {
-        return FlagUtils.getEnumeration(this, key).orElse(null);
+        return enumerations != null && key != null ? Enumerations.getIndex(enumerations).get(key) : null;
+    }
+
+    public Enumeration getEnumeration(long key) {
+        return enumerations != null ? Enumerations.getIndex(enumerations).get(key) : null;
     }
 
     public List<Enumeration> getEnumerations(String value) {
-        return FlagUtils.getEnumerations(this, value);
+        return enumerations != null && value != null
+                ? Enumerations.getIndex(enumerations).get(value) : Collections.<Enumeration>emptyList();
     }
 
 }
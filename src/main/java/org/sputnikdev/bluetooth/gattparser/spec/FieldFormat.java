@@ -23,8 +23,10 @@ package org.sputnikdev.bluetooth.gattparser.spec;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
+ * Field formats are immutable and shared, there is one instance per distinct format name.
  *
  * @author Vlad Kolotov
  */
@@ -47,6 +49,13 @@ public class FieldFormat {
                 put("reg-cert-data-list", new FieldFormat("struct", FieldType.STRUCT, FULL_SIZE));
     }});
 
+    // marks unknown formats so that they are not resolved again
+    static final FieldFormat UNKNOWN = new FieldFormat("unknown", null, FULL_SIZE);
+
+    // bounds the cache in case of arbitrary format names, specifications define only a few dozens of them
+    private static final int MAX_CACHED_FORMATS = 1024;
+    private static final Map<String, FieldFormat> FORMATS = new ConcurrentHashMap<>(PREDEFINED);
+
     private final String name;
     private final FieldType type;
     private final int size;
@@ -58,19 +67,47 @@ public class FieldFormat {
     }
 
     public static FieldFormat valueOf(String name) {
+        FieldFormat format = lookup(name);
+        return format != UNKNOWN ? format : null;
+    }
+
+    /**
+     * Returns a shared instance of a field format by its name, {@link #UNKNOWN} is returned for unknown formats.
+     * @param name format name
+     * @return field format
+     */
+    static FieldFormat lookup(String name) {
         if (name == null) {
-            return null;
+            return UNKNOWN;
+        }
+        FieldFormat format = FORMATS.get(name);
+        if (format == null) {
+            String fieldName = name.toLowerCase();
+            format = FORMATS.get(fieldName);
+            if (format == null) {
+                format = cache(fieldName, resolve(fieldName));
+            }
+            format = cache(name, format);
         }
-        String fieldName = name.toLowerCase();
-        if (PREDEFINED.containsKey(fieldName)) {
-            return PREDEFINED.get(fieldName);
-        } else if (fieldName.startsWith("uint") || fieldName.endsWith("bit")) {
+        return format;
+    }
+
+    private static FieldFormat resolve(String fieldName) {
+        if (fieldName.startsWith("uint") || fieldName.endsWith("bit")) {
             return new FieldFormat(fieldName, FieldType.UINT, parseSize(fieldName));
         } else if (fieldName.startsWith("sint")) {
             return new FieldFormat(fieldName, FieldType.SINT, parseSize(fieldName));
         } else {
-            return null;
+            return UNKNOWN;
+        }
+    }
+
+    private static FieldFormat cache(String name, FieldFormat format) {
+        if (FORMATS.size() >= MAX_CACHED_FORMATS) {
+            return format;
         }
+        FieldFormat existing = FORMATS.putIfAbsent(name, format);
+        return existing != null ? existing : format;
     }
 
     public String getName() {
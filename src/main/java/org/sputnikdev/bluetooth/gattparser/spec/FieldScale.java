@@ -0,0 +1,137 @@
+package org.sputnikdev.bluetooth.gattparser.spec;
+
+/*-
+ * #%L
+ * org.sputnikdev:bluetooth-gatt-parser
+ * %%
+ * Copyright (C) 2017 Sputnik Dev
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.math.BigDecimal;
+
+/**
+ * Scaling of a field value as defined by field exponents, multiplier and offset:
+ * <pre>
+ * value = raw * 10^DecimalExponent * 2^BinaryExponent * Multiplier + Offset
+ * </pre>
+ * The scale is computed once per field, see {@link Field#getScale()}. Immutable and threadsafe.
+ */
+public final class FieldScale {
+
+    /**
+     * A scale that does not change values.
+     */
+    public static final FieldScale IDENTITY = new FieldScale(1, 0);
+
+    private final double multiplier;
+    private final double offset;
+    private final BigDecimal decimalMultiplier;
+    private final BigDecimal decimalOffset;
+    private final boolean identity;
+
+    private FieldScale(double multiplier, double offset) {
+        this.multiplier = multiplier;
+        this.offset = offset;
+        decimalMultiplier = BigDecimal.valueOf(multiplier);
+        decimalOffset = BigDecimal.valueOf(offset);
+        identity = multiplier == 1.0 && offset == 0.0;
+    }
+
+    /**
+     * Creates a scale from field scaling properties.
+     * @param decimalExponent decimal exponent or null
+     * @param binaryExponent binary exponent or null
+     * @param multiplier multiplier or null, zero multiplier is ignored
+     * @param offset offset or null
+     * @return field scale
+     */
+    public static FieldScale valueOf(Integer decimalExponent, Integer binaryExponent, Integer multiplier,
+                                     Double offset) {
+        double scale = 1;
+        if (decimalExponent != null) {
+            scale = Math.pow(10, decimalExponent);
+        }
+        if (binaryExponent != null) {
+            scale *= Math.pow(2, binaryExponent);
+        }
+        if (multiplier != null && multiplier != 0) {
+            scale *= (double) multiplier;
+        }
+        double shift = offset != null ? offset : 0;
+        return scale == 1.0 && shift == 0.0 ? IDENTITY : new FieldScale(scale, shift);
+    }
+
+    /**
+     * Returns the product of the exponents and the multiplier.
+     * @return multiplier
+     */
+    public double getMultiplier() {
+        return multiplier;
+    }
+
+    /**
+     * Returns the offset to be added to a scaled value. This is an extension to official GATT characteristic
+     * field specification, allowing to implement subset of proprietary devices that almost follow standard
+     * GATT specifications.
+     * @return offset, 0 if not present
+     */
+    public double getOffset() {
+        return offset;
+    }
+
+    /**
+     * Returns the multiplier as BigDecimal, see {@link BigDecimal#valueOf(double)}.
+     * @return multiplier
+     */
+    public BigDecimal getDecimalMultiplier() {
+        return decimalMultiplier;
+    }
+
+    /**
+     * Returns the offset as BigDecimal, see {@link BigDecimal#valueOf(double)}.
+     * @return offset
+     */
+    public BigDecimal getDecimalOffset() {
+        return decimalOffset;
+    }
+
+    /**
+     * Checks whether the scale does not change values: the multiplier is 1 and the offset is 0.
+     * @return true if the scale does not change values
+     */
+    public boolean isIdentity() {
+        return identity;
+    }
+
+    /**
+     * Scales a raw value.
+     * @param raw raw value
+     * @return scaled value
+     */
+    public double scale(double raw) {
+        return raw * multiplier + offset;
+    }
+
+    /**
+     * Converts a scaled value back to a raw value.
+     * @param value scaled value
+     * @return raw value
+     */
+    public double unscale(double value) {
+        return (value - offset) / multiplier;
+    }
+
+}
@@ -42,6 +42,15 @@ public final class FlagUtils {
 
     private FlagUtils() { }
 
+    /**
+     * Reads the Flags field of a characteristic value and returns requirements enabled by the flags.
+     * @param fields characteristic fields
+     * @param data characteristic value
+     * @return requirements enabled by the flags, e.g. C1
+     * @deprecated the parser does not use this method, requirements are compiled into bit masks once
+     *     per characteristic and the Flags field is read into a mask of the same vocabulary
+     */
+    @Deprecated
     public static Set<String> getReadFlags(List<Field> fields, byte[] data) {
         Set<String> flags = new HashSet<>();
         int index = 0;
@@ -88,6 +97,20 @@ public final class FlagUtils {
                 .filter(e -> key.equals(e.getKey())).findAny();
     }
 
+    /**
+     * Returns an enumeration of a field by its key, the key is looked up in the enumerations index.
+     * @param field field specification
+     * @param key enumeration key
+     * @return enumeration or empty if the field does not have an enumeration with the given key
+     */
+    public static Optional<Enumeration> getEnumeration(Field field, long key) {
+        if (field.getEnumerations() == null) {
+            return Optional.empty();
+        }
+
+        return Optional.ofNullable(Enumerations.getIndex(field.getEnumerations()).get(key));
+    }
+
     public static List<Enumeration> getEnumerations(Field field, String value) {
         if (value == null) {
             return Collections.emptyList();
@@ -152,6 +175,11 @@ public final class FlagUtils {
         return null;
     }
 
+    /**
+     * Reads values of bits of the Flags field.
+     * @deprecated used only by {@link #getReadFlags(List, byte[])}
+     */
+    @Deprecated
     static int[] parseReadFlags(Field flagsField, byte[] raw, int index) {
         BitSet bitSet = BitSet.valueOf(raw).get(index, index + flagsField.getFormat().getSize());
         List<Bit> bits = flagsField.getBitField().getBits();
@@ -0,0 +1,94 @@
+package org.sputnikdev.bluetooth.gattparser.spec;
+
+/*-
+ * #%L
+ * org.sputnikdev:bluetooth-gatt-parser
+ * %%
+ * Copyright (C) 2017 Sputnik Dev
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A result of eager loading of GATT specifications,
+ * see {@link BluetoothGattSpecificationReader#preload(java.util.concurrent.ForkJoinPool)}.
+ */
+public final class PreloadReport {
+
+    private final int services;
+    private final int characteristics;
+    private final long loadTime;
+    private final Map<String, String> failures;
+    private final Map<String, String> unknownFormats;
+
+    PreloadReport(int services, int characteristics, long loadTime, Map<String, String> failures,
+            Map<String, String> unknownFormats) {
+        this.services = services;
+        this.characteristics = characteristics;
+        this.loadTime = loadTime;
+        this.failures = Collections.unmodifiableMap(new TreeMap<>(failures));
+        this.unknownFormats = Collections.unmodifiableMap(new TreeMap<>(unknownFormats));
+    }
+
+    /**
+     * Returns number of successfully loaded services.
+     * @return number of loaded services
+     */
+    public int getServices() {
+        return services;
+    }
+
+    /**
+     * Returns number of successfully loaded characteristics.
+     * @return number of loaded characteristics
+     */
+    public int getCharacteristics() {
+        return characteristics;
+    }
+
+    /**
+     * Returns total load time in milliseconds.
+     * @return load time in milliseconds
+     */
+    public long getLoadTime() {
+        return loadTime;
+    }
+
+    /**
+     * Returns services and characteristics that could not be loaded or are not valid.
+     * @return failure descriptions by service/characteristic UUID
+     */
+    public Map<String, String> getFailures() {
+        return failures;
+    }
+
+    /**
+     * Returns characteristics having fields of unknown formats, such fields cannot be parsed or serialized.
+     * @return fields of unknown formats by characteristic UUID
+     */
+    public Map<String, String> getUnknownFormats() {
+        return unknownFormats;
+    }
+
+    @Override
+    public String toString() {
+        return "Loaded " + services + " services and " + characteristics + " characteristics in " + loadTime
+                + " ms, failures: " + failures.size() + ", unknown formats: " + unknownFormats.size();
+    }
+
+}
@@ -0,0 +1,394 @@
+package org.sputnikdev.bluetooth.gattparser.spec;
+
+/*-
+ * #%L
+ * org.sputnikdev:bluetooth-gatt-parser
+ * %%
+ * Copyright (C) 2017 Sputnik Dev
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import com.thoughtworks.xstream.XStream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigInteger;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A precompiled bundle of GATT service and characteristic specifications. The bundle is built from the bundled
+ * GATT XML files at build time (see {@link #write(File, File)}) so that specifications can be loaded
+ * without XML parsing. Specification objects are stored field by field in a compact binary form, an index
+ * maps XML file names to their compiled entries.
+ * <br>The bundle is memory-mapped if it is a file, otherwise it is read into memory. Entries are decoded lazily
+ * on request. Threadsafe.
+ */
+final class SpecificationBundle {
+
+    static final String BUNDLE_FILE_NAME = "gatt_spec_bundle.bin";
+
+    private static final int MAGIC = 0x47415454;
+    private static final int VERSION = 1;
+    private static final String[] FOLDERS = {"service", "characteristic"};
+    private static final Class<?>[] TYPES = {Service.class, Characteristic.class};
+    private static final String REGISTRY_FILE_NAME = "gatt_spec_registry.json";
+    private static final Map<Class<?>, java.lang.reflect.Field[]> FIELDS = new ConcurrentHashMap<>();
+
+    private final ByteBuffer buffer;
+    // XML file URL to the kind (index in TYPES), position and length of its compiled entry
+    private final Map<String, int[]> entries = new HashMap<>();
+
+    private SpecificationBundle(URL url, ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.remaining() < 12 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            throw new IOException("Not a GATT specification bundle: " + url);
+        }
+        if (buffer.getInt() != getSchemaHash()) {
+            throw new IOException("GATT specification bundle does not match specification classes: " + url);
+        }
+        int count = buffer.getInt();
+        for (int i = 0; i < count; i++) {
+            String file = readString(buffer);
+            int kind = buffer.get();
+            int position = buffer.getInt();
+            int length = buffer.getInt();
+            entries.put(new URL(url, file).toExternalForm(), new int[] {kind, position, length});
+        }
+        int payload = buffer.position();
+        for (int[] entry : entries.values()) {
+            entry[1] += payload;
+            if (entry[0] < 0 || entry[0] >= TYPES.length || entry[1] + entry[2] > buffer.limit()) {
+                throw new IOException("GATT specification bundle is corrupted: " + url);
+            }
+        }
+    }
+
+    /**
+     * Loads a bundle. Bundles located in the file system are memory-mapped.
+     * @param url bundle location
+     * @return loaded bundle
+     * @throws IOException if the bundle cannot be read or it is not compatible with the specification classes
+     */
+    static SpecificationBundle load(URL url) throws IOException {
+        ByteBuffer buffer;
+        if ("file".equals(url.getProtocol())) {
+            try (FileChannel channel = FileChannel.open(Paths.get(url.toURI()), StandardOpenOption.READ)) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            } catch (URISyntaxException e) {
+                throw new IOException(e);
+            }
+        } else {
+            try (InputStream stream = url.openStream()) {
+                ByteArrayOutputStream data = new ByteArrayOutputStream();
+                copy(stream, data);
+                buffer = ByteBuffer.wrap(data.toByteArray());
+            }
+        }
+        return new SpecificationBundle(url, buffer);
+    }
+
+    /**
+     * Compiles GATT XML files into a bundle at build time, see {@link #write(File, File)}.
+     * @param args a folder containing "service" and "characteristic" sub-folders and a target bundle file
+     * @throws IOException if files cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Usage: SpecificationBundle <gatt folder> <bundle file>");
+        }
+        write(new File(args[0]), new File(args[1]));
+    }
+
+    /**
+     * Compiles GATT XML files into a bundle. Files are taken from "service" and "characteristic" sub-folders
+     * of a given folder according to their registry files (gatt_spec_registry.json).
+     * @param folder a folder containing "service" and "characteristic" sub-folders
+     * @param bundleFile target bundle file
+     * @throws IOException if files cannot be read or written
+     */
+    static void write(File folder, File bundleFile) throws IOException {
+        XStream xstream = BluetoothGattSpecificationReader.createXStream();
+        Map<String, int[]> index = new TreeMap<>();
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(payload);
+        for (int kind = 0; kind < FOLDERS.length; kind++) {
+            File specFolder = new File(folder, FOLDERS[kind]);
+            for (String type : new TreeMap<>(readRegistry(new File(specFolder, REGISTRY_FILE_NAME))).values()) {
+                String file = FOLDERS[kind] + "/" + type + ".xml";
+                Object spec = xstream.fromXML(new File(folder, file));
+                if (!TYPES[kind].isInstance(spec)) {
+                    throw new IOException("Unexpected specification type in file: " + file);
+                }
+                int position = out.size();
+                writeObject(out, spec);
+                index.put(file, new int[] {kind, position, out.size() - position});
+            }
+        }
+
+        bundleFile.getParentFile().mkdirs();
+        try (DataOutputStream bundle = new DataOutputStream(new FileOutputStream(bundleFile))) {
+            bundle.writeInt(MAGIC);
+            bundle.writeInt(VERSION);
+            bundle.writeInt(getSchemaHash());
+            bundle.writeInt(index.size());
+            for (Map.Entry<String, int[]> entry : index.entrySet()) {
+                writeString(bundle, entry.getKey());
+                bundle.writeByte(entry.getValue()[0]);
+                bundle.writeInt(entry.getValue()[1]);
+                bundle.writeInt(entry.getValue()[2]);
+            }
+            payload.writeTo(bundle);
+        }
+    }
+
+    /**
+     * Returns a service specification compiled from a given XML file.
+     * @param file GATT XML file
+     * @return service specification or null if the file is not in the bundle
+     */
+    Service getService(URL file) {
+        return read(file, Service.class);
+    }
+
+    /**
+     * Returns a characteristic specification compiled from a given XML file.
+     * @param file GATT XML file
+     * @return characteristic specification or null if the file is not in the bundle
+     */
+    Characteristic getCharacteristic(URL file) {
+        return read(file, Characteristic.class);
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private <T> T read(URL file, Class<T> type) {
+        int[] entry = file != null ? entries.get(file.toExternalForm()) : null;
+        if (entry == null || TYPES[entry[0]] != type) {
+            return null;
+        }
+        ByteBuffer data = buffer.duplicate();
+        data.position(entry[1]);
+        data.limit(entry[1] + entry[2]);
+        return type.cast(readObject(data, type));
+    }
+
+    private static void writeObject(DataOutputStream out, Object object) throws IOException {
+        try {
+            for (java.lang.reflect.Field field : getFields(object.getClass())) {
+                writeValue(out, field.getType(), field.getGenericType(), field.get(object));
+            }
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void writeValue(DataOutputStream out, Class<?> type, Type genericType, Object value)
+            throws IOException {
+        if (type == int.class) {
+            out.writeInt((Integer) value);
+            return;
+        } else if (type == boolean.class) {
+            out.writeBoolean((Boolean) value);
+            return;
+        }
+        out.writeBoolean(value != null);
+        if (value == null) {
+            return;
+        }
+        if (type == String.class) {
+            writeString(out, (String) value);
+        } else if (type == Integer.class) {
+            out.writeInt((Integer) value);
+        } else if (type == Double.class) {
+            out.writeDouble((Double) value);
+        } else if (type == BigInteger.class) {
+            byte[] bytes = ((BigInteger) value).toByteArray();
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        } else if (type == List.class) {
+            Class<?> elementType = getElementType(genericType);
+            List<?> list = (List<?>) value;
+            out.writeInt(list.size());
+            for (Object element : list) {
+                writeValue(out, elementType, elementType, element);
+            }
+        } else {
+            writeObject(out, value);
+        }
+    }
+
+    private static Object readObject(ByteBuffer data, Class<?> type) {
+        try {
+            Constructor<?> constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            Object object = constructor.newInstance();
+            for (java.lang.reflect.Field field : getFields(type)) {
+                field.set(object, readValue(data, field.getType(), field.getGenericType()));
+            }
+            return object;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Object readValue(ByteBuffer data, Class<?> type, Type genericType) {
+        if (type == int.class) {
+            return data.getInt();
+        } else if (type == boolean.class) {
+            return data.get() != 0;
+        }
+        if (data.get() == 0) {
+            return null;
+        }
+        if (type == String.class) {
+            return readString(data);
+        } else if (type == Integer.class) {
+            return data.getInt();
+        } else if (type == Double.class) {
+            return data.getDouble();
+        } else if (type == BigInteger.class) {
+            byte[] bytes = new byte[data.getInt()];
+            data.get(bytes);
+            return new BigInteger(bytes);
+        } else if (type == List.class) {
+            Class<?> elementType = getElementType(genericType);
+            int size = data.getInt();
+            List<Object> list = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                list.add(readValue(data, elementType, elementType));
+            }
+            return list;
+        }
+        return readObject(data, type);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer data) {
+        int length = data.getInt();
+        if (data.hasArray()) {
+            String value = new String(data.array(), data.arrayOffset() + data.position(), length,
+                    StandardCharsets.UTF_8);
+            data.position(data.position() + length);
+            return value;
+        }
+        byte[] bytes = new byte[length];
+        data.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static java.lang.reflect.Field[] getFields(Class<?> type) {
+        return FIELDS.computeIfAbsent(type, key -> {
+            List<java.lang.reflect.Field> fields = new ArrayList<>();
+            for (java.lang.reflect.Field field : key.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers) && !field.isSynthetic()) {
+                    field.setAccessible(true);
+                    fields.add(field);
+                }
+            }
+            // the declaration order is not guaranteed to be the same across JVMs
+            fields.sort(Comparator.comparing(java.lang.reflect.Field::getName));
+            return fields.toArray(new java.lang.reflect.Field[fields.size()]);
+        });
+    }
+
+    private static Class<?> getElementType(Type genericType) {
+        if (genericType instanceof ParameterizedType) {
+            Type element = ((ParameterizedType) genericType).getActualTypeArguments()[0];
+            if (element instanceof Class) {
+                return (Class<?>) element;
+            }
+        }
+        throw new IllegalStateException("Unsupported list type: " + genericType);
+    }
+
+    /**
+     * A hash of all fields of the specification classes, a bundle can only be read by the same classes
+     * it has been written with.
+     */
+    private static int getSchemaHash() {
+        StringBuilder schema = new StringBuilder();
+        appendSchema(schema, Service.class, new HashSet<>());
+        appendSchema(schema, Characteristic.class, new HashSet<>());
+        return schema.toString().hashCode();
+    }
+
+    private static void appendSchema(StringBuilder schema, Class<?> type, Set<Class<?>> visited) {
+        if (type.isPrimitive() || !SpecificationBundle.class.getPackage().equals(type.getPackage())
+                || !visited.add(type)) {
+            return;
+        }
+        schema.append(type.getName()).append('{');
+        for (java.lang.reflect.Field field : getFields(type)) {
+            schema.append(field.getName()).append(':').append(field.getGenericType().getTypeName()).append(';');
+        }
+        schema.append('}');
+        for (java.lang.reflect.Field field : getFields(type)) {
+            appendSchema(schema, field.getType() == List.class
+                    ? getElementType(field.getGenericType()) : field.getType(), visited);
+        }
+    }
+
+    private static Map<String, String> readRegistry(File registry) throws IOException {
+        try (InputStream stream = registry.toURI().toURL().openStream()) {
+            return new Gson().fromJson(new InputStreamReader(stream, StandardCharsets.UTF_8),
+                    new TypeToken<Map<String, String>>() { }.getType());
+        }
+    }
+
+    private static void copy(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) > 0) {
+            out.write(buffer, 0, read);
+        }
+    }
+
+}
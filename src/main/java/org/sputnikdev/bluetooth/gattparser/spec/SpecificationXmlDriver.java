@@ -0,0 +1,65 @@
+package org.sputnikdev.bluetooth.gattparser.spec;
+
+/*-
+ * #%L
+ * org.sputnikdev:bluetooth-gatt-parser
+ * %%
+ * Copyright (C) 2017 Sputnik Dev
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.thoughtworks.xstream.io.xml.AbstractPullReader;
+import com.thoughtworks.xstream.io.xml.QNameMap;
+import com.thoughtworks.xstream.io.xml.StaxDriver;
+import com.thoughtworks.xstream.io.xml.StaxReader;
+
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * A streaming (StAX) XStream driver for GATT specification files. Unlike the standard StAX reader, values of
+ * elements with mixed content (e.g. informative text containing paragraphs) include all the text nodes of the element,
+ * the same way as they are read by the DOM driver.
+ */
+class SpecificationXmlDriver extends StaxDriver {
+
+    @Override
+    public AbstractPullReader createStaxReader(XMLStreamReader in) {
+        return new MixedContentReader(getQnameMap(), in, this);
+    }
+
+    private static class MixedContentReader extends StaxReader {
+
+        MixedContentReader(QNameMap qnameMap, XMLStreamReader in, SpecificationXmlDriver driver) {
+            super(qnameMap, in, driver.getNameCoder());
+        }
+
+        @Override
+        public String getValue() {
+            String value = super.getValue();
+            if (!hasMoreChildren()) {
+                return value;
+            }
+            // child elements are skipped, the caller moves up to the end of the current element anyway
+            StringBuilder builder = new StringBuilder(value);
+            while (hasMoreChildren()) {
+                moveDown();
+                moveUp();
+                builder.append(super.getValue());
+            }
+            return builder.toString();
+        }
+    }
+
+}
@@ -23,6 +23,7 @@ package org.sputnikdev.bluetooth.gattparser;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.UUID;
 
 import org.sputnikdev.bluetooth.gattparser.spec.BluetoothGattSpecificationReader;
 import org.sputnikdev.bluetooth.gattparser.spec.Characteristic;
@@ -40,9 +41,15 @@ import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -88,7 +95,7 @@ public class BluetoothGattParserTest {
         assertNotNull(response);
 
         verify(defaultParser, times(1)).parse(characteristic, data);
-        verify(specificationReader, times(2)).getCharacteristicByUUID(CHARACTERISTIC_UUID);
+        verify(specificationReader, times(1)).getCharacteristicByUUID(CHARACTERISTIC_UUID);
     }
 
     @Test(expected = CharacteristicFormatException.class)
@@ -107,8 +114,94 @@ public class BluetoothGattParserTest {
         assertNotNull(response);
 
         verify(defaultParser, times(0)).parse(characteristic, data);
-        verify(specificationReader, times(2)).getCharacteristicByUUID(CHARACTERISTIC_UUID);
+        verify(specificationReader, times(1)).getCharacteristicByUUID(CHARACTERISTIC_UUID);
+        verify(customParser, times(1)).parse(characteristic, data);
+    }
+
+    @Test
+    public void testParseResolvedOnce() {
+        String fullUUID = "00002aa7-0000-1000-8000-00805f9b34fb";
+        parser.parse(fullUUID, data);
+        parser.parse(fullUUID, data);
+        assertTrue(parser.isValidForRead(fullUUID));
+
+        verify(defaultParser, times(2)).parse(characteristic, data);
+        verify(specificationReader, times(1)).getCharacteristicByUUID(CHARACTERISTIC_UUID);
+    }
+
+    @Test
+    public void testParseUUID() {
+        UUID uuid = UUID.fromString("00002aa7-0000-1000-8000-00805f9b34fb");
+        assertNotNull(parser.parse(uuid, data));
+        assertNotNull(parser.parse(uuid, data));
+
+        verify(defaultParser, times(2)).parse(characteristic, data);
+        verify(specificationReader, times(1)).getCharacteristicByUUID(CHARACTERISTIC_UUID);
+    }
+
+    @Test(expected = CharacteristicFormatException.class)
+    public void testParseUnknownUUID() {
+        parser.parse(UUID.fromString("0000ffff-0000-1000-8000-00805f9b34fb"), data);
+    }
+
+    @Test
+    public void testTryParseFailureLog() {
+        byte[] malformed = {0x1};
+        when(defaultParser.parse(characteristic, malformed)).thenThrow(new CharacteristicFormatException());
+        CharacteristicHandle handle = parser.bind(CHARACTERISTIC_UUID);
+        CharacteristicHandle uuidHandle = parser.bind(UUID.fromString("00002aa7-0000-1000-8000-00805f9b34fb"));
+        assertNotSame(handle, uuidHandle);
+
+        assertEquals(ParseResult.INVALID_VALUE, parser.tryParse(handle, malformed, new ParseResult()).getCode());
+        assertEquals(ParseResult.INVALID_VALUE, parser.tryParse(uuidHandle, malformed, new ParseResult()).getCode());
+        verify(parser, times(2)).countFailure(eq(CHARACTERISTIC_UUID), anyLong());
+
+        // failures are logged once per interval per characteristic regardless of handles
+        long now = System.nanoTime() + BluetoothGattParser.FAILURE_LOG_INTERVAL;
+        assertEquals(1, parser.countFailure(CHARACTERISTIC_UUID, now));
+        assertEquals(-1, parser.countFailure(CHARACTERISTIC_UUID, now + 1));
+        assertEquals(0, parser.countFailure("2A19", now + 1));
+        assertEquals(-1, parser.countFailure(CHARACTERISTIC_UUID, now + BluetoothGattParser.FAILURE_LOG_INTERVAL - 1));
+        assertEquals(2, parser.countFailure(CHARACTERISTIC_UUID, now + BluetoothGattParser.FAILURE_LOG_INTERVAL));
+    }
+
+    @Test
+    public void testBind() {
+        CharacteristicHandle handle = parser.bind(CHARACTERISTIC_UUID);
+        assertEquals(CHARACTERISTIC_UUID, handle.getCharacteristicUUID());
+        assertSame(characteristic, handle.getCharacteristic());
+        assertTrue(handle.isValidForRead());
+        assertSame(handle, parser.bind(CHARACTERISTIC_UUID));
+        assertNull(parser.bind("FFFF"));
+
+        assertNotNull(parser.parse(handle, data));
+        verify(defaultParser, times(1)).parse(characteristic, data);
+
+        // the handle gets resolved again once a custom parser is registered
+        CharacteristicParser customParser = mock(CharacteristicParser.class);
+        parser.registerParser(CHARACTERISTIC_UUID, customParser);
+        parser.parse(handle, data);
         verify(customParser, times(1)).parse(characteristic, data);
+        verify(defaultParser, times(1)).parse(characteristic, data);
+    }
+
+    @Test
+    public void testQueriesDoNotResolve() {
+        GenericCharacteristicParser genericParser = mock(GenericCharacteristicParser.class);
+        BluetoothGattParser gattParser = new BluetoothGattParser(specificationReader, genericParser);
+
+        assertTrue(gattParser.isKnownCharacteristic(CHARACTERISTIC_UUID));
+        assertTrue(gattParser.isValidForRead(CHARACTERISTIC_UUID));
+        assertTrue(gattParser.isValidForWrite(CHARACTERISTIC_UUID));
+        assertSame(characteristic, gattParser.getCharacteristic(CHARACTERISTIC_UUID));
+        verify(genericParser, never()).getLayout(characteristic);
+        verify(specificationReader, times(4)).getCharacteristicByUUID(CHARACTERISTIC_UUID);
+
+        // bound characteristics are served from the handle cache
+        gattParser.bind(CHARACTERISTIC_UUID);
+        verify(genericParser, times(1)).getLayout(characteristic);
+        assertTrue(gattParser.isValidForRead(CHARACTERISTIC_UUID));
+        verify(specificationReader, times(5)).getCharacteristicByUUID(CHARACTERISTIC_UUID);
     }
 
     @Test
@@ -28,6 +28,7 @@ import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.sputnikdev.bluetooth.gattparser.spec.Enumeration;
 import org.sputnikdev.bluetooth.gattparser.spec.Field;
+import org.sputnikdev.bluetooth.gattparser.spec.FieldScale;
 import org.sputnikdev.bluetooth.gattparser.spec.FieldType;
 
 import java.math.BigInteger;
@@ -54,6 +55,7 @@ public class FieldHolderTest {
     @Before
     public void setUp() {
         when(field.getFormat().isStruct()).thenReturn(false);
+        when(field.getScale()).thenReturn(FieldScale.IDENTITY);
     }
 
     @Test
@@ -409,6 +411,22 @@ public class FieldHolderTest {
         assertGetDouble(2120.0D, 1, 2, 3, 2000.0, 1);
     }
 
+    @Test
+    public void testGetAsPrimitives() {
+        mockField(null, null, null, null);
+        assertEquals(-1, new FieldHolder(field, (long) Integer.MAX_VALUE + 1).getAsInt(-1));
+        assertEquals((long) Integer.MAX_VALUE + 1, new FieldHolder(field, (long) Integer.MAX_VALUE + 1).getAsLong(-1));
+        assertEquals(1, new FieldHolder(field, true).getAsInt(-1));
+        assertEquals(5, new FieldHolder(field, 5.7F).getAsLong(-1));
+        assertEquals(-1, new FieldHolder(field, null).getAsLong(-1));
+        assertEquals(0.5, new FieldHolder(field, null).getAsDouble(0.5), 0);
+
+        mockField(-1, null, null, 2.0);
+        assertEquals(3, new FieldHolder(field, 5).getAsInt(-1));
+        assertEquals(3, new FieldHolder(field, 5L).getAsLong(-1));
+        assertEquals(2.5, new FieldHolder(field, 5).getAsDouble(-1), 0.00001);
+    }
+
     @Test
     public void testSetInteger() throws Exception {
         mockField(1, 2, 3, 0.0);
@@ -609,6 +627,7 @@ public class FieldHolderTest {
         FieldHolder fieldHolder = new FieldHolder(field, value);
         mockField(decimalExponent, binaryExponent, multiplier, offset);
         assertEquals(expected, fieldHolder.getInteger(null));
+        assertEquals(expected != null ? expected : Integer.MIN_VALUE, fieldHolder.getAsInt(Integer.MIN_VALUE));
     }
 
     private <T> void assertSet(BiConsumer<FieldHolder, T> setter, Object expected, FieldType fieldType, int size, T value) {
@@ -636,6 +655,7 @@ public class FieldHolderTest {
         FieldHolder fieldHolder = new FieldHolder(field, value);
         mockField(decimalExponent, binaryExponent, multiplier, offset);
         assertEquals(expected, fieldHolder.getLong(null));
+        assertEquals(expected != null ? expected : Long.MIN_VALUE, fieldHolder.getAsLong(Long.MIN_VALUE));
     }
 
     private void assertGetFloat(Float expected, Integer decimalExponent, Integer binaryExponent,
@@ -655,8 +675,10 @@ public class FieldHolderTest {
         mockField(decimalExponent, binaryExponent, multiplier, offset);
         if (expected == null) {
             assertNull(fieldHolder.getDouble(null));
+            assertTrue(Double.isNaN(fieldHolder.getAsDouble(Double.NaN)));
         } else {
             assertEquals(expected, fieldHolder.getDouble(null), 0.00001);
+            assertEquals(fieldHolder.getDouble(null), fieldHolder.getAsDouble(Double.NaN), 0);
         }
     }
 
@@ -682,6 +704,7 @@ public class FieldHolderTest {
         when(field.getBinaryExponent()).thenReturn(binaryExponent);
         when(field.getMultiplier()).thenReturn(multiplier);
         when(field.getOffset()).thenReturn(offset);
+        when(field.getScale()).thenReturn(FieldScale.valueOf(decimalExponent, binaryExponent, multiplier, offset));
     }
 
 }
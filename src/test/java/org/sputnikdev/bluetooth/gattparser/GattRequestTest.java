@@ -181,6 +181,25 @@ public class GattRequestTest {
 
     }
 
+    @Test
+    public void testGetUnsetHolders() {
+        List<Field> fields = new ArrayList<>();
+        fields.add(MockUtils.mockField("Field1", "C1", "C2"));
+        fields.add(MockUtils.mockField("Field2", "C2"));
+        fields.add(MockUtils.mockField("Field3", "Mandatory"));
+        GattRequest gattRequest = new GattRequest(CHARACTERISTIC_UUID, fields);
+        assertEquals(0, gattRequest.getRequirementMask("C3"));
+        long c1 = gattRequest.getRequirementMask("C1");
+        long c2 = gattRequest.getRequirementMask("C2");
+
+        assertEquals(2, gattRequest.getUnsetHolders(c2).size());
+        assertEquals("Field3", gattRequest.getUnsetHolders(FieldRequirements.MANDATORY).get(0).getField().getName());
+
+        gattRequest.setField("Field1", 1);
+        assertTrue(gattRequest.getUnsetHolders(c1).isEmpty());
+        assertEquals("Field2", gattRequest.getUnsetHolders(c1 | c2).get(0).getField().getName());
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void testInvalidFieldName() {
         List<Field> fields = new ArrayList<>();
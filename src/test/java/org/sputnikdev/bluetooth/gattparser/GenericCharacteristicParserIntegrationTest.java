@@ -20,20 +20,40 @@ package org.sputnikdev.bluetooth.gattparser;
  * #L%
  */
 
+import org.junit.Assume;
 import org.junit.Test;
+import org.sputnikdev.bluetooth.gattparser.spec.BluetoothGattSpecificationReader;
 import org.sputnikdev.bluetooth.gattparser.spec.Enumeration;
+import org.sputnikdev.bluetooth.gattparser.spec.PreloadReport;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class GenericCharacteristicParserIntegrationTest {
 
+    // bytes that reading the thread allocation counter may allocate itself
+    private static final long MAX_COUNTER_ALLOCATION = 64;
+
     private BluetoothGattParser parser = BluetoothGattParserFactory.getDefault();
 
     @Test
@@ -124,6 +144,190 @@ public class GenericCharacteristicParserIntegrationTest {
         assertEquals(2, (int) response.get("Adjust Reason").getInteger(null));
     }
 
+    @Test
+    public void testParseRegion() {
+        // current time (nested references) and a string surrounded by unrelated data
+        byte[] data = {-1, -1, (byte) 2017, 2017 >> 8, 1, 4, 11, 38, 45, 3, 1, 2, 68, 120, -1};
+
+        GattResponse response = parser.parse("2A2B", data, 2, 10);
+        assertEquals(9, response.getSize());
+        assertEquals(2017, (int) response.get("Year").getInteger(null));
+        assertEquals(45, (int) response.get("Seconds").getInteger(null));
+        assertEquals(2, (int) response.get("Adjust Reason").getInteger(null));
+
+        response = parser.parse("2A27", data, 12, 2);
+        assertEquals("Dx", response.get("Hardware Revision").getString(null));
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(data.length);
+        buffer.put(data);
+        buffer.position(12).limit(14);
+        response = parser.parse("2A27", buffer);
+        assertEquals("Dx", response.get("Hardware Revision").getString(null));
+        assertEquals(12, buffer.position());
+
+        buffer = ByteBuffer.wrap(data, 1, 14).slice();
+        buffer.position(1).limit(11);
+        response = parser.parse("2A2B", buffer);
+        assertEquals(2017, (int) response.get("Year").getInteger(null));
+        assertEquals(2, (int) response.get("Adjust Reason").getInteger(null));
+    }
+
+    @Test(expected = CharacteristicFormatException.class)
+    public void testParseRegionNotEnoughData() {
+        // the region is too short even though the array has enough data
+        parser.parse("2A2B", new byte[] {(byte) 2017, 2017 >> 8, 1, 4, 11, 38, 45, 3, 1, 2}, 0, 9);
+    }
+
+    @Test
+    public void testTryParse() {
+        ParseResult result = parser.tryParse("2A37", new byte[] {20, 74, 13, 3});
+        assertTrue(result.isOk());
+        assertEquals(74, (int) result.getResponse().get("Heart Rate Measurement Value (uint8)").getInteger(null));
+
+        // uint16 heart rate value is truncated
+        CharacteristicHandle handle = parser.bind("2A37");
+        assertSame(result, handle.tryParse(new byte[] {-1, 1, 74, -1}, 1, 2, result));
+        assertFalse(result.isOk());
+        assertEquals(ParseResult.NOT_ENOUGH_DATA, result.getCode());
+        assertEquals("Heart Rate Measurement Value (uint16)", result.getField().getName());
+        assertEquals(2, result.getFieldIndex());
+        assertEquals(1, result.getByteOffset());
+        assertEquals(0, result.getResponse().getSize());
+
+        // the result is reusable
+        handle.tryParse(new byte[] {0, 74}, result);
+        assertTrue(result.isOk());
+        assertEquals(-1, result.getFieldIndex());
+        assertEquals(74, (int) result.getResponse().get("Heart Rate Measurement Value (uint8)").getInteger(null));
+
+        // adjust reason of the current time is missing
+        result = parser.tryParse("2A2B", new byte[] {(byte) 2017, 2017 >> 8, 1, 4, 11, 38, 45, 3, 1});
+        assertEquals(ParseResult.NOT_ENOUGH_DATA, result.getCode());
+        assertEquals("Adjust Reason", result.getField().getName());
+        assertEquals(9, result.getByteOffset());
+
+        result = parser.tryParse("FFFF", new byte[] {1});
+        assertEquals(ParseResult.INVALID_CHARACTERISTIC, result.getCode());
+        assertEquals(0, result.getResponse().getSize());
+    }
+
+    @Test
+    public void testConcurrentParseAndRegister() throws Exception {
+        BluetoothGattSpecificationReader reader = BluetoothGattParserFactory.getSpecificationReader();
+        BluetoothGattParser parser = new BluetoothGattParser(reader, new GenericCharacteristicParser(reader));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(executor.submit(() -> {
+                    int sum = 0;
+                    for (int j = 0; j < 1000; j++) {
+                        sum += parser.parse("2A37", new byte[] {20, 74, 13, 3})
+                                .get("Heart Rate Measurement Value (uint8)").getInteger(null);
+                    }
+                    return sum;
+                }));
+            }
+            for (int i = 0; i < 100; i++) {
+                parser.registerParser("FFF" + i % 10, new GenericCharacteristicParser(reader));
+            }
+            for (Future<Integer> future : futures) {
+                assertEquals(74000, (int) future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testConcurrentResponseReaders() throws Exception {
+        CharacteristicHandle heartRate = parser.bind("2A37");
+        int index = heartRate.getFieldIndex("RR-Interval");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (int i = 0; i < 100; i++) {
+                // field holders are created by readers of a shared response
+                GattResponse response = heartRate.parse(new byte[] {20, 74, 13, 3});
+                List<Future<FieldHolder>> futures = new ArrayList<>();
+                for (int j = 0; j < 2; j++) {
+                    futures.add(executor.submit(() -> response.get(index)));
+                    futures.add(executor.submit(() -> response.getHolders().get("RR-Interval")));
+                }
+                for (Future<FieldHolder> future : futures) {
+                    assertSame(response.get(index), future.get());
+                    assertEquals(781, (int) future.get().getInteger(null));
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testPreload() {
+        BluetoothGattSpecificationReader reader = new BluetoothGattSpecificationReader();
+        BluetoothGattParser parser = new BluetoothGattParser(reader, new GenericCharacteristicParser(reader));
+        PreloadReport report = parser.preload(ForkJoinPool.commonPool());
+        assertEquals(191, report.getCharacteristics());
+        assertEquals(74, (int) parser.parse("2A37", new byte[] {20, 74, 13, 3})
+                .get("Heart Rate Measurement Value (uint8)").getInteger(null));
+    }
+
+    @Test
+    public void testParseCache() {
+        BluetoothGattSpecificationReader reader = new BluetoothGattSpecificationReader();
+        BluetoothGattParser parser = new BluetoothGattParser(reader, new GenericCharacteristicParser(reader));
+        assertNull(parser.getParseCacheStats());
+        parser.enableParseCache(2);
+
+        GattResponse response = parser.parse("2A37", new byte[] {20, 74, 13, 3});
+        assertSame(response, parser.parse("2A37", new byte[] {-1, 20, 74, 13, 3, -1}, 1, 4));
+        CharacteristicHandle handle = parser.bind("2A37");
+        assertSame(response, handle.parse(new byte[] {20, 74, 13, 3}));
+        assertEquals(74, response.getLong(handle.getFieldIndex("Heart Rate Measurement Value (uint8)"), 0));
+        assertEquals(781, (int) response.get("RR-Interval").getInteger(null));
+        assertEquals(2, parser.getParseCacheStats().hitCount());
+        assertEquals(1, parser.getParseCacheStats().missCount());
+
+        // cached responses are shared, so they cannot be modified
+        try {
+            response.get("RR-Interval").setInteger(1);
+            fail();
+        } catch (UnsupportedOperationException ignore) { }
+        try {
+            response.getFieldHolders().clear();
+            fail();
+        } catch (UnsupportedOperationException ignore) { }
+        assertEquals(2, response.getSize());
+
+        // the least recently used response is evicted
+        GattResponse battery = parser.parse("2A19", new byte[] {51});
+        assertSame(response, parser.parse("2A37", new byte[] {20, 74, 13, 3}));
+        parser.parse("2A19", new byte[] {52});
+        assertSame(response, parser.parse("2A37", new byte[] {20, 74, 13, 3}));
+        assertNotSame(battery, parser.parse("2A19", new byte[] {51}));
+        assertEquals(4, parser.getParseCacheStats().hitCount());
+        assertEquals(4, parser.getParseCacheStats().missCount());
+        assertEquals(2, parser.getParseCacheStats().evictionCount());
+
+        // cached responses of a characteristic are not returned once a parser is registered for it
+        parser.registerParser("2A19", new GenericCharacteristicParser(reader));
+        assertNotSame(battery, parser.parse("2A19", new byte[] {51}));
+        assertEquals(51, (int) parser.parse("2A19", new byte[] {51}).get("Level").getInteger(null));
+
+        // requests are prepared from parsed values bypassing the cache, so that they can be modified
+        GattResponse rate = parser.parse("2A37", new byte[] {0, 60});
+        GattRequest request = parser.prepare("2A37", new byte[] {0, 60});
+        request.setField("Heart Rate Measurement Value (uint8)", 70);
+        assertEquals(70, (int) request.getFieldHolder("Heart Rate Measurement Value (uint8)").getInteger(null));
+        assertSame(rate, parser.parse("2A37", new byte[] {0, 60}));
+        assertEquals(60, (int) rate.get("Heart Rate Measurement Value (uint8)").getInteger(null));
+
+        parser.disableParseCache();
+        assertNull(parser.getParseCacheStats());
+        assertNotSame(parser.parse("2A19", new byte[] {51}), parser.parse("2A19", new byte[] {51}));
+    }
+
     @Test
     public void testWriteHeartRateSensor() {
         GattRequest request = parser.prepare("2A39");
@@ -134,6 +338,266 @@ public class GenericCharacteristicParserIntegrationTest {
 
     }
 
+    @Test
+    public void testParseBatch() {
+        CharacteristicHandle heartRate = parser.bind("2A37");
+        byte[][] values = {{20, 74, 13, 3}, {}, {4, 75}, {1, 76, 0}};
+        List<Integer> rates = new ArrayList<>();
+        List<Integer> errors = new ArrayList<>();
+        GattResponseConsumer consumer = new GattResponseConsumer() {
+            @Override
+            public void accept(int index, GattResponse response) {
+                rates.add(index);
+                rates.add(response.get("Heart Rate Measurement Value (uint8)") != null
+                        ? (int) response.get("Heart Rate Measurement Value (uint8)").getInteger(null)
+                        : (int) response.get("Heart Rate Measurement Value (uint16)").getInteger(null));
+            }
+
+            @Override
+            public void onError(int index, CharacteristicFormatException error) {
+                errors.add(index);
+            }
+        };
+        assertEquals(3, heartRate.parseBatch(values, consumer));
+        assertEquals(Arrays.asList(0, 74, 2, 75, 3, 76), rates);
+        assertEquals(Arrays.asList(1), errors);
+
+        // the same values packed into a single array
+        rates.clear();
+        errors.clear();
+        byte[] packed = {0, 20, 74, 13, 3, 4, 75, 1, 76, 0};
+        assertEquals(3, heartRate.parseBatch(packed, new int[] {1, 5, 5, 7}, new int[] {4, 0, 2, 3}, 4, consumer));
+        assertEquals(Arrays.asList(0, 74, 2, 75, 3, 76), rates);
+        assertEquals(Arrays.asList(1), errors);
+    }
+
+    @Test
+    public void testParseBatchIntoColumns() {
+        CharacteristicHandle heartRate = parser.bind("2A37");
+        GattResponseColumns columns = heartRate.newColumns(2);
+        // uint8 rate with RR-Interval, invalid value, uint8 rate, uint16 rate with energy expended
+        byte[][] values = {{20, 74, 13, 3}, {}, {4, 75}, {9, 76, 0, 5, 0}};
+        assertEquals(3, heartRate.parseBatch(values, columns));
+        assertEquals(4, columns.getRowCount());
+
+        int rate8 = heartRate.getFieldIndex("Heart Rate Measurement Value (uint8)");
+        int rate16 = heartRate.getFieldIndex("Heart Rate Measurement Value (uint16)");
+        int energy = heartRate.getFieldIndex("Energy Expended");
+        int rrInterval = heartRate.getFieldIndex("RR-Interval");
+        assertEquals("RR-Interval", columns.getField(rrInterval).getName());
+        assertEquals(74, columns.getLongs(rate8)[0]);
+        assertEquals(75, columns.getLongs(rate8)[2]);
+        assertEquals(76, columns.getLongs(rate16)[3]);
+        assertEquals(5, columns.getLong(energy, 3, -1));
+        assertEquals(781, columns.getLong(rrInterval, 0, -1));
+        assertEquals(781.0, columns.getDouble(rrInterval, 0, -1), 0);
+        // validity bitmaps
+        assertEquals(0b0101, columns.getValidity(rate8)[0]);
+        assertEquals(0b1000, columns.getValidity(rate16)[0]);
+        assertEquals(0b0001, columns.getValidity(rrInterval)[0]);
+        assertFalse(columns.isValid(rate8, 1));
+        assertEquals(-1, columns.getLong(rate8, 1, -1));
+
+        columns.clear();
+        assertEquals(0, columns.getRowCount());
+        assertEquals(1, heartRate.parseBatch(new byte[][] {{4, 77}}, columns));
+        assertEquals(77, columns.getLong(rate8, 0, -1));
+        assertEquals(0b1, columns.getValidity(rate8)[0]);
+        assertEquals(0, columns.getValidity(rrInterval)[0]);
+    }
+
+    @Test
+    public void testParseBatchIntoFloatColumns() {
+        CharacteristicHandle temperature = parser.bind("2A1C");
+        GattResponseColumns columns = temperature.newColumns(1);
+        // 36.6 and 98.1 (FLOAT: mantissa 366, 981, exponent -1), the second one is in Fahrenheit
+        temperature.parseBatch(new byte[][] {{0, 0x6E, 0x01, 0x00, (byte) 0xFF}, {1, (byte) 0xD5, 0x03, 0x00,
+                (byte) 0xFF}}, columns);
+        int celsius = temperature.getFieldIndex("Temperature Measurement Value (Celsius)");
+        int fahrenheit = temperature.getFieldIndex("Temperature Measurement Value (Fahrenheit)");
+        assertEquals(36.6, columns.getDoubles(celsius)[0], 0.001);
+        assertEquals(98.1, columns.getDouble(fahrenheit, 1, 0), 0.001);
+        assertTrue(columns.isValid(celsius, 0));
+        assertFalse(columns.isValid(celsius, 1));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testColumnsWrongType() {
+        CharacteristicHandle heartRate = parser.bind("2A37");
+        heartRate.newColumns(1).getDoubles(heartRate.getFieldIndex("RR-Interval"));
+    }
+
+    @Test(expected = CharacteristicFormatException.class)
+    public void testParseBatchError() {
+        parser.bind("2A37").parseBatch(new byte[][] {{4, 75}, {}}, (index, response) -> { });
+    }
+
+    @Test
+    public void testSerializeMaxLength() throws Exception {
+        GattRequest request = parser.prepare("2A87");
+        String email = "a.very.long.email.address@example.com";
+        request.setField("Email Address", email);
+
+        // the default ATT MTU allows only 20 bytes
+        assertEquals(20, parser.serialize(request).length);
+        try {
+            parser.serialize(request, BluetoothGattParser.getMaxWriteLength(BluetoothGattParser.DEFAULT_ATT_MTU));
+            fail("Overflow expected");
+        } catch (CharacteristicOverflowException ex) {
+            assertEquals(email.length(), ex.getLength());
+        }
+        assertEquals(email, new String(parser.serialize(request, BluetoothGattParser.getMaxWriteLength(64)),
+                "UTF-8"));
+
+        byte[] buffer = new byte[100];
+        CharacteristicHandle handle = parser.bind("2A87");
+        int length = handle.serialize(request, buffer, 10, buffer.length - 10);
+        assertEquals(email, new String(buffer, 10, length, "UTF-8"));
+    }
+
+    @Test
+    public void testSerializeLongWrite() throws Exception {
+        GattRequest request = parser.prepare("2A87");
+        String email = "a.very.long.email.address@example.com";
+        request.setField("Email Address", email);
+
+        // prepare write requests carry 18 bytes of the value with the default ATT MTU
+        List<byte[]> chunks = parser.serializeLongWrite(request, BluetoothGattParser.DEFAULT_ATT_MTU);
+        assertEquals(3, chunks.size());
+        assertEquals(email.substring(0, 18), new String(chunks.get(0), "UTF-8"));
+        assertEquals(email.substring(18, 36), new String(chunks.get(1), "UTF-8"));
+        assertEquals(email.substring(36), new String(chunks.get(2), "UTF-8"));
+
+        chunks = parser.serializeLongWrite(request, 64);
+        assertEquals(1, chunks.size());
+        assertEquals(email, new String(chunks.get(0), "UTF-8"));
+    }
+
+    @Test
+    public void testHandle() {
+        CharacteristicHandle heartRate = parser.bind("2A37");
+        GattResponse response = heartRate.parse(new byte[] {20, 74, 13, 3});
+        assertEquals(74, (int) response.get("Heart Rate Measurement Value (uint8)").getInteger(null));
+        assertEquals(781, (int) response.get("RR-Interval").getInteger(null));
+        response = heartRate.parse(new byte[] {0, 0, 4, 74, 0}, 2, 2);
+        assertEquals(74, (int) response.get("Heart Rate Measurement Value (uint8)").getInteger(null));
+        response = heartRate.parse(ByteBuffer.wrap(new byte[] {4, 74}));
+        assertEquals(74, (int) response.get("Heart Rate Measurement Value (uint8)").getInteger(null));
+
+        CharacteristicHandle controlPoint = parser.bind("2A39");
+        GattRequest request = controlPoint.prepare();
+        request.setField("Heart Rate Control Point", 1);
+        assertArrayEquals(new byte[] {1}, controlPoint.serialize(request));
+    }
+
+    @Test
+    public void testRequirementMasks() {
+        // parsing and validation share the same requirement vocabulary
+        CharacteristicHandle temperature = parser.bind("2A1C");
+        CharacteristicLayout layout = temperature.getLayout();
+        byte[] raw = {0b010, 0x6E, 0x01, 0x00, (byte) 0xFF, (byte) 0xE1, 0x07, 1, 1, 0, 0, 0};
+        long flags = layout.readFlags(raw, 0, raw.length * 8);
+        assertEquals(FieldRequirements.MANDATORY | layout.getRequirements().getMask("C1")
+                | layout.getRequirements().getMask("C3"), flags);
+        for (GattRequest request : Arrays.asList(temperature.prepare(), parser.prepare("2A1C", raw))) {
+            for (String requirement : Arrays.asList("C1", "C2", "C4")) {
+                assertEquals(layout.getRequirements().getMask(requirement), request.getRequirementMask(requirement));
+            }
+        }
+    }
+
+    @Test
+    public void testHandleFieldIndex() {
+        CharacteristicHandle heartRate = parser.bind("2A37");
+        int value = heartRate.getFieldIndex("Heart Rate Measurement Value (uint8)");
+        int energy = heartRate.getFieldIndex("Energy Expended");
+        int interval = heartRate.getFieldIndex("RR-Interval");
+        assertEquals(-1, heartRate.getFieldIndex("Unknown"));
+
+        GattResponse response = heartRate.parse(new byte[] {20, 74, 13, 3});
+        assertEquals(2, response.getSize());
+        assertTrue(response.contains(value));
+        assertFalse(response.contains(energy));
+        assertEquals(74, response.getLong(value, -1));
+        assertEquals(781, response.getLong(interval, -1));
+        assertEquals(-1, response.getLong(energy, -1));
+        assertEquals(74, (int) response.get(value).getInteger());
+        assertSame(response.get(value), response.get("Heart Rate Measurement Value (uint8)"));
+        assertEquals(Arrays.asList("Heart Rate Measurement Value (uint8)", "RR-Interval"),
+                new ArrayList<>(response.getFieldNames()));
+
+        // scaled values
+        CharacteristicHandle temperature = parser.bind("2A6E");
+        int index = temperature.getFieldIndex("Temperature");
+        response = temperature.parse(new byte[] {(byte) 0xA3, 0x09});
+        assertEquals(24.67, response.getDouble(index, 0), 0.001);
+        assertEquals(response.get(index).getDouble(), response.getDouble(index, 0), 0);
+        assertEquals(25, response.getLong(index, 0));
+
+        // floating point numbers
+        CharacteristicHandle measurement = parser.bind("2A1C");
+        response = measurement.parse(new byte[] {0, (byte) 0xE4, 0x0E, 0x00, (byte) 0xFF});
+        assertEquals(381.2, response.getDouble(measurement.getFieldIndex("Temperature Measurement Value (Celsius)"), 0),
+                0.001);
+    }
+
+    @Test
+    public void testParseInto() {
+        CharacteristicHandle heartRate = parser.bind("2A37");
+        int value = heartRate.getFieldIndex("Heart Rate Measurement Value (uint8)");
+        int interval = heartRate.getFieldIndex("RR-Interval");
+        MutableGattResponse response = new MutableGattResponse();
+        assertEquals(0, response.getSize());
+
+        assertSame(response, heartRate.parseInto(new byte[] {20, 74, 13, 3}, response));
+        assertEquals(2, response.getSize());
+        assertEquals(781, response.getLong(interval, -1));
+        FieldHolder holder = response.get(value);
+
+        heartRate.parseInto(new byte[] {0, 0, 4, 75, 0}, 2, 2, response);
+        assertEquals(1, response.getSize());
+        assertEquals(75, response.getLong(value, -1));
+        assertEquals(75, (int) response.get("Heart Rate Measurement Value (uint8)").getInteger());
+        assertFalse(response.contains("RR-Interval"));
+        assertEquals(74, (int) holder.getInteger());
+
+        // not enough data, the response gets cleared
+        try {
+            heartRate.parseInto(new byte[] {1, 75}, response);
+            fail();
+        } catch (CharacteristicFormatException ignore) { }
+        assertEquals(0, response.getSize());
+
+        // another characteristic
+        parser.parseInto(parser.bind("2A19"), new byte[] {51}, response);
+        assertEquals(1, response.getSize());
+        assertEquals(51, (int) response.get("Level").getInteger());
+
+        response.clear();
+        assertEquals(0, response.getSize());
+        assertFalse(response.contains("Level"));
+    }
+
+    @Test
+    public void testParseIntoAllocation() {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) threadBean).isThreadAllocatedMemorySupported());
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threadBean;
+        ((com.sun.management.ThreadMXBean) threadBean).setThreadAllocatedMemoryEnabled(true);
+
+        assertNoAllocation(allocations, parser.bind("2A19"), new byte[] {51}, "Level");
+        assertNoAllocation(allocations, parser.bind("2A37"), new byte[] {20, 74, 13, 3},
+                "Heart Rate Measurement Value (uint8)");
+        assertNoAllocation(allocations, parser.bind("2A37"), new byte[] {25, 1, 74, 0, 12, 0, 13, 3},
+                "Heart Rate Measurement Value (uint16)");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testHandleSerializeOtherCharacteristic() {
+        parser.bind("2A37").serialize(parser.prepare("2A39"));
+    }
+
     @Test
     public void testOregonWeatherStation() {
         /*
@@ -419,6 +883,32 @@ public class GenericCharacteristicParserIntegrationTest {
         assertArrayEquals(expected, parser.serialize(request, false));
     }
 
+    private void assertNoAllocation(com.sun.management.ThreadMXBean allocations, CharacteristicHandle handle,
+                                    byte[] data, String fieldName) {
+        int index = handle.getFieldIndex(fieldName);
+        MutableGattResponse response = new MutableGattResponse();
+        int iterations = 10000;
+        long sum = 0;
+        // warming up so that lazily initialized state does not count
+        for (int i = 0; i < iterations; i++) {
+            sum += handle.parseInto(data, response).getLong(index, 0);
+        }
+        long threadId = Thread.currentThread().getId();
+        // the best of a few rounds, a round may still run partly interpreted or in a less optimized tier
+        long allocated = Long.MAX_VALUE;
+        for (int round = 0; round < 5 && allocated > MAX_COUNTER_ALLOCATION; round++) {
+            long before = allocations.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < iterations; i++) {
+                sum += handle.parseInto(data, response).getLong(index, 0);
+            }
+            allocated = Math.min(allocated, allocations.getThreadAllocatedBytes(threadId) - before);
+        }
+        assertTrue(sum > 0);
+        // the total of a round is checked, a per parse average would hide an object allocated every few parses
+        assertTrue("Bytes allocated by " + iterations + " parses of " + handle.getCharacteristicUUID() + ": "
+                + allocated, allocated <= MAX_COUNTER_ALLOCATION);
+    }
+
     private void assertField(Integer expectedValue, String expectedEnum,
                              String characteristicUUID, byte[] data, String fieldName) {
         FieldHolder fieldHolder = parser.parse(characteristicUUID, data).get(fieldName);
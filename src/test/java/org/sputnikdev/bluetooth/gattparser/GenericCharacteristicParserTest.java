@@ -31,13 +31,16 @@ import org.powermock.api.mockito.PowerMockito;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 import org.sputnikdev.bluetooth.gattparser.num.FloatingPointNumberFormatter;
+import org.sputnikdev.bluetooth.gattparser.num.IEEE754FloatingPointNumberFormatter;
 import org.sputnikdev.bluetooth.gattparser.num.RealNumberFormatter;
+import org.sputnikdev.bluetooth.gattparser.num.TwosComplementNumberFormatter;
 import org.sputnikdev.bluetooth.gattparser.spec.Bit;
 import org.sputnikdev.bluetooth.gattparser.spec.BitField;
 import org.sputnikdev.bluetooth.gattparser.spec.BluetoothGattSpecificationReader;
 import org.sputnikdev.bluetooth.gattparser.spec.Characteristic;
 import org.sputnikdev.bluetooth.gattparser.spec.Field;
 import org.sputnikdev.bluetooth.gattparser.spec.FlagUtils;
+import org.sputnikdev.bluetooth.gattparser.spec.Value;
 
 import java.io.UnsupportedEncodingException;
 import java.math.BigInteger;
@@ -56,6 +59,7 @@ import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Matchers.anyByte;
@@ -68,6 +72,7 @@ import static org.mockito.Mockito.anyInt;
 import static org.mockito.Mockito.anyList;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -113,15 +118,15 @@ public class GenericCharacteristicParserTest {
 
     @Test
     public void testParseFormats() throws CharacteristicFormatException, UnsupportedEncodingException {
-        when(ieee754NumberFormatter.deserializeSFloat(Matchers.<BitSet>any())).thenReturn(0.0F);
-        when(ieee754NumberFormatter.deserializeFloat(Matchers.<BitSet>any())).thenReturn(0.0F);
-        when(ieee754NumberFormatter.deserializeDouble(Matchers.<BitSet>any())).thenReturn(0.0D);
+        when(ieee754NumberFormatter.readSFloat(any(byte[].class), anyInt())).thenReturn(0.0F);
+        when(ieee754NumberFormatter.readFloat(any(byte[].class), anyInt())).thenReturn(0.0F);
+        when(ieee754NumberFormatter.readDouble(any(byte[].class), anyInt())).thenReturn(0.0D);
 
-        when(ieee11073NumberFormatter.deserializeSFloat(Matchers.<BitSet>any())).thenReturn(0.0F);
-        when(ieee11073NumberFormatter.deserializeFloat(Matchers.<BitSet>any())).thenReturn(0.0F);
+        when(ieee11073NumberFormatter.readSFloat(any(byte[].class), anyInt())).thenReturn(0.0F);
+        when(ieee11073NumberFormatter.readFloat(any(byte[].class), anyInt())).thenReturn(0.0F);
 
-        when(twosComplementNumberFormatter.deserializeInteger(Matchers.<BitSet>any(), anyByte(), anyBoolean())).thenReturn(0);
-        when(twosComplementNumberFormatter.deserializeLong(Matchers.<BitSet>any(), anyByte(), anyBoolean())).thenReturn(0L);
+        when(twosComplementNumberFormatter.readInt(any(byte[].class), anyInt(), anyInt(), anyBoolean())).thenReturn(0);
+        when(twosComplementNumberFormatter.readLong(any(byte[].class), anyInt(), anyInt(), anyBoolean())).thenReturn(0L);
         when(twosComplementNumberFormatter.deserializeBigInteger(Matchers.<BitSet>any(), anyByte(), anyBoolean())).thenReturn(BigInteger.ZERO);
 
 
@@ -131,44 +136,44 @@ public class GenericCharacteristicParserTest {
         assertParseFormat(true, "boolean", new byte[] {(byte) 0b101});
 
         assertParseFormat(0, "2bit", data);
-        verify(twosComplementNumberFormatter, times(1)).deserializeInteger(bits, 2, false);
+        verify(twosComplementNumberFormatter, times(1)).readInt(data, 0, 2, false);
         assertParseFormat(0, "8bit", data);
-        verify(twosComplementNumberFormatter, times(1)).deserializeInteger(bits, 8, false);
+        verify(twosComplementNumberFormatter, times(1)).readInt(data, 0, 8, false);
         assertParseFormat(0, "uint8", data);
-        verify(twosComplementNumberFormatter, times(2)).deserializeInteger(bits, 8, false);
+        verify(twosComplementNumberFormatter, times(2)).readInt(data, 0, 8, false);
         assertParseFormat(0, "sint8", data);
-        verify(twosComplementNumberFormatter, times(1)).deserializeInteger(bits, 8, true);
+        verify(twosComplementNumberFormatter, times(1)).readInt(data, 0, 8, true);
 
         assertParseFormat(0, "sint31", data);
-        verify(twosComplementNumberFormatter, times(1)).deserializeInteger(bits, 31, true);
+        verify(twosComplementNumberFormatter, times(1)).readInt(data, 0, 31, true);
         assertParseFormat(0, "uint31", data);
-        verify(twosComplementNumberFormatter, times(1)).deserializeInteger(bits, 31, false);
+        verify(twosComplementNumberFormatter, times(1)).readInt(data, 0, 31, false);
         assertParseFormat(0, "sint32", data);
-        verify(twosComplementNumberFormatter, times(1)).deserializeInteger(bits, 32, true);
+        verify(twosComplementNumberFormatter, times(1)).readInt(data, 0, 32, true);
         assertParseFormat(0L, "uint32", data);
-        verify(twosComplementNumberFormatter, times(1)).deserializeLong(bits, 32, false);
+        verify(twosComplementNumberFormatter, times(1)).readLong(data, 0, 32, false);
         assertParseFormat(0L, "sint33", data);
-        verify(twosComplementNumberFormatter, times(1)).deserializeLong(bits, 33, true);
+        verify(twosComplementNumberFormatter, times(1)).readLong(data, 0, 33, true);
 
         assertParseFormat(0L, "sint63", data);
-        verify(twosComplementNumberFormatter, times(1)).deserializeLong(bits, 63, true);
+        verify(twosComplementNumberFormatter, times(1)).readLong(data, 0, 63, true);
         assertParseFormat(0L, "uint63", data);
-        verify(twosComplementNumberFormatter, times(1)).deserializeLong(bits, 63, false);
+        verify(twosComplementNumberFormatter, times(1)).readLong(data, 0, 63, false);
         assertParseFormat(0L, "sint64", data);
-        verify(twosComplementNumberFormatter, times(1)).deserializeLong(bits, 64, true);
+        verify(twosComplementNumberFormatter, times(1)).readLong(data, 0, 64, true);
         assertParseFormat(BigInteger.ZERO, "uint64", data);
         verify(twosComplementNumberFormatter, times(1)).deserializeBigInteger(bits, 64, false);
         assertParseFormat(BigInteger.ZERO, "sint65", data);
         verify(twosComplementNumberFormatter, times(1)).deserializeBigInteger(bits, 65, true);
 
         assertParseFormat(0.0F, "float32", data);
-        verify(ieee754NumberFormatter, times(1)).deserializeFloat(bits);
+        verify(ieee754NumberFormatter, times(1)).readFloat(data, 0);
         assertParseFormat(0.0D, "float64", data);
-        verify(ieee754NumberFormatter, times(1)).deserializeDouble(bits);
+        verify(ieee754NumberFormatter, times(1)).readDouble(data, 0);
         assertParseFormat(0.0F, "sfloat", data);
-        verify(ieee11073NumberFormatter, times(1)).deserializeSFloat(bits);
+        verify(ieee11073NumberFormatter, times(1)).readSFloat(data, 0);
         assertParseFormat(0.0F, "float", data);
-        verify(ieee11073NumberFormatter, times(1)).deserializeFloat(bits);
+        verify(ieee11073NumberFormatter, times(1)).readFloat(data, 0);
 
         assertParseFormat("test8", "utf8s", "test8".getBytes());
         assertParseFormat("test16", "utf16s", "test16".getBytes("UTF-16"));
@@ -177,10 +182,19 @@ public class GenericCharacteristicParserTest {
     @Test
     public void testParse() throws CharacteristicFormatException, UnsupportedEncodingException {
         Object value = new Object();
-        doReturn(value).when(parser).parse(any(Field.class), any(byte[].class), anyInt());
+        doReturn(value).when(parser).parse(any(Field.class), any(byte[].class), anyInt(), anyInt());
 
         List<Field> fields = new ArrayList<>();
         Field flagsField = MockUtils.mockFieldFormat("flags", "uint8");
+        BitField bitField = mock(BitField.class);
+        when(flagsField.getBitField()).thenReturn(bitField);
+        List<Bit> bits = new ArrayList<Bit>() {{
+            add(MockUtils.mockBit(0, "C1"));
+            add(MockUtils.mockBit(1, "C2"));
+            add(MockUtils.mockBit(2, "C3"));
+            add(MockUtils.mockBit(3, "C4"));
+        }};
+        when(bitField.getBits()).thenReturn(bits);
         fields.add(flagsField); // should be ignored
         fields.add(MockUtils.mockFieldFormat("Field1", "uint8", "C1"));
         fields.add(MockUtils.mockFieldFormat("Field2", "uint8", "C1", "C2"));
@@ -193,17 +207,31 @@ public class GenericCharacteristicParserTest {
         when(characteristic.isValidForRead()).thenReturn(true);
 
         when(FlagUtils.isFlagsField(flagsField)).thenReturn(true);
-        when(FlagUtils.getReadFlags(anyList(), any(byte[].class))).thenReturn(
-                new HashSet<>(Arrays.asList("C1", "C3", "C4")));
-        assertFieldsExist(value, "Field1", "Field4", "Field6");
+        // C1, C3, C4
+        assertFieldsExist(value, (byte) 0b1101, "Field1", "Field4", "Field6");
+        // C2
+        assertFieldsExist(value, (byte) 0b0010, "Field3", "Field4", "Field6");
+        // C1, C2
+        assertFieldsExist(value, (byte) 0b0011, "Field1", "Field2", "Field3", "Field4", "Field6");
+    }
 
-        when(FlagUtils.getReadFlags(anyList(), any(byte[].class))).thenReturn(
-                new HashSet<>(Arrays.asList("C2")));
-        assertFieldsExist(value, "Field3", "Field4", "Field6");
+    @Test
+    public void testParseLayoutCached() {
+        List<Field> fields = new ArrayList<>();
+        fields.add(MockUtils.mockFieldFormat("Field1", "uint8", new String[] {}));
+        Value value = mock(Value.class);
+        when(value.getFields()).thenReturn(fields);
+        Characteristic characteristic = mock(Characteristic.class);
+        when(characteristic.getValue()).thenReturn(value);
+        when(characteristic.isValidForRead()).thenReturn(true);
 
-        when(FlagUtils.getReadFlags(anyList(), any(byte[].class))).thenReturn(
-                new HashSet<>(Arrays.asList("C1", "C2")));
-        assertFieldsExist(value, "Field1", "Field2", "Field3", "Field4", "Field6");
+        parser.parse(characteristic, new byte[] {1});
+        parser.parse(characteristic, new byte[] {2});
+        verify(value, times(1)).getFields();
+
+        parser.clearLayouts();
+        parser.parse(characteristic, new byte[] {3});
+        verify(value, times(2)).getFields();
     }
 
     @Test(expected = CharacteristicFormatException.class)
@@ -227,22 +255,22 @@ public class GenericCharacteristicParserTest {
 
         parser.parse(characteristic, data);
 
-        verify(twosComplementNumberFormatter, times(1)).deserializeLong(BitSet.valueOf(data).get(0, 40), 40, false);
-        verify(twosComplementNumberFormatter, times(1)).deserializeInteger(BitSet.valueOf(data).get(40, 64), 24, false);
+        verify(twosComplementNumberFormatter, times(1)).readLong(data, 0, 40, false);
+        verify(twosComplementNumberFormatter, times(1)).readInt(data, 40, 24, false);
 
     }
 
     @Test
     public void testParseComplexWithReferences() {
-        when(twosComplementNumberFormatter.deserializeInteger(Matchers.<BitSet>any(), eq(8), eq(false))).thenReturn(10);
+        when(twosComplementNumberFormatter.readInt(any(byte[].class), anyInt(), eq(8), eq(false))).thenReturn(10);
         // Flags for inner fields: C1, C2
         Set<String> flags = new HashSet<String>() {{
             add("C1");
             add("C2");
         }};
-        when(twosComplementNumberFormatter.deserializeInteger(Matchers.<BitSet>any(), eq(8), eq(true))).thenReturn(-12);
-        when(twosComplementNumberFormatter.deserializeInteger(Matchers.<BitSet>any(), eq(16), eq(false))).thenReturn(13);
-        when(twosComplementNumberFormatter.deserializeInteger(Matchers.<BitSet>any(), eq(16), eq(true))).thenReturn(14);
+        when(twosComplementNumberFormatter.readInt(any(byte[].class), anyInt(), eq(8), eq(true))).thenReturn(-12);
+        when(twosComplementNumberFormatter.readInt(any(byte[].class), anyInt(), eq(16), eq(false))).thenReturn(13);
+        when(twosComplementNumberFormatter.readInt(any(byte[].class), anyInt(), eq(16), eq(true))).thenReturn(14);
         byte[] data = new byte[] {10, 0b11, -12, 13, 0, 14, 0};
 
         List<Field> fields = new ArrayList<>();
@@ -287,6 +315,31 @@ public class GenericCharacteristicParserTest {
         assertEquals(14, (int) result.get("Field2").getInteger(null));
     }
 
+    @Test
+    public void testParseInvalidReference() {
+        List<Field> fields = new ArrayList<>();
+        fields.add(MockUtils.mockFieldFormat("Field1", "uint8", new String[] {}));
+        Field field = mock(Field.class);
+        when(field.getReference()).thenReturn("org.bluetooth.characteristic_id");
+        fields.add(field);
+        when(characteristic.getValue().getFields()).thenReturn(fields);
+        when(characteristic.isValidForRead()).thenReturn(true);
+        Characteristic referenced = mock(Characteristic.class, RETURNS_DEEP_STUBS);
+        List<Field> innerFields = Arrays.asList(MockUtils.mockFieldFormat("InnerField", "uint8"));
+        when(referenced.getValue().getFields()).thenReturn(innerFields);
+        when(referenced.isValidForRead()).thenReturn(false);
+        when(reader.getCharacteristicByType("org.bluetooth.characteristic_id")).thenReturn(referenced);
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                parser.parse(characteristic, new byte[] {1, 2});
+                fail("Referenced characteristic is not valid for read");
+            } catch (CharacteristicFormatException ignore) { }
+        }
+        // the reference is validated once when the layout is compiled
+        verify(referenced, times(1)).isValidForRead();
+    }
+
     @Test
     public void serialize() {
 
@@ -294,7 +347,7 @@ public class GenericCharacteristicParserTest {
         String str = "awesome value";
         int strLength = BitSet.valueOf(str.getBytes()).length();
 
-        when(twosComplementNumberFormatter.serialize(eq(sint4), eq(4), eq(true))).thenReturn(BitSet.valueOf(new long[] {sint4}));
+        spyFormatters();
 
         List<Field> fields = new ArrayList<>();
         fields.add(MockUtils.mockFieldFormat("Field1", "uint8"));
@@ -315,6 +368,9 @@ public class GenericCharacteristicParserTest {
 
         BitSet field4 = BitSet.valueOf(data).get(4 + strLength, 4 + strLength + 4);
         assertEquals(sint4, field4.toByteArray()[0]);
+        verify(twosComplementNumberFormatter, times(1)).writeInt(any(byte[].class), eq(0), eq(sint4), eq(4), eq(true));
+        verify(twosComplementNumberFormatter, times(1)).writeInt(any(byte[].class), eq(4 + strLength), eq(sint4),
+                eq(4), eq(true));
     }
 
     @Test
@@ -329,7 +385,6 @@ public class GenericCharacteristicParserTest {
         byte[] data = parser.serialize(request.getAllFieldHolders());
         assertNotNull(data);
 
-        verify(parser, times(1)).serialize(true);
         assertTrue((data[0] & 1) == 1);
         assertTrue(((data[0] >>> 1) & 1) == 0);
     }
@@ -342,11 +397,7 @@ public class GenericCharacteristicParserTest {
         int uint64 = 124;
         BigInteger sint128 = new BigInteger("-125");
 
-        when(twosComplementNumberFormatter.serialize(anyInt(), anyInt(), eq(true))).thenReturn(BitSet.valueOf(new long[] { sint32 }));
-        when(twosComplementNumberFormatter.serialize(anyLong(), anyInt(), eq(false))).thenReturn(BitSet.valueOf(new long[] { uint32 }));
-        when(twosComplementNumberFormatter.serialize(anyLong(), anyInt(), eq(true))).thenReturn(BitSet.valueOf(new long[] { sint64 }));
-        when(twosComplementNumberFormatter.serialize(any(BigInteger.class), anyInt(), eq(false))).thenReturn(BitSet.valueOf(new long[] { uint64 }));
-        when(twosComplementNumberFormatter.serialize(any(BigInteger.class), anyInt(), eq(true))).thenReturn(BitSet.valueOf(sint128.toByteArray()));
+        spyFormatters();
 
         List<Field> fields = new ArrayList<>();
         fields.add(MockUtils.mockFieldFormat("Field1", "sint32"));
@@ -367,18 +418,22 @@ public class GenericCharacteristicParserTest {
         ByteBuffer byteBuffer = ByteBuffer.wrap(data);
         byteBuffer.order(ByteOrder.BIG_ENDIAN);
 
-        verify(twosComplementNumberFormatter, times(1)).serialize(sint32, 32, true);
+        verify(twosComplementNumberFormatter, times(1)).writeInt(any(byte[].class), eq(0), eq(sint32), eq(32), eq(true));
         assertEquals(sint32, data[0]);
-        verify(twosComplementNumberFormatter, times(1)).serialize((long) uint32, 32, false);
+        verify(twosComplementNumberFormatter, times(1)).writeLong(any(byte[].class), eq(32), eq((long) uint32), eq(32),
+                eq(false));
         assertEquals(uint32, data[4]);
 
-        verify(twosComplementNumberFormatter, times(1)).serialize((long) sint64, 64, true);
+        verify(twosComplementNumberFormatter, times(1)).writeLong(any(byte[].class), eq(64), eq((long) sint64), eq(64),
+                eq(true));
         assertEquals(sint64, data[8]);
 
-        verify(twosComplementNumberFormatter, times(1)).serialize(new BigInteger(String.valueOf(uint64)), 64, false);
+        verify(twosComplementNumberFormatter, times(1)).writeBigInteger(any(byte[].class), eq(128),
+                eq(new BigInteger(String.valueOf(uint64))), eq(64), eq(false));
         assertEquals(uint64, data[16]);
 
-        verify(twosComplementNumberFormatter, times(1)).serialize(sint128, 128, true);
+        verify(twosComplementNumberFormatter, times(1)).writeBigInteger(any(byte[].class), eq(192), eq(sint128),
+                eq(128), eq(true));
         // resulting array gets truncated to 20 bytes (length of GATT payload)
         assertEquals(20, data.length);
         //assertEquals(sint128.intValue(), data[24]);
@@ -388,7 +443,7 @@ public class GenericCharacteristicParserTest {
     public void testSerializeZero() throws UnsupportedEncodingException {
         int sint32 = 0;
 
-        when(twosComplementNumberFormatter.serialize(anyInt(), anyInt(), eq(true))).thenReturn(BitSet.valueOf(new long[] { 0 }));
+        spyFormatters();
 
         List<Field> fields = new ArrayList<>();
         fields.add(MockUtils.mockFieldFormat("Field1", "sint32"));
@@ -400,6 +455,47 @@ public class GenericCharacteristicParserTest {
         assertArrayEquals(new byte[] {0}, data);
     }
 
+    @Test
+    public void testSerializeIntoBuffer() throws UnsupportedEncodingException {
+        spyFormatters();
+        List<Field> fields = new ArrayList<>();
+        fields.add(MockUtils.mockFieldFormat("Field1", "uint8"));
+        fields.add(MockUtils.mockFieldFormat("Field2", "utf8s"));
+        fields.add(MockUtils.mockFieldFormat("Field3", "uint16"));
+        GattRequest request = new GattRequest(CHARACTERISTIC_UUID, fields);
+        String text = "a string longer than twenty bytes";
+        request.setField("Field1", 1);
+        request.setField("Field2", text);
+        request.setField("Field3", 0);
+
+        byte[] buffer = new byte[64];
+        Arrays.fill(buffer, (byte) -1);
+        // trailing zero bytes of the last field are not sent
+        int length = parser.serialize(request.getAllFieldHolders(), buffer, 2, 1 + text.length());
+        assertEquals(1 + text.length(), length);
+        assertEquals(-1, buffer[1]);
+        assertEquals(1, buffer[2]);
+        assertEquals(text, new String(buffer, 3, text.length(), "UTF-8"));
+
+        // legacy serialization truncates the value to 20 bytes
+        byte[] data = parser.serialize(request.getAllFieldHolders());
+        assertArrayEquals(Arrays.copyOfRange(buffer, 2, 22), data);
+
+        try {
+            parser.serialize(request.getAllFieldHolders(), buffer, 0, text.length());
+            fail("Overflow expected");
+        } catch (CharacteristicOverflowException ex) {
+            assertEquals(1 + text.length(), ex.getLength());
+            assertEquals(text.length(), ex.getMaxLength());
+        }
+
+        request.setField("Field1", 0);
+        request.setField("Field2", "");
+        length = parser.serialize(request.getAllFieldHolders(), buffer, 0, 1);
+        assertEquals(1, length);
+        assertEquals(0, buffer[0]);
+    }
+
     @Test
     public void testSerializeString() throws UnsupportedEncodingException {
         String utf8 = "test8";
@@ -428,15 +524,7 @@ public class GenericCharacteristicParserTest {
         float sfloat = 89.1F;
         float _float = 234.5F;
 
-        when(ieee754NumberFormatter.serializeFloat(anyFloat())).thenReturn(BitSet.valueOf(new long[] {
-                Float.floatToRawIntBits(float32) }));
-        when(ieee754NumberFormatter.serializeDouble(anyDouble())).thenReturn(BitSet.valueOf(new long[] {
-                Double.doubleToLongBits(float64) }));
-
-        when(ieee11073NumberFormatter.serializeSFloat(anyFloat())).thenReturn(BitSet.valueOf(new long[] {
-                Float.floatToRawIntBits(sfloat) }));
-        when(ieee11073NumberFormatter.serializeFloat(anyFloat())).thenReturn(BitSet.valueOf(new long[] {
-                Float.floatToRawIntBits(_float) }));
+        spyFormatters();
 
         List<Field> fields = new ArrayList<>();
         fields.add(MockUtils.mockFieldFormat("Field1", "float32"));
@@ -453,11 +541,13 @@ public class GenericCharacteristicParserTest {
         byte[] data = parser.serialize(request.getAllFieldHolders());
         assertNotNull(data);
 
-        verify(ieee754NumberFormatter, times(1)).serializeFloat(float32);
-        verify(ieee754NumberFormatter, times(1)).serializeDouble(float64);
+        verify(ieee754NumberFormatter, times(1)).writeFloat(any(byte[].class), eq(0), eq(float32));
+        verify(ieee754NumberFormatter, times(1)).writeDouble(any(byte[].class), eq(32), eq(float64));
+        assertEquals(float32, new IEEE754FloatingPointNumberFormatter().readFloat(data, 0), 0);
+        assertEquals(float64, new IEEE754FloatingPointNumberFormatter().readDouble(data, 32), 0);
 
-        verify(ieee11073NumberFormatter, times(1)).serializeSFloat(sfloat);
-        verify(ieee11073NumberFormatter, times(1)).serializeFloat(_float);
+        verify(ieee11073NumberFormatter, times(1)).writeSFloat(any(byte[].class), eq(96), eq(sfloat));
+        verify(ieee11073NumberFormatter, times(1)).writeFloat(any(byte[].class), eq(112), eq(_float));
     }
 
     @Test
@@ -470,11 +560,7 @@ public class GenericCharacteristicParserTest {
     public void testParseAndSerializeStructFields() throws Exception {
         // Testing that structure fields that go after another field can be parsed correctly
 
-        // mocking number formatter to parse/serialize integers returning 1 set bit
-        when(twosComplementNumberFormatter.deserializeInteger(Matchers.<BitSet>any(), anyByte(), anyBoolean())).thenReturn(1);
-        BitSet oneBit = new BitSet();
-        oneBit.set(0);
-        when(twosComplementNumberFormatter.serialize(any(Integer.class), anyInt(), anyBoolean())).thenReturn(oneBit);
+        spyFormatters();
 
         // mocking fields, first field is a dummy field with a length of 1 bit, next one is our target field
         List<Field> fields = new ArrayList<>();
@@ -490,7 +576,7 @@ public class GenericCharacteristicParserTest {
         byte[] field2Data = {12, 24, 56};
         BitSet data = new BitSet();
         data.set(0);
-        parser.concat(data, BitSet.valueOf(field2Data), 1, field2Data.length * 8);
+        concat(data, BitSet.valueOf(field2Data), 1, field2Data.length * 8);
 
         // performing the test to check if we can parse data
         LinkedHashMap<String, FieldHolder> response = parser.parse(characteristic, data.toByteArray());
@@ -512,8 +598,8 @@ public class GenericCharacteristicParserTest {
         assertArrayEquals(data.toByteArray(), serialized);
     }
 
-    private void assertFieldsExist(Object value, String... fieldNames) {
-        Map<String, FieldHolder> values = parser.parse(characteristic, new byte[] {0, 0, 0, 0, 0, 0, 0, 0, 0});
+    private void assertFieldsExist(Object value, byte flags, String... fieldNames) {
+        Map<String, FieldHolder> values = parser.parse(characteristic, new byte[] {flags, 0, 0, 0, 0, 0, 0, 0, 0});
         assertEquals(fieldNames.length, values.size());
         assertTrue(values.keySet().containsAll(Arrays.asList(fieldNames)));
         for (FieldHolder fieldHolder : values.values()) {
@@ -532,6 +618,8 @@ public class GenericCharacteristicParserTest {
         Field field = MockUtils.mockFieldFormat(name, format);
         when(field.getDecimalExponent()).thenReturn(exponent);
         fields.add(field);
+        // parse layouts are cached per characteristic, hence a new characteristic for each format
+        Characteristic characteristic = mock(Characteristic.class, RETURNS_DEEP_STUBS);
         when(reader.getFields(characteristic)).thenReturn(fields);
         //when(characteristic.getValue().getFlags()).thenReturn(null);
         when(characteristic.getValue().getFields()).thenReturn(fields);
@@ -546,13 +634,7 @@ public class GenericCharacteristicParserTest {
         // Testing that string fields that go after another field can be parsed correctly
 
         // mocking test data
-        // mocking number formatter to parse/serialize integers returning 5 bits set to 1
-        int dummyNumber = 0b11111;
-        when(twosComplementNumberFormatter.deserializeInteger(Matchers.<BitSet>any(), anyByte(), anyBoolean()))
-                .thenReturn(dummyNumber);
-        BitSet oneBit = new BitSet();
-        oneBit.set(0, 5);
-        when(twosComplementNumberFormatter.serialize(any(Integer.class), anyInt(), anyBoolean())).thenReturn(oneBit);
+        spyFormatters();
 
         // mocking fields, first field is a dummy field with a length of 1 bit, next one is our target field
         List<Field> fields = new ArrayList<>();
@@ -560,6 +642,7 @@ public class GenericCharacteristicParserTest {
         fields.add(field1);
         Field field2 = MockUtils.mockFieldFormat("Field2", format);
         fields.add(field2);
+        Characteristic characteristic = mock(Characteristic.class, RETURNS_DEEP_STUBS);
         when(reader.getFields(characteristic)).thenReturn(fields);
         when(characteristic.getValue().getFields()).thenReturn(fields);
         when(characteristic.isValidForRead()).thenReturn(true);
@@ -569,7 +652,7 @@ public class GenericCharacteristicParserTest {
         byte[] field2Data = field2Text.getBytes(encoding);
         BitSet data = new BitSet();
         data.set(0, 5);
-        parser.concat(data, BitSet.valueOf(field2Data), 5, field2Data.length * 8);
+        concat(data, BitSet.valueOf(field2Data), 5, field2Data.length * 8);
 
         // performing the test to check if we can parse data
         LinkedHashMap<String, FieldHolder> response = parser.parse(characteristic, data.toByteArray());
@@ -591,4 +674,21 @@ public class GenericCharacteristicParserTest {
         assertArrayEquals(data.toByteArray(), serialized);
     }
 
+    private void spyFormatters() {
+        // serialization writes straight into a byte array, hence real formatters are used to check the output,
+        // IEEE 11073 formatter does not support serialization and stays mocked
+        twosComplementNumberFormatter = spy(new TwosComplementNumberFormatter());
+        ieee754NumberFormatter = spy(new IEEE754FloatingPointNumberFormatter());
+        when(BluetoothGattParserFactory.getTwosComplementNumberFormatter()).thenReturn(twosComplementNumberFormatter);
+        when(BluetoothGattParserFactory.getIEEE754FloatingPointNumberFormatter()).thenReturn(ieee754NumberFormatter);
+    }
+
+    private static void concat(BitSet target, BitSet source, int offset, int size) {
+        for (int i = 0; i < size; i++) {
+            if (source.get(i)) {
+                target.set(offset + i);
+            }
+        }
+    }
+
 }
@@ -30,6 +30,7 @@ import org.sputnikdev.bluetooth.gattparser.spec.Enumeration;
 import org.sputnikdev.bluetooth.gattparser.spec.Enumerations;
 import org.sputnikdev.bluetooth.gattparser.spec.Field;
 import org.sputnikdev.bluetooth.gattparser.spec.FieldFormat;
+import org.sputnikdev.bluetooth.gattparser.spec.FieldScale;
 import org.sputnikdev.bluetooth.gattparser.spec.FieldType;
 
 import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
@@ -47,6 +48,7 @@ public class MockUtils {
         when(field.getBinaryExponent()).thenReturn(null);
         when(field.getMinimum()).thenReturn(null);
         when(field.getMaximum()).thenReturn(null);
+        when(field.getScale()).thenReturn(FieldScale.IDENTITY);
         FieldFormat format = mock(FieldFormat.class);
         when(field.getFormat()).thenReturn(format);
         when(format.getType()).thenReturn(FieldType.SINT);
@@ -71,6 +73,7 @@ public class MockUtils {
         when(field.getRequirements()).thenReturn(Arrays.asList(requirements));
         when(field.getMinimum()).thenReturn(null);
         when(field.getMaximum()).thenReturn(null);
+        when(field.getScale()).thenReturn(FieldScale.IDENTITY);
         FieldFormat format = mock(FieldFormat.class);
         when(format.getType()).thenReturn(fieldType);
         when(field.getFormat()).thenReturn(format);
@@ -109,6 +112,7 @@ public class MockUtils {
         when(field.getBinaryExponent()).thenReturn(null);
         when(field.getMinimum()).thenReturn(null);
         when(field.getMaximum()).thenReturn(null);
+        when(field.getScale()).thenReturn(FieldScale.IDENTITY);
         return field;
     }
 
@@ -0,0 +1,121 @@
+package org.sputnikdev.bluetooth.gattparser.num;
+
+/*-
+ * #%L
+ * org.sputnikdev:bluetooth-gatt-parser
+ * %%
+ * Copyright (C) 2017 Sputnik Dev
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.BitSet;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class BitUtilsTest {
+
+    private final byte[] data = {(byte) 0b10110101, (byte) 0b01101100, (byte) 0xFF, 0x01, 0x00, (byte) 0x80};
+
+    @Test
+    public void testReadBit() {
+        BitSet bitSet = BitSet.valueOf(data);
+        for (int i = 0; i < data.length * 8 + 10; i++) {
+            assertEquals(bitSet.get(i), BitUtils.readBit(data, i));
+        }
+    }
+
+    @Test
+    public void testReadBitsAligned() {
+        assertEquals(0b10110101, BitUtils.readBits(data, 0, 8));
+        assertEquals(0b0110110010110101, BitUtils.readBits(data, 0, 16));
+        assertEquals(0x01FF6C, BitUtils.readBits(data, 8, 24));
+        assertEquals(0x800001FFL, BitUtils.readBits(data, 16, 32));
+        // beyond the array
+        assertEquals(0x80L, BitUtils.readBits(data, 40, 16));
+        assertEquals(0L, BitUtils.readBits(data, 48, 8));
+    }
+
+    @Test
+    public void testReadBitsShifted() {
+        assertEquals(0b0101, BitUtils.readBits(data, 0, 4));
+        assertEquals(0b1011, BitUtils.readBits(data, 4, 4));
+        assertEquals(0b11001011, BitUtils.readBits(data, 4, 8));
+        assertEquals(0b1, BitUtils.readBits(data, 47, 1));
+        assertEquals(0b1, BitUtils.readBits(data, 47, 10));
+    }
+
+    @Test
+    public void testReadBitsRandom() {
+        Random random = new Random(1);
+        byte[] bytes = new byte[12];
+        random.nextBytes(bytes);
+        BitSet bitSet = BitSet.valueOf(bytes);
+        for (int offset = 0; offset < bytes.length * 8; offset++) {
+            for (int size = 0; size <= 64; size++) {
+                long[] expected = bitSet.get(offset, offset + size).toLongArray();
+                assertEquals(expected.length > 0 ? expected[0] : 0L, BitUtils.readBits(bytes, offset, size));
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testReadBitsTooMany() {
+        BitUtils.readBits(data, 0, 65);
+    }
+
+    @Test
+    public void testReadBytes() {
+        assertArrayEquals(new byte[] {(byte) 0b01101100, (byte) 0xFF}, BitUtils.readBytes(data, 8, 2));
+        assertArrayEquals(new byte[] {(byte) 0b11001011, (byte) 0xF6}, BitUtils.readBytes(data, 4, 2));
+        assertArrayEquals(new byte[] {0x08, 0x00}, BitUtils.readBytes(data, 44, 2));
+        assertArrayEquals(new byte[] {0x00, 0x00}, BitUtils.readBytes(data, 100, 2));
+    }
+
+    @Test
+    public void testWriteBytes() {
+        byte[] source = {(byte) 0b10110101, (byte) 0xFF, 0x01};
+        for (int offset = 0; offset < 16; offset++) {
+            for (int size = 0; size <= 32; size++) {
+                byte[] bytes = new byte[7];
+                BitUtils.writeBytes(bytes, offset, source, size);
+                BitSet expected = new BitSet();
+                BitSet bits = BitSet.valueOf(source).get(0, size);
+                for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+                    expected.set(offset + i);
+                }
+                assertEquals(expected, BitSet.valueOf(bytes));
+            }
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testWriteBytesTooMany() {
+        BitUtils.writeBytes(new byte[2], 4, new byte[] {1, 2}, 16);
+    }
+
+    @Test
+    public void testTrimTrailingZeros() {
+        byte[] bytes = {1, 0, 2};
+        assertSame(bytes, BitUtils.trimTrailingZeros(bytes));
+        assertArrayEquals(new byte[] {1}, BitUtils.trimTrailingZeros(new byte[] {1, 0, 0}));
+        assertArrayEquals(new byte[] {}, BitUtils.trimTrailingZeros(new byte[] {0, 0}));
+    }
+
+}
@@ -85,6 +85,27 @@ public class IEEE11073FloatingPointNumberFormatterTest {
                 formatter.deserializeFloat(BitSet.valueOf(new long[]{IEEE11073FloatingPointNumberFormatter.FLOAT_POSITIVE_INFINITY})), 0.0);
     }
 
+    @Test
+    public void testReadSFloat() throws Exception {
+        // 36.4 at a nibble offset
+        byte[] data = {(byte) 0xC0, 0x16, (byte) 0x0F};
+        assertEquals(36.4, formatter.readSFloat(data, 4), 0.00001);
+        assertEquals(-36.4, formatter.readSFloat(new byte[] {(byte) 0b10010100, (byte) 0b11111110}, 0), 0.00001);
+        assertEquals(Float.NaN, formatter.readSFloat(new byte[] {(byte) 0xFF, 0x07}, 0), 0.0);
+    }
+
+    @Test
+    public void testReadFloat() throws Exception {
+        assertEquals(3.64, formatter.readFloat(new byte[] {0x6C, 0x01, 0x00, (byte) 0xFE}, 0), 0.00001);
+        assertEquals(Float.POSITIVE_INFINITY, formatter.readFloat(new byte[] {(byte) 0xFE, (byte) 0xFF, 0x7F, 0x00}, 0),
+                0.0);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testWriteSFloat() {
+        formatter.writeSFloat(new byte[2], 0, 0.0F);
+    }
+
     @Test(expected = IllegalStateException.class)
     public void testDeserializeDouble() throws Exception {
         formatter.deserializeDouble(BitSet.valueOf(new long[]{0b10L}));
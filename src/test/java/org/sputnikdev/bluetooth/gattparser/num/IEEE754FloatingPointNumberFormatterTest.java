@@ -66,6 +66,17 @@ public class IEEE754FloatingPointNumberFormatterTest {
         assertEquals(bitSet, formatter.serializeDouble(deserialized));
     }
 
+    @Test
+    public void testReadWrite() throws Exception {
+        byte[] data = new byte[13];
+        formatter.writeFloat(data, 3, Float.MAX_VALUE);
+        formatter.writeDouble(data, 35, -1.5D);
+        assertEquals(Float.MAX_VALUE, formatter.readFloat(data, 3), 0.0);
+        assertEquals(-1.5D, formatter.readDouble(data, 35), 0.0);
+        assertEquals(0.0F, formatter.readFloat(new byte[4], 0), 0.0);
+        assertEquals(0.0F, formatter.deserializeFloat(new BitSet()), 0.0);
+    }
+
     @Test(expected = IllegalStateException.class)
     public void testSerializeSFloat() {
         formatter.serializeSFloat(0.0F);
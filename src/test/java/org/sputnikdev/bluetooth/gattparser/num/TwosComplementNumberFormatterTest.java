@@ -162,6 +162,70 @@ public class TwosComplementNumberFormatterTest {
         assertEquals(bitSetInt, bitSetBigInteger);
     }
 
+    @Test
+    public void testReadWrite() throws Exception {
+        // nibble, byte aligned and random widths at various offsets
+        for (int offset : new int[] {0, 3, 8, 13}) {
+            assertReadWrite(offset, 4, false, 15);
+            assertReadWrite(offset, 4, true, -8);
+            assertReadWrite(offset, 12, true, -2048);
+            assertReadWrite(offset, 16, false, 65535);
+            assertReadWrite(offset, 24, true, -8388608);
+            assertReadWrite(offset, 32, true, Integer.MIN_VALUE);
+            assertReadWrite(offset, 32, false, 4294967295L);
+            assertReadWrite(offset, 33, true, -4294967296L);
+            assertReadWrite(offset, 48, false, 0xFFFFFFFFFFFFL);
+            assertReadWrite(offset, 64, true, Long.MIN_VALUE);
+            assertReadWrite(offset, 64, true, -1L);
+        }
+        // 1 bit numbers are always unsigned
+        assertReadWrite(5, 1, true, 1);
+    }
+
+    @Test
+    public void testWriteBigInteger() throws Exception {
+        for (int offset : new int[] {0, 5, 8}) {
+            assertWriteBigInteger(offset, 64, false, new BigInteger("18446744073709551615"));
+            assertWriteBigInteger(offset, 65, true, new BigInteger("-18446744073709551616"));
+            assertWriteBigInteger(offset, 128, true, BigInteger.valueOf(-125));
+            assertWriteBigInteger(offset, 128, false, BigInteger.ONE.shiftLeft(127));
+            assertWriteBigInteger(offset, 72, true, BigInteger.valueOf(12345678));
+        }
+    }
+
+    @Test
+    public void testReadFromBytes() throws Exception {
+        byte[] data = {(byte) 0b11101100, (byte) 0b00000001};
+        assertEquals(0b1100, formatter.readInt(data, 0, 4, false));
+        assertEquals(-4, formatter.readInt(data, 0, 4, true));
+        assertEquals(0b11110, formatter.readInt(data, 4, 5, false));
+        assertEquals(0b11101100, formatter.readLong(data, 0, 8, false));
+        assertEquals(-20, formatter.readLong(data, 0, 8, true));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testReadIntTooBig() throws Exception {
+        formatter.readInt(new byte[5], 0, 33, true);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWriteLongTooBig() throws Exception {
+        formatter.writeLong(new byte[10], 0, 1L, 65, true);
+    }
+
+    private void assertWriteBigInteger(int offset, int size, boolean signed, BigInteger number) {
+        byte[] data = new byte[(offset + size + 7) / 8];
+        formatter.writeBigInteger(data, offset, number, size, signed);
+        BitSet expected = new BitSet();
+        BitSet bits = formatter.serialize(number, size, signed);
+        for (int i = bits.nextSetBit(0); i >= 0 && i < size; i = bits.nextSetBit(i + 1)) {
+            expected.set(offset + i);
+        }
+        assertEquals(expected, BitSet.valueOf(data));
+        BitSet written = BitSet.valueOf(data).get(offset, offset + size);
+        assertEquals(number, formatter.deserializeBigInteger(written, size, signed));
+    }
+
     private void assertDeserializeSerialize(int byte1, int size, boolean signed, int expected) {
         BitSet bitSet = getBytes(byte1);
         assertDeserializeSerialize(bitSet, size, signed, expected);
@@ -214,6 +278,21 @@ public class TwosComplementNumberFormatterTest {
         assertEquals(bitSet.get(0, size), formatter.serialize(deserializedBigInteger, size, signed));
     }
 
+    private void assertReadWrite(int offset, int size, boolean signed, long expected) {
+        byte[] data = {-1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1};
+        formatter.writeLong(data, offset, expected, size, signed);
+        assertEquals(expected, formatter.readLong(data, offset, size, signed));
+        if (size <= 32) {
+            assertEquals((int) expected, formatter.readInt(data, offset, size, signed));
+            formatter.writeInt(data, offset, (int) expected, size, signed);
+            assertEquals((int) expected, formatter.readInt(data, offset, size, signed));
+        }
+        // bits around the number must not change
+        BitSet bitSet = BitSet.valueOf(data);
+        assertEquals(offset, bitSet.get(0, offset).cardinality());
+        assertEquals(data.length * 8 - offset - size, bitSet.get(offset + size, data.length * 8).cardinality());
+    }
+
     private BitSet getBytes(int byte1) {
         return BitSet.valueOf(new byte[] {(byte) byte1});
     }
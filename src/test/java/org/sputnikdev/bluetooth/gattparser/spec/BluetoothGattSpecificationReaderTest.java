@@ -21,9 +21,16 @@ package org.sputnikdev.bluetooth.gattparser.spec;
  */
 
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -34,6 +41,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -207,6 +215,8 @@ public class BluetoothGattSpecificationReaderTest {
         assertTrue(reader.getCharacteristicByUUID("2A46").isValidForRead());
         assertFalse(reader.getCharacteristicByUUID("2AA4").isValidForRead());
         assertFalse(reader.getCharacteristicByUUID("2A63").isValidForRead());
+        // no value fields
+        assertFalse(reader.getCharacteristicByUUID("2A7D").isValidForRead());
     }
 
     @Test
@@ -231,6 +241,64 @@ public class BluetoothGattSpecificationReaderTest {
         assertEquals("Adjust Reason", fields.get(8).getName());
     }
 
+    @Test
+    public void testConcurrentLoading() throws Exception {
+        BluetoothGattSpecificationReader reader = new BluetoothGattSpecificationReader();
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Characteristic>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                boolean byType = i % 2 == 0;
+                futures.add(executor.submit((Callable<Characteristic>) () -> {
+                    start.await();
+                    return byType ? reader.getCharacteristicByType("org.bluetooth.characteristic.heart_rate_measurement")
+                            : reader.getCharacteristicByUUID("2A37");
+                }));
+            }
+            start.countDown();
+            Characteristic characteristic = futures.get(0).get();
+            assertNotNull(characteristic);
+            assertTrue(characteristic.isValidForRead());
+            for (Future<Characteristic> future : futures) {
+                assertSame(characteristic, future.get());
+            }
+            assertSame(characteristic, reader.getCharacteristicByUUID("2A37"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testPreload() {
+        BluetoothGattSpecificationReader reader = new BluetoothGattSpecificationReader();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            PreloadReport report = reader.preload(pool);
+            assertEquals(40, report.getServices());
+            assertEquals(191, report.getCharacteristics());
+            assertEquals(191, reader.getCharacteristics().size());
+            assertEquals(40, reader.getServices().size());
+            assertTrue(report.getLoadTime() >= 0);
+            // no value fields
+            assertTrue(report.getFailures().containsKey("2A7D"));
+            assertFalse(report.getFailures().containsKey("2A19"));
+            // "variable" is not a format known to the parser
+            assertEquals("Operand (variable)", report.getUnknownFormats().get("2A52"));
+            assertFalse(report.getUnknownFormats().containsKey("2A19"));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testGetUnknown() {
+        assertNull(reader.getCharacteristicByUUID("FFFFFF"));
+        assertNull(reader.getCharacteristicByType("org.bluetooth.characteristic.unknown"));
+        assertNull(reader.getService("FFFFFF"));
+    }
+
     private void assertCharacteristicAccess(String read, String write, String writeWithoutResponse, String signedWrite,
             String reliableWrite, String notify, String indicate, String writableAuxiliaries, String broadcast,
             CharacteristicAccess characteristicAccess) {
@@ -0,0 +1,109 @@
+package org.sputnikdev.bluetooth.gattparser.spec;
+
+/*-
+ * #%L
+ * org.sputnikdev:bluetooth-gatt-parser
+ * %%
+ * Copyright (C) 2017 Sputnik Dev
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class EnumerationIndexTest {
+
+    @Test
+    public void testDenseKeys() {
+        List<Enumeration> enums = new ArrayList<>();
+        Enumeration first = mockEnumeration(BigInteger.valueOf(-1), "Negative");
+        enums.add(first);
+        enums.add(mockEnumeration(BigInteger.valueOf(5), "Five"));
+        enums.add(mockEnumeration(BigInteger.valueOf(-1), "Duplicate"));
+        EnumerationIndex index = new EnumerationIndex(enums);
+
+        assertSame(first, index.get(-1));
+        assertSame(first, index.get(BigInteger.valueOf(-1)));
+        assertEquals("Five", index.get(5).getValue());
+        assertNull(index.get(4));
+        assertNull(index.get(6));
+        assertNull(index.get(Long.MIN_VALUE));
+        assertNull(index.get(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testSparseKeys() {
+        List<Enumeration> enums = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            enums.add(mockEnumeration(BigInteger.valueOf(i * 1000003L), "Value" + i));
+        }
+        enums.add(mockEnumeration(BigInteger.valueOf(Long.MIN_VALUE), "Min"));
+        enums.add(mockEnumeration(BigInteger.valueOf(Long.MAX_VALUE), "Max"));
+        EnumerationIndex index = new EnumerationIndex(enums);
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals("Value" + i, index.get(i * 1000003L).getValue());
+            assertNull(index.get(i * 1000003L + 1));
+        }
+        assertEquals("Min", index.get(Long.MIN_VALUE).getValue());
+        assertEquals("Max", index.get(BigInteger.valueOf(Long.MAX_VALUE)).getValue());
+    }
+
+    @Test
+    public void testWideKeys() {
+        BigInteger key = BigInteger.ONE.shiftLeft(100);
+        List<Enumeration> enums = new ArrayList<>();
+        enums.add(mockEnumeration(key, "Wide"));
+        enums.add(mockEnumeration(BigInteger.ONE, "One"));
+        EnumerationIndex index = new EnumerationIndex(enums);
+
+        assertEquals("Wide", index.get(key).getValue());
+        assertNull(index.get(key.add(BigInteger.ONE)));
+        assertEquals("One", index.get(1).getValue());
+    }
+
+    @Test
+    public void testGetByValue() {
+        List<Enumeration> enums = new ArrayList<>();
+        enums.add(mockEnumeration(BigInteger.ONE, "Same"));
+        enums.add(mockEnumeration(BigInteger.TEN, "Other"));
+        enums.add(mockEnumeration(BigInteger.ZERO, "Same"));
+        EnumerationIndex index = new EnumerationIndex(enums);
+
+        assertEquals(2, index.get("Same").size());
+        assertSame(enums.get(0), index.get("Same").get(0));
+        assertSame(enums.get(2), index.get("Same").get(1));
+        assertTrue(index.get("Unknown").isEmpty());
+        assertNull(EnumerationIndex.EMPTY.get(1));
+    }
+
+    private static Enumeration mockEnumeration(BigInteger key, String value) {
+        Enumeration enumeration = mock(Enumeration.class);
+        when(enumeration.getKey()).thenReturn(key);
+        when(enumeration.getValue()).thenReturn(value);
+        return enumeration;
+    }
+
+}
@@ -23,6 +23,8 @@ package org.sputnikdev.bluetooth.gattparser.spec;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 public class FieldFormatTest {
 
@@ -47,6 +49,15 @@ public class FieldFormatTest {
         assertFieldType("sint65", FieldType.SINT, 65, FieldFormat.valueOf("siNT65"));
     }
 
+    @Test
+    public void testValueOfShared() {
+        assertSame(FieldFormat.valueOf("uint8"), FieldFormat.valueOf("UINT8"));
+        assertSame(FieldFormat.valueOf("sint16"), FieldFormat.valueOf("sint16"));
+        assertSame(FieldFormat.valueOf("sfloat"), FieldFormat.valueOf("SFLOAT"));
+        assertNull(FieldFormat.valueOf("variable"));
+        assertNull(FieldFormat.valueOf(null));
+    }
+
     @Test(expected = IllegalStateException.class)
     public void testValueOfInvalidFormat() {
         FieldFormat.valueOf("siNTunknown");
@@ -0,0 +1,67 @@
+package org.sputnikdev.bluetooth.gattparser.spec;
+
+/*-
+ * #%L
+ * org.sputnikdev:bluetooth-gatt-parser
+ * %%
+ * Copyright (C) 2017 Sputnik Dev
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class FieldScaleTest {
+
+    @Test
+    public void testValueOf() {
+        FieldScale scale = FieldScale.valueOf(1, 2, 3, 2000.0);
+        assertEquals(120.0, scale.getMultiplier(), 0);
+        assertEquals(2000.0, scale.getOffset(), 0);
+        assertEquals(BigDecimal.valueOf(120.0), scale.getDecimalMultiplier());
+        assertEquals(BigDecimal.valueOf(2000.0), scale.getDecimalOffset());
+        assertFalse(scale.isIdentity());
+        assertEquals(2120.0, scale.scale(1), 0);
+        assertEquals(1.0, scale.unscale(2120), 0);
+
+        scale = FieldScale.valueOf(-2, null, null, null);
+        assertEquals(0.01, scale.getMultiplier(), 0);
+        assertEquals(24.67, scale.scale(2467), 0.0000001);
+    }
+
+    @Test
+    public void testIdentity() {
+        assertSame(FieldScale.IDENTITY, FieldScale.valueOf(null, null, null, null));
+        assertSame(FieldScale.IDENTITY, FieldScale.valueOf(0, 0, 0, 0.0));
+        assertSame(FieldScale.IDENTITY, FieldScale.valueOf(null, null, 1, null));
+        assertTrue(FieldScale.IDENTITY.isIdentity());
+        assertFalse(FieldScale.valueOf(null, null, null, 1.0).isIdentity());
+    }
+
+    @Test
+    public void testFieldScale() {
+        Field field = new BluetoothGattSpecificationReader().getCharacteristicByUUID("2A6E").getValue().getFields()
+                .get(0);
+        assertEquals(0.01, field.getScale().getMultiplier(), 0);
+        assertSame(field.getScale(), field.getScale());
+    }
+
+}
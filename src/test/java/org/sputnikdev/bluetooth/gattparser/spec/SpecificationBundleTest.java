@@ -0,0 +1,111 @@
+package org.sputnikdev.bluetooth.gattparser.spec;
+
+/*-
+ * #%L
+ * org.sputnikdev:bluetooth-gatt-parser
+ * %%
+ * Copyright (C) 2017 Sputnik Dev
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.thoughtworks.xstream.XStream;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assume.assumeNotNull;
+
+public class SpecificationBundleTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private URL gattFolder;
+
+    @Before
+    public void setUp() throws Exception {
+        URL registry = getClass().getClassLoader().getResource("gatt/characteristic/gatt_spec_registry.json");
+        assumeNotNull(registry);
+        gattFolder = new URL(registry, "../");
+    }
+
+    @Test
+    public void testWriteAndLoad() throws Exception {
+        File bundleFile = temporaryFolder.newFile(SpecificationBundle.BUNDLE_FILE_NAME);
+        SpecificationBundle.write(new File(gattFolder.toURI()), bundleFile);
+
+        SpecificationBundle bundle = SpecificationBundle.load(bundleFile.toURI().toURL());
+        XStream xstream = BluetoothGattSpecificationReader.createXStream();
+        XStream printer = new XStream();
+        File[] folders = {new File(gattFolder.toURI().resolve("service")),
+            new File(gattFolder.toURI().resolve("characteristic"))};
+        int count = 0;
+        for (File folder : folders) {
+            for (File file : folder.listFiles((dir, name) -> name.endsWith(".xml"))) {
+                URL url = new URL(bundleFile.toURI().toURL(), folder.getName() + "/" + file.getName());
+                Object expected = xstream.fromXML(file);
+                Object actual = folder.getName().equals("service")
+                        ? bundle.getService(url) : bundle.getCharacteristic(url);
+                assertNotNull(actual);
+                assertEquals(printer.toXML(expected), printer.toXML(actual));
+                count++;
+            }
+        }
+        assertEquals(count, bundle.size());
+    }
+
+    @Test
+    public void testGetUnknown() throws Exception {
+        File bundleFile = temporaryFolder.newFile(SpecificationBundle.BUNDLE_FILE_NAME);
+        SpecificationBundle.write(new File(gattFolder.toURI()), bundleFile);
+
+        SpecificationBundle bundle = SpecificationBundle.load(bundleFile.toURI().toURL());
+        URL batteryLevel = new URL(bundleFile.toURI().toURL(),
+                "characteristic/org.bluetooth.characteristic.battery_level.xml");
+        assertNotNull(bundle.getCharacteristic(batteryLevel));
+        // wrong kind
+        assertNull(bundle.getService(batteryLevel));
+        assertNull(bundle.getCharacteristic(new URL(bundleFile.toURI().toURL(), "characteristic/unknown.xml")));
+        assertNull(bundle.getCharacteristic(null));
+    }
+
+    @Test(expected = IOException.class)
+    public void testLoadInvalid() throws Exception {
+        File bundleFile = temporaryFolder.newFile(SpecificationBundle.BUNDLE_FILE_NAME);
+        Files.write(Paths.get(bundleFile.toURI()), new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13});
+        SpecificationBundle.load(bundleFile.toURI().toURL());
+    }
+
+    @Test
+    public void testReaderUsesBundle() throws Exception {
+        URL url = getClass().getClassLoader().getResource("gatt/" + SpecificationBundle.BUNDLE_FILE_NAME);
+        assumeNotNull(url);
+        SpecificationBundle bundle = SpecificationBundle.load(url);
+        assertNotNull(bundle.getCharacteristic(new URL(gattFolder,
+                "characteristic/org.bluetooth.characteristic.heart_rate_measurement.xml")));
+        assertNotNull(bundle.getService(new URL(gattFolder, "service/org.bluetooth.service.heart_rate.xml")));
+    }
+
+}
@@ -0,0 +1,63 @@
+package org.sputnikdev.bluetooth.gattparser.spec;
+
+/*-
+ * #%L
+ * org.sputnikdev:bluetooth-gatt-parser
+ * %%
+ * Copyright (C) 2017 Sputnik Dev
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.thoughtworks.xstream.XStream;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class SpecificationXmlDriverTest {
+
+    @Test
+    public void testReadMixedContent() {
+        XStream xstream = new XStream(new SpecificationXmlDriver());
+        xstream.processAnnotations(new Class[] {Field.class, Enumerations.class, Enumeration.class});
+        xstream.ignoreUnknownElements();
+
+        Field field = (Field) xstream.fromXML("<Field name=\"Level\">"
+                + "<InformativeText>first <p>skipped <b>nested</b></p>second<p/> third</InformativeText>"
+                + "<Requirement>Mandatory</Requirement>"
+                + "<Format>uint8</Format>"
+                + "<Enumerations><Enumeration key=\"1\" value=\"One\"/></Enumerations>"
+                + "</Field>");
+
+        assertEquals("Level", field.getName());
+        assertEquals("first second third", field.getInformativeText());
+        assertEquals("Mandatory", field.getRequirements().get(0));
+        assertEquals("uint8", field.getFormat().getName());
+        assertEquals("One", field.getEnumerations().getEnumerations().get(0).getValue());
+    }
+
+    @Test
+    public void testReadSimpleContent() {
+        XStream xstream = new XStream(new SpecificationXmlDriver());
+        xstream.processAnnotations(Field.class);
+        xstream.ignoreUnknownElements();
+
+        Field field = (Field) xstream.fromXML("<Field name=\"Level\"><InformativeText>text</InformativeText>"
+                + "<Format>uint8</Format></Field>");
+
+        assertEquals("text", field.getInformativeText());
+        assertEquals("uint8", field.getFormat().getName());
+    }
+
+}